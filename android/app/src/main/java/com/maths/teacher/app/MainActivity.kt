@@ -78,7 +78,7 @@ class MainActivity : ComponentActivity() {
         window.setBackgroundDrawable(ColorDrawable(ContextCompat.getColor(this, R.color.window_background)))
         val sessionManager = SessionManager(applicationContext)
         runBlocking { sessionManager.loadFromStore() }
-        val api = ApiClient.createApi(sessionManager)
+        val api = ApiClient.createApi(applicationContext, sessionManager)
         val repository = DefaultVideoRepository(api)
 
         setContent {
@@ -156,7 +156,8 @@ class MainActivity : ComponentActivity() {
                         HomeScreen(
                             viewModel = homeViewModel,
                             navController = navController,
-                            sessionManager = sessionManager
+                            sessionManager = sessionManager,
+                            api = api
                         )
                     }
                     composable("resources") {
@@ -1,17 +1,22 @@
 package com.maths.teacher.app.data.api
 
 import com.maths.teacher.app.config.AppConstants
+import android.content.Context
 import com.maths.teacher.app.data.prefs.SessionManager
+import okhttp3.Cache
 import okhttp3.Interceptor
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
+import java.io.File
 import java.util.concurrent.TimeUnit
 
 object ApiClient {
 
-    fun createApi(sessionManager: SessionManager): TeacherApi {
+    private const val HTTP_CACHE_BYTES = 10L * 1024 * 1024
+
+    fun createApi(context: Context, sessionManager: SessionManager): TeacherApi {
         val authInterceptor = Interceptor { chain ->
             val token = sessionManager.currentToken
             val request = if (!token.isNullOrBlank()) {
@@ -26,9 +31,24 @@ object ApiClient {
         val logging = HttpLoggingInterceptor().apply {
             level = HttpLoggingInterceptor.Level.BODY
         }
+        val refreshApi = Retrofit.Builder()
+            .baseUrl(AppConstants.BASE_URL)
+            .client(
+                OkHttpClient.Builder()
+                    .connectTimeout(30, TimeUnit.SECONDS)
+                    .readTimeout(30, TimeUnit.SECONDS)
+                    .build()
+            )
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(AuthRefreshApi::class.java)
+        // Catalog and library responses carry ETags; the cache makes OkHttp revalidate them
+        // with If-None-Match and reuse the stored body on 304.
         val client = OkHttpClient.Builder()
+            .cache(Cache(File(context.cacheDir, "http"), HTTP_CACHE_BYTES))
             .addInterceptor(authInterceptor)
             .addInterceptor(logging)
+            .authenticator(TokenAuthenticator(sessionManager, refreshApi))
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
             .writeTimeout(30, TimeUnit.SECONDS)
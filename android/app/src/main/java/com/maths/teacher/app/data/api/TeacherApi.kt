@@ -2,12 +2,15 @@ package com.maths.teacher.app.data.api
 
 import com.maths.teacher.app.data.model.AuthResponse
 import com.maths.teacher.app.data.model.ForgotPasswordRequest
+import com.maths.teacher.app.data.model.LibraryResponse
 import com.maths.teacher.app.data.model.MessageResponse
 import com.maths.teacher.app.data.model.PdfDownloadResponse
+import com.maths.teacher.app.data.model.RefreshTokenRequest
 import com.maths.teacher.app.data.model.ResetPasswordRequest
 import com.maths.teacher.app.data.model.SignupRequest
 import com.maths.teacher.app.data.model.UserCoursesResponse
 import com.maths.teacher.app.data.model.VideoDto
+import retrofit2.Call
 import retrofit2.http.Body
 import retrofit2.http.GET
 import retrofit2.http.POST
@@ -21,6 +24,9 @@ interface TeacherApi {
     @POST("api/auth/login")
     suspend fun login(@Body request: com.maths.teacher.app.data.model.LoginRequest): AuthResponse
 
+    @POST("api/auth/logout")
+    suspend fun logout(@Body request: RefreshTokenRequest): MessageResponse
+
     @POST("api/auth/forgot-password")
     suspend fun forgotPassword(@Body request: ForgotPasswordRequest): MessageResponse
 
@@ -38,4 +44,14 @@ interface TeacherApi {
 
     @GET("api/user/courses")
     suspend fun getUserCourses(): UserCoursesResponse
+
+    @GET("api/user/library")
+    suspend fun getLibrary(): LibraryResponse
+}
+
+/** Used by [TokenAuthenticator] on OkHttp's thread, hence a blocking [Call]. */
+interface AuthRefreshApi {
+
+    @POST("api/auth/refresh")
+    fun refresh(@Body request: RefreshTokenRequest): Call<AuthResponse>
 }
@@ -0,0 +1,52 @@
+package com.maths.teacher.app.data.api
+
+import com.maths.teacher.app.data.model.RefreshTokenRequest
+import com.maths.teacher.app.data.prefs.SessionManager
+import kotlinx.coroutines.runBlocking
+import okhttp3.Authenticator
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.Route
+
+/**
+ * Renews the short-lived access token when the server answers 401, then retries the
+ * request once. Refresh tokens are single-use, so refreshes are serialized and a request
+ * that failed with an already-replaced token simply retries with the current one.
+ */
+class TokenAuthenticator(
+    private val sessionManager: SessionManager,
+    private val refreshApi: AuthRefreshApi
+) : Authenticator {
+
+    override fun authenticate(route: Route?, response: Response): Request? {
+        if (response.request.url.encodedPath.contains("/api/auth/") || response.priorResponse != null) {
+            return null
+        }
+        val failedToken = response.request.header("Authorization")?.removePrefix("Bearer ")
+
+        synchronized(this) {
+            val current = sessionManager.currentToken
+            if (!current.isNullOrBlank() && current != failedToken) {
+                return response.request.withToken(current)
+            }
+            val refreshToken = sessionManager.currentRefreshToken ?: return null
+            val refreshed = try {
+                refreshApi.refresh(RefreshTokenRequest(refreshToken)).execute()
+            } catch (e: Exception) {
+                return null
+            }
+            val body = refreshed.body()
+            if (!refreshed.isSuccessful || body == null) {
+                if (refreshed.code() == 401) {
+                    runBlocking { sessionManager.clearSession() }
+                }
+                return null
+            }
+            runBlocking { sessionManager.updateTokens(body.token, body.refreshToken) }
+            return response.request.withToken(body.token)
+        }
+    }
+
+    private fun Request.withToken(token: String): Request =
+        newBuilder().header("Authorization", "Bearer $token").build()
+}
@@ -8,5 +8,6 @@ data class AuthResponse(
     @SerializedName("email") val email: String,
     @SerializedName("firstName") val firstName: String,
     @SerializedName("lastName") val lastName: String,
-    @SerializedName("mobileNumber") val mobileNumber: String?
+    @SerializedName("mobileNumber") val mobileNumber: String?,
+    @SerializedName("refreshToken") val refreshToken: String? = null
 )
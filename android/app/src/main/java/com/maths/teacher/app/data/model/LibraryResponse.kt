@@ -0,0 +1,13 @@
+package com.maths.teacher.app.data.model
+
+data class LibraryCourseDto(
+    val id: Long,
+    val title: String,
+    val description: String?,
+    val thumbnailUrl: String?,
+    val videos: List<VideoDto> = emptyList()
+)
+
+data class LibraryResponse(
+    val courses: List<LibraryCourseDto>
+)
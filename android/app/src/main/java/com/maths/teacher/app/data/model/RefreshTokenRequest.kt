@@ -0,0 +1,7 @@
+package com.maths.teacher.app.data.model
+
+import com.google.gson.annotations.SerializedName
+
+data class RefreshTokenRequest(
+    @SerializedName("refreshToken") val refreshToken: String
+)
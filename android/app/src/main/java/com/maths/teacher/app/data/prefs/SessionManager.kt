@@ -14,6 +14,7 @@ private val Context.dataStore: DataStore<Preferences> by preferencesDataStore(na
 
 object SessionKeys {
     val TOKEN = stringPreferencesKey("token")
+    val REFRESH_TOKEN = stringPreferencesKey("refresh_token")
     val USER_ID = stringPreferencesKey("user_id")
     val FIRST_NAME = stringPreferencesKey("first_name")
     val LAST_NAME = stringPreferencesKey("last_name")
@@ -27,6 +28,11 @@ class SessionManager(private val context: Context) {
     var currentToken: String? = null
         private set
 
+    /** In-memory refresh token used by the OkHttp authenticator to renew [currentToken]. */
+    @Volatile
+    var currentRefreshToken: String? = null
+        private set
+
     val token: Flow<String?> = context.dataStore.data.map { prefs ->
         prefs[SessionKeys.TOKEN]?.takeIf { it.isNotBlank() }
     }
@@ -51,11 +57,14 @@ class SessionManager(private val context: Context) {
         userId: Long,
         firstName: String,
         lastName: String,
-        email: String
+        email: String,
+        refreshToken: String? = null
     ) {
         currentToken = token
+        currentRefreshToken = refreshToken
         context.dataStore.edit { prefs ->
             prefs[SessionKeys.TOKEN] = token
+            if (refreshToken != null) prefs[SessionKeys.REFRESH_TOKEN] = refreshToken
             prefs[SessionKeys.USER_ID] = userId.toString()
             prefs[SessionKeys.FIRST_NAME] = firstName
             prefs[SessionKeys.LAST_NAME] = lastName
@@ -63,13 +72,26 @@ class SessionManager(private val context: Context) {
         }
     }
 
+    /** Stores the token pair returned by a refresh. */
+    suspend fun updateTokens(token: String, refreshToken: String?) {
+        currentToken = token
+        currentRefreshToken = refreshToken
+        context.dataStore.edit { prefs ->
+            prefs[SessionKeys.TOKEN] = token
+            if (refreshToken != null) prefs[SessionKeys.REFRESH_TOKEN] = refreshToken
+        }
+    }
+
     suspend fun clearSession() {
         currentToken = null
+        currentRefreshToken = null
         context.dataStore.edit { it.clear() }
     }
 
     /** Load token from DataStore into memory (call at app start before making API calls). */
     suspend fun loadFromStore() {
-        currentToken = context.dataStore.data.first()[SessionKeys.TOKEN]?.takeIf { it.isNotBlank() }
+        val prefs = context.dataStore.data.first()
+        currentToken = prefs[SessionKeys.TOKEN]?.takeIf { it.isNotBlank() }
+        currentRefreshToken = prefs[SessionKeys.REFRESH_TOKEN]?.takeIf { it.isNotBlank() }
     }
 }
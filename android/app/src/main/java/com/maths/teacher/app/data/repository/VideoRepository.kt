@@ -15,9 +15,9 @@ class DefaultVideoRepository(
 ) : VideoRepository {
 
     override suspend fun getPurchasedCourses(): List<CourseWithVideos> {
-        val coursesResponse = api.getUserCourses()
-        return coursesResponse.purchasedCourses.map { courseDto ->
-            val videos = api.getCourseVideos(courseDto.id)
+        val library = api.getLibrary()
+        return library.courses.map { courseDto ->
+            val videos = courseDto.videos
                 .sortedBy { it.displayOrder }
                 .map { dto ->
                     Video(
@@ -60,7 +60,8 @@ class LoginViewModel(
                     userId = response.userId,
                     firstName = response.firstName,
                     lastName = response.lastName,
-                    email = response.email
+                    email = response.email,
+                    refreshToken = response.refreshToken
                 )
                 _uiState.value = state.copy(isLoading = false)
                 onSuccess()
@@ -42,6 +42,8 @@ import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
+import com.maths.teacher.app.data.api.TeacherApi
+import com.maths.teacher.app.data.model.RefreshTokenRequest
 import com.maths.teacher.app.data.prefs.SessionManager
 import com.maths.teacher.app.domain.model.CourseWithVideos
 import com.maths.teacher.app.ui.components.AppFooter
@@ -59,7 +61,8 @@ import kotlinx.coroutines.launch
 fun HomeScreen(
     viewModel: HomeViewModel,
     navController: NavController,
-    sessionManager: SessionManager
+    sessionManager: SessionManager,
+    api: TeacherApi
 ) {
     val uiState by viewModel.uiState.collectAsStateWithLifecycle()
     val displayName by sessionManager.displayName.collectAsStateWithLifecycle(initialValue = null)
@@ -136,6 +139,10 @@ fun HomeScreen(
         onLogout = {
             scope.launch {
                 drawerState.close()
+                // Best effort: the server revokes the tokens; the local session is cleared either way.
+                sessionManager.currentRefreshToken?.let { refreshToken ->
+                    runCatching { api.logout(RefreshTokenRequest(refreshToken)) }
+                }
                 sessionManager.clearSession()
                 navController.navigate("login") {
                     popUpTo("home") { inclusive = true }
@@ -0,0 +1,93 @@
+-- ============================================================================
+-- Admin user search benchmark (500k synthetic users)
+-- ============================================================================
+-- Run against a throwaway database that already has docker/init applied, e.g.:
+--
+--   docker compose exec -T postgres createdb -U teacher search_bench
+--   docker compose exec -T postgres psql -U teacher -d search_bench -f - < backend/docker/init/000_consolidated.sql
+--   docker compose exec -T postgres psql -U teacher -d search_bench -f - < backend/docker/bench/user_search_benchmark.sql
+--
+-- Never run it against a real database: it truncates users. Each query runs warm and is
+-- reported by EXPLAIN ANALYZE; the target is under 20 ms execution time per page.
+-- ============================================================================
+
+\timing on
+SET client_min_messages = warning;
+
+TRUNCATE users RESTART IDENTITY CASCADE;
+
+-- Names are drawn from small pools so common terms match thousands of rows, which is the
+-- worst case for ranking; emails and mobiles are unique like in production.
+INSERT INTO users (first_name, last_name, email, mobile_number, password_hash, role)
+SELECT f.name,
+       l.name,
+       lower(f.name) || '.' || lower(l.name) || g || '@example.com',
+       '+91' || (6000000000 + g)::text,
+       'x',
+       'USER'
+FROM generate_series(1, 500000) g
+CROSS JOIN LATERAL (
+    SELECT (ARRAY['Aarav','Vivaan','Aditya','Vihaan','Arjun','Sai','Reyansh','Ayaan','Krishna','Ishaan',
+                  'Ananya','Diya','Aadhya','Saanvi','Pari','Anika','Navya','Myra','Riya','Priya',
+                  'Rahul','Rohit','Amit','Neha','Pooja','Sneha','Vikram','Karan','Meera','Tanvi'])
+           [1 + (hashint4(g) & 2147483647) % 30] AS name
+) f
+CROSS JOIN LATERAL (
+    SELECT (ARRAY['Sharma','Verma','Gupta','Singh','Kumar','Patel','Reddy','Nair','Iyer','Das',
+                  'Mehta','Joshi','Chopra','Malhotra','Kapoor','Bose','Sen','Rao','Pillai','Yadav',
+                  'Mishra','Pandey','Tiwari','Agarwal','Jain','Shah','Desai','Kulkarni','Bhat','Ghosh'])
+           [1 + (hashint8(g::bigint * 7919) & 2147483647) % 30] AS name
+) l;
+
+ANALYZE users;
+
+-- The same statement the application sends (AdminUserService.SEARCH_SQL). $3 and $4 are
+-- the candidate budgets, MAX_CANDIDATES = 500 and MAX_TYPO_CANDIDATES = 100.
+PREPARE user_search(text, text, int, int, real, bigint, int) AS
+WITH substring_hits AS (
+    SELECT id, first_name, last_name, email, mobile_number,
+           user_search_text(first_name, last_name, email, mobile_number) AS search_text
+    FROM users
+    WHERE user_search_text(first_name, last_name, email, mobile_number) LIKE $1
+    LIMIT $3
+), typo_hits AS (
+    SELECT id, first_name, last_name, email, mobile_number,
+           user_search_text(first_name, last_name, email, mobile_number) AS search_text
+    FROM users
+    WHERE $2 <% user_search_text(first_name, last_name, email, mobile_number)
+      AND user_search_text(first_name, last_name, email, mobile_number) NOT LIKE $1
+    LIMIT (SELECT least($4, $3 - count(*)) FROM substring_hits)
+), matches AS (
+    SELECT id, first_name, last_name, email, mobile_number,
+           (1 + word_similarity($2, search_text))::real AS score
+    FROM substring_hits
+    UNION ALL
+    SELECT id, first_name, last_name, email, mobile_number,
+           word_similarity($2, search_text)::real
+    FROM typo_hits
+)
+SELECT id, first_name, last_name, email, mobile_number, score
+FROM matches
+WHERE score < $5 OR (score = $5 AND id > $6)
+ORDER BY score DESC, id
+LIMIT $7;
+
+-- Warm the cache once.
+EXECUTE user_search('%6000123456%', '6000123456', 500, 100, 3, 0, 21);
+
+\echo '--- exact mobile'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY) EXECUTE user_search('%6000123456%', '6000123456', 500, 100, 3, 0, 21);
+\echo '--- mobile fragment'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY) EXECUTE user_search('%0012345%', '0012345', 500, 100, 3, 0, 21);
+\echo '--- email prefix'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY) EXECUTE user_search('%rahul.sharma12%', 'rahul.sharma12', 500, 100, 3, 0, 21);
+\echo '--- full name'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY) EXECUTE user_search('%ananya kapoor%', 'ananya kapoor', 500, 100, 3, 0, 21);
+\echo '--- typo in name (broad)'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY) EXECUTE user_search('%malhtra%', 'malhtra', 500, 100, 3, 0, 21);
+\echo '--- common first name (thousands of substring hits)'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY) EXECUTE user_search('%priya%', 'priya', 500, 100, 3, 0, 21);
+\echo '--- deep page (keyset)'
+EXPLAIN (ANALYZE, BUFFERS, SUMMARY) EXECUTE user_search('%ananya kapoor%', 'ananya kapoor', 500, 100, 2, 400000, 21);
+
+DEALLOCATE user_search;
@@ -1,6 +1,10 @@
 -- ============================================================================
 -- Consolidated Database Schema for Singh Sir Teaching Platform
 -- This file creates all required tables and indexes in a single script
+--
+-- It only runs when the database volume is first created. Anything added here must also
+-- be added, idempotently, as a migration in src/main/resources/db/migration so existing
+-- databases get it (V4-V7 cover sections 4 and 6-12).
 -- ============================================================================
 
 -- ============================================================================
@@ -53,6 +57,9 @@ CREATE INDEX IF NOT EXISTS idx_users_email ON users (email);
 CREATE INDEX IF NOT EXISTS idx_users_mobile ON users (mobile_number);
 CREATE INDEX IF NOT EXISTS idx_users_role ON users(role);
 
+-- Mobile numbers are stored in E.164 (+91XXXXXXXXXX). Older rows are rewritten by
+-- src/main/resources/db/migration/V2__normalize_mobile_numbers.sql.
+
 -- ============================================================================
 -- 3. COURSES (Then create FK from videos to courses)
 -- ============================================================================
@@ -99,6 +106,11 @@ CREATE TABLE IF NOT EXISTS payment_orders (
 CREATE INDEX IF NOT EXISTS idx_payment_orders_user_id           ON payment_orders(user_id);
 CREATE INDEX IF NOT EXISTS idx_payment_orders_razorpay_order_id ON payment_orders(razorpay_order_id);
 CREATE INDEX IF NOT EXISTS idx_payment_orders_course_id         ON payment_orders(course_id);
+-- Checkout reuses the user's latest unpaid order for a course instead of creating another.
+CREATE INDEX IF NOT EXISTS idx_payment_orders_pending
+    ON payment_orders(user_id, course_id, created_at DESC) WHERE status = 'CREATED';
+-- The payment reconciler pages through recent orders by (created_at, id).
+CREATE INDEX IF NOT EXISTS idx_payment_orders_created_at ON payment_orders(created_at, id);
 
 CREATE TABLE IF NOT EXISTS purchases (
     id                  BIGSERIAL PRIMARY KEY,
@@ -131,6 +143,152 @@ CREATE TABLE IF NOT EXISTS password_reset_otps (
     otp_hash        VARCHAR(255) NOT NULL,
     created_at      TIMESTAMPTZ  NOT NULL DEFAULT NOW(),
     expires_at      TIMESTAMPTZ  NOT NULL,
-    used            BOOLEAN      NOT NULL DEFAULT FALSE
+    used            BOOLEAN      NOT NULL DEFAULT FALSE,
+    attempts        INTEGER      NOT NULL DEFAULT 0
 );
+ALTER TABLE password_reset_otps ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
 CREATE INDEX IF NOT EXISTS idx_prt_mobile ON password_reset_otps(mobile_number);
+CREATE INDEX IF NOT EXISTS idx_prt_expires_at ON password_reset_otps(expires_at);
+
+-- ============================================================================
+-- 7. STORAGE DELETION OUTBOX (S3 objects removed by a background worker)
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS storage_deletions (
+    id              BIGSERIAL PRIMARY KEY,
+    storage_url     VARCHAR(1024) NOT NULL,
+    attempts        INTEGER       NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMPTZ   NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_storage_deletions_next_attempt ON storage_deletions(next_attempt_at);
+
+-- The object key a stored URL points at, decoded the way S3LocationResolver does:
+-- s3://bucket/key, https://host/percent-encoded-path, or a bare key. The bucket and host
+-- are dropped; the storage garbage collector only uses this to decide what to keep.
+CREATE OR REPLACE FUNCTION storage_key(url TEXT)
+RETURNS TEXT
+LANGUAGE sql STABLE PARALLEL SAFE
+AS $$
+    SELECT CASE
+        WHEN url LIKE 's3://%' THEN regexp_replace(url, '^s3://[^/]*/', '')
+        WHEN url LIKE 'https://%' THEN (
+            SELECT convert_from(coalesce(string_agg(
+                       CASE WHEN m[1] IS NOT NULL THEN decode(m[1], 'hex') ELSE convert_to(m[2], 'UTF8') END,
+                       ''::bytea ORDER BY n), ''::bytea), 'UTF8')
+            FROM regexp_matches(regexp_replace(url, '^https://[^/]*/?|[?#].*$', '', 'g'),
+                                '%([0-9A-Fa-f]{2})|([^%]+|%)', 'g') WITH ORDINALITY AS parts(m, n)
+        )
+        ELSE url
+    END
+$$;
+
+-- ============================================================================
+-- 8. SESSIONS (rotating refresh tokens and access-token revocation)
+-- ============================================================================
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id          BIGSERIAL PRIMARY KEY,
+    user_id     BIGINT      NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    family_id   UUID        NOT NULL,
+    token_hash  VARCHAR(64) NOT NULL,
+    created_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    expires_at  TIMESTAMPTZ NOT NULL,
+    revoked_at  TIMESTAMPTZ,
+    CONSTRAINT uq_refresh_tokens_hash UNIQUE (token_hash)
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON refresh_tokens(user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens(family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
+
+-- Revoked access tokens, kept until the token would have expired anyway.
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti         VARCHAR(64) PRIMARY KEY,
+    user_id     BIGINT      NOT NULL,
+    expires_at  TIMESTAMPTZ NOT NULL,
+    revoked_at  TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
+
+-- Every access token of the user issued before revoked_before is invalid.
+CREATE TABLE IF NOT EXISTS user_token_revocations (
+    user_id         BIGINT      PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    revoked_before  TIMESTAMPTZ NOT NULL,
+    updated_at      TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_user_token_revocations_updated_at ON user_token_revocations(updated_at);
+
+-- ============================================================================
+-- 9. ADMIN USER SEARCH (trigram indexes for prefix, substring and typo matching)
+-- ============================================================================
+-- pg_trgm is a trusted extension (PostgreSQL 13+), so the database owner can create it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- One lower-cased text per user covering names, email and mobile. Queries must call the
+-- same function so the planner can use idx_users_search_trgm.
+CREATE OR REPLACE FUNCTION user_search_text(first_name TEXT, last_name TEXT, email TEXT, mobile_number TEXT)
+RETURNS TEXT
+LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+    SELECT lower(coalesce(first_name, '') || ' ' || coalesce(last_name, '') || ' '
+                 || coalesce(email, '') || ' ' || coalesce(mobile_number, ''))
+$$;
+
+-- Serves both LIKE '%term%' (substring / prefix) and the <% word-similarity operator (typos).
+CREATE INDEX IF NOT EXISTS idx_users_search_trgm
+    ON users USING GIN (user_search_text(first_name, last_name, email, mobile_number) gin_trgm_ops);
+
+-- ============================================================================
+-- 10. RAZORPAY WEBHOOK EVENTS (deduplicated inbox, processed by a background worker)
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS payment_webhook_events (
+    id              BIGSERIAL PRIMARY KEY,
+    event_id        VARCHAR(100)  NOT NULL,
+    event_type      VARCHAR(100)  NOT NULL,
+    payload         TEXT          NOT NULL,
+    status          VARCHAR(20)   NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'PROCESSED', 'IGNORED', 'FAILED')),
+    attempts        INTEGER       NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    last_error      VARCHAR(1000),
+    received_at     TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+    processed_at    TIMESTAMPTZ,
+    CONSTRAINT uq_payment_webhook_events_event_id UNIQUE (event_id)
+);
+
+-- Only pending rows are ever polled, so the index stays small however long events are kept.
+CREATE INDEX IF NOT EXISTS idx_payment_webhook_events_due
+    ON payment_webhook_events(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_payment_webhook_events_received_at ON payment_webhook_events(received_at);
+
+-- ============================================================================
+-- 11. IDEMPOTENCY KEYS (responses spilled from the in-memory idempotency store)
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    key_hash     VARCHAR(64)  PRIMARY KEY,
+    fingerprint  VARCHAR(64)  NOT NULL,
+    status_code  INTEGER      NOT NULL,
+    content_type VARCHAR(255),
+    body         BYTEA        NOT NULL,
+    expires_at   TIMESTAMPTZ  NOT NULL,
+    created_at   TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
+
+-- ============================================================================
+-- 12. UPLOAD SESSIONS (direct-to-S3 uploads that may still be completed)
+-- ============================================================================
+
+-- One row per key issued by the upload start endpoints; deleted when the upload is recorded.
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    object_key   VARCHAR(1024) PRIMARY KEY,
+    upload_id    VARCHAR(1024),
+    content_type VARCHAR(100)  NOT NULL,
+    max_size     BIGINT        NOT NULL,
+    expires_at   TIMESTAMPTZ   NOT NULL,
+    created_at   TIMESTAMPTZ   NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_expires_at ON upload_sessions(expires_at);
@@ -0,0 +1,147 @@
+package com.maths.teacher.auth.security;
+
+import com.maths.teacher.auth.config.JwtProperties;
+import com.maths.teacher.auth.service.JwtService;
+import com.maths.teacher.auth.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Cost of the JWT filter per authenticated request.
+ *
+ * <ul>
+ *   <li>{@code twoParses}: the filter before the change, which built a parser and verified
+ *       the token once for the user ID and again for the role.</li>
+ *   <li>{@code singleParse}: the current filter with the principal cache disabled, i.e. a
+ *       token seen for the first time.</li>
+ *   <li>{@code cached}: the current filter for a token it has already verified.</li>
+ * </ul>
+ *
+ * No revocations are loaded, so the revocation check answers from memory in every mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"twoParses", "singleParse", "cached"})
+    public String mode;
+
+    private OncePerRequestFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        var properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setCacheMaxEntries(mode.equals("singleParse") ? 0 : 10_000);
+        var jwtService = new JwtService(properties);
+        filter = mode.equals("twoParses")
+                ? new TwoParseFilter(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                : new JwtAuthenticationFilter(jwtService, new TokenRevocationService(
+                        new JdbcTemplate(), properties, new SimpleMeterRegistry()));
+
+        request = new MockHttpServletRequest("GET", "/api/user/library");
+        request.addHeader("Authorization", "Bearer " + jwtService.createToken(42L, "student@example.com", "USER"));
+        response = new MockHttpServletResponse();
+
+        // A filter that silently failed to authenticate would look very fast
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new IllegalStateException(mode + " did not authenticate the request");
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void filterRequest(Blackhole blackhole) throws Exception {
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    /** JwtAuthenticationFilter and JwtService as they were before the single-parse change. */
+    private static final class TwoParseFilter extends OncePerRequestFilter {
+
+        private final SecretKey secretKey;
+
+        TwoParseFilter(SecretKey secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            try {
+                String bearer = request.getHeader("Authorization");
+                String token = StringUtils.hasText(bearer) && bearer.startsWith("Bearer ")
+                        ? bearer.substring("Bearer ".length()).trim()
+                        : null;
+                if (StringUtils.hasText(token)) {
+                    Long userId = Long.parseLong(parseToken(token).getSubject());
+                    String role = parseToken(token).get("role", String.class);
+                    List<SimpleGrantedAuthority> authorities = role != null
+                            ? List.of(new SimpleGrantedAuthority("ROLE_" + role))
+                            : List.of();
+                    var authentication = new UsernamePasswordAuthenticationToken(String.valueOf(userId), null, authorities);
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
+            } catch (Exception ignored) {
+                // Same as the filter: an invalid token leaves the context empty
+            }
+            chain.doFilter(request, response);
+        }
+
+        private Claims parseToken(String token) {
+            return Jwts.parser()
+                    .verifyWith(secretKey)
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.maths.teacher;
 import java.util.TimeZone;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TeacherPlatformApplication {
 
     public static void main(String[] args) {
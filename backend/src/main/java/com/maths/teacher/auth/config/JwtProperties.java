@@ -6,7 +6,11 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class JwtProperties {
 
     private String secret = "change-me-in-production-use-long-secret-key-at-least-32-chars";
-    private long expirationMs = 86400000L; // 24 hours
+    private long expirationMs = 900000L; // 15 minutes
+    private int cacheMaxEntries = 10_000;
+    private long refreshExpirationDays = 30;
+    private int revocationExpectedPerBucket = 10_000;
+    private double revocationFalsePositiveRate = 0.01;
 
     public String getSecret() {
         return secret;
@@ -23,4 +27,36 @@ public class JwtProperties {
     public void setExpirationMs(long expirationMs) {
         this.expirationMs = expirationMs;
     }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    public long getRefreshExpirationDays() {
+        return refreshExpirationDays;
+    }
+
+    public void setRefreshExpirationDays(long refreshExpirationDays) {
+        this.refreshExpirationDays = refreshExpirationDays;
+    }
+
+    public int getRevocationExpectedPerBucket() {
+        return revocationExpectedPerBucket;
+    }
+
+    public void setRevocationExpectedPerBucket(int revocationExpectedPerBucket) {
+        this.revocationExpectedPerBucket = revocationExpectedPerBucket;
+    }
+
+    public double getRevocationFalsePositiveRate() {
+        return revocationFalsePositiveRate;
+    }
+
+    public void setRevocationFalsePositiveRate(double revocationFalsePositiveRate) {
+        this.revocationFalsePositiveRate = revocationFalsePositiveRate;
+    }
 }
@@ -0,0 +1,10 @@
+package com.maths.teacher.auth.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OtpProperties.class)
+public class OtpConfig {
+    // PasswordResetService and OtpHasher use OtpProperties / JwtProperties
+}
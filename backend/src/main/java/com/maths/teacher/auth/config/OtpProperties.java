@@ -0,0 +1,44 @@
+package com.maths.teacher.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.auth.otp")
+public class OtpProperties {
+
+    private int expiryMinutes = 10;
+    private int maxAttempts = 5;
+    private int resendCooldownSeconds = 60;
+    private int purgeBatchSize = 1000;
+
+    public int getExpiryMinutes() {
+        return expiryMinutes;
+    }
+
+    public void setExpiryMinutes(int expiryMinutes) {
+        this.expiryMinutes = expiryMinutes;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getResendCooldownSeconds() {
+        return resendCooldownSeconds;
+    }
+
+    public void setResendCooldownSeconds(int resendCooldownSeconds) {
+        this.resendCooldownSeconds = resendCooldownSeconds;
+    }
+
+    public int getPurgeBatchSize() {
+        return purgeBatchSize;
+    }
+
+    public void setPurgeBatchSize(int purgeBatchSize) {
+        this.purgeBatchSize = purgeBatchSize;
+    }
+}
@@ -0,0 +1,10 @@
+package com.maths.teacher.auth.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PasswordHashingProperties.class)
+public class PasswordHashingConfig {
+    // PasswordHashingService is a @Service that uses PasswordHashingProperties
+}
@@ -0,0 +1,44 @@
+package com.maths.teacher.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.auth.hashing")
+public class PasswordHashingProperties {
+
+    private int threads = 0; // 0 = half the available processors, at least 1
+    private int queueCapacity = 64;
+    private int retryAfterSeconds = 2;
+    private int bulkThreads = 0; // 0 = processors not used by the interactive pool, at least 1
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getBulkThreads() {
+        return bulkThreads;
+    }
+
+    public void setBulkThreads(int bulkThreads) {
+        this.bulkThreads = bulkThreads;
+    }
+}
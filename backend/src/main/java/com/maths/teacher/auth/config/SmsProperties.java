@@ -0,0 +1,98 @@
+package com.maths.teacher.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.sms")
+public class SmsProperties {
+
+    private boolean mock = false;
+    private long mockLatencyMs = 0;
+    private double mockFailureRate = 0.0;
+    private int workers = 4;
+    private int queueCapacity = 10_000;
+    private int maxAttempts = 4;
+    private long retryBaseDelayMs = 1000;
+    private long maxMessageAgeSeconds = 300;
+    private int perNumberLimit = 5;
+    private long perNumberWindowSeconds = 3600;
+
+    public boolean isMock() {
+        return mock;
+    }
+
+    public void setMock(boolean mock) {
+        this.mock = mock;
+    }
+
+    public long getMockLatencyMs() {
+        return mockLatencyMs;
+    }
+
+    public void setMockLatencyMs(long mockLatencyMs) {
+        this.mockLatencyMs = mockLatencyMs;
+    }
+
+    public double getMockFailureRate() {
+        return mockFailureRate;
+    }
+
+    public void setMockFailureRate(double mockFailureRate) {
+        this.mockFailureRate = mockFailureRate;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getRetryBaseDelayMs() {
+        return retryBaseDelayMs;
+    }
+
+    public void setRetryBaseDelayMs(long retryBaseDelayMs) {
+        this.retryBaseDelayMs = retryBaseDelayMs;
+    }
+
+    public long getMaxMessageAgeSeconds() {
+        return maxMessageAgeSeconds;
+    }
+
+    public void setMaxMessageAgeSeconds(long maxMessageAgeSeconds) {
+        this.maxMessageAgeSeconds = maxMessageAgeSeconds;
+    }
+
+    public int getPerNumberLimit() {
+        return perNumberLimit;
+    }
+
+    public void setPerNumberLimit(int perNumberLimit) {
+        this.perNumberLimit = perNumberLimit;
+    }
+
+    public long getPerNumberWindowSeconds() {
+        return perNumberWindowSeconds;
+    }
+
+    public void setPerNumberWindowSeconds(long perNumberWindowSeconds) {
+        this.perNumberWindowSeconds = perNumberWindowSeconds;
+    }
+}
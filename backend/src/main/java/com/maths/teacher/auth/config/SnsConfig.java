@@ -1,11 +1,13 @@
 package com.maths.teacher.auth.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sns.SnsClient;
 
 @Configuration
+@EnableConfigurationProperties(SmsProperties.class)
 public class SnsConfig {
 
     @Bean
@@ -13,7 +13,8 @@ import java.time.Instant;
 @Table(
         name = "password_reset_otps",
         indexes = {
-                @Index(name = "idx_prt_mobile", columnList = "mobile_number")
+                @Index(name = "idx_prt_mobile", columnList = "mobile_number"),
+                @Index(name = "idx_prt_expires_at", columnList = "expires_at")
         }
 )
 public class PasswordResetOtp {
@@ -40,6 +41,9 @@ public class PasswordResetOtp {
     @Column(name = "used", nullable = false)
     private boolean used;
 
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
     protected PasswordResetOtp() {
         // for JPA
     }
@@ -81,7 +85,7 @@ public class PasswordResetOtp {
         return used;
     }
 
-    public void markUsed() {
-        this.used = true;
+    public int getAttempts() {
+        return attempts;
     }
 }
@@ -70,6 +70,14 @@ public class User implements UserDetails {
         this.createdAt = Instant.now();
     }
 
+    /** A user whose row was inserted with plain SQL. */
+    public User(Long id, String firstName, String lastName, String email, String mobileNumber,
+                String passwordHash, Instant createdAt) {
+        this(firstName, lastName, email, mobileNumber, passwordHash);
+        this.id = id;
+        this.createdAt = createdAt;
+    }
+
     public Long getId() {
         return id;
     }
@@ -1,13 +1,47 @@
 package com.maths.teacher.auth.repository;
 
 import com.maths.teacher.auth.domain.PasswordResetOtp;
-import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface PasswordResetOtpRepository extends JpaRepository<PasswordResetOtp, Long> {
 
     Optional<PasswordResetOtp> findTopByMobileNumberAndUsedFalseOrderByCreatedAtDesc(String mobileNumber);
 
-    List<PasswordResetOtp> findAllByMobileNumberAndUsedFalse(String mobileNumber);
+    /**
+     * Invalidates every outstanding OTP for the mobile number in one statement.
+     */
+    @Modifying
+    @Query("UPDATE PasswordResetOtp o SET o.used = true WHERE o.mobileNumber = :mobile AND o.used = false")
+    int invalidateAll(@Param("mobile") String mobileNumber);
+
+    /**
+     * Uses up one verification attempt. Returns 0 when the OTP is already used or out of
+     * attempts, so concurrent guesses cannot exceed the limit.
+     */
+    @Modifying
+    @Query("UPDATE PasswordResetOtp o SET o.attempts = o.attempts + 1 "
+            + "WHERE o.id = :id AND o.used = false AND o.attempts < :maxAttempts")
+    int consumeAttempt(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("UPDATE PasswordResetOtp o SET o.used = true WHERE o.id = :id AND o.used = false")
+    int markUsed(@Param("id") Long id);
+
+    /**
+     * Deletes up to {@code limit} used or expired rows and returns how many were removed.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM password_reset_otps
+             WHERE id IN (SELECT id FROM password_reset_otps
+                           WHERE used OR expires_at < NOW()
+                           LIMIT :limit)
+            """, nativeQuery = true)
+    int purgeBatch(@Param("limit") int limit);
 }
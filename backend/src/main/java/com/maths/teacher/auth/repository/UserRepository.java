@@ -1,6 +1,8 @@
 package com.maths.teacher.auth.repository;
 
 import com.maths.teacher.auth.domain.User;
+import com.maths.teacher.auth.util.LoginIdentifiers;
+import java.util.Collection;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -12,15 +14,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
-    Optional<User> findByMobileNumber(String mobileNumber);
+    Optional<User> findFirstByMobileNumberIn(Collection<String> mobileNumbers);
 
     /**
-     * Find user by email or mobile number (for login).
-     * Tries email first, then mobile.
+     * Find user by email or mobile number (for login) with a single indexed query.
+     * Identifiers containing '@' are matched against the lower-cased email; anything else
+     * against the stored forms of the mobile number.
      */
-    default Optional<User> findByEmailOrMobileNumber(String emailOrMobile) {
-        return findByEmail(emailOrMobile)
-                .or(() -> findByMobileNumber(emailOrMobile));
+    default Optional<User> findByLoginIdentifier(String identifier) {
+        if (LoginIdentifiers.isEmail(identifier)) {
+            return findByEmail(LoginIdentifiers.normalizeEmail(identifier));
+        }
+        return findByMobile(identifier);
+    }
+
+    default Optional<User> findByMobile(String mobileNumber) {
+        return findFirstByMobileNumberIn(LoginIdentifiers.mobileVariants(mobileNumber));
     }
 
     @Modifying
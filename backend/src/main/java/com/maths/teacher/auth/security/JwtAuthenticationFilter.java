@@ -1,6 +1,8 @@
 package com.maths.teacher.auth.security;
 
+import com.maths.teacher.auth.service.JwtPrincipal;
 import com.maths.teacher.auth.service.JwtService;
+import com.maths.teacher.auth.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,9 +25,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String BEARER_PREFIX = "Bearer ";
 
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtAuthenticationFilter(JwtService jwtService) {
+    public JwtAuthenticationFilter(JwtService jwtService, TokenRevocationService tokenRevocationService) {
         this.jwtService = jwtService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -36,10 +40,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         try {
             String token = extractToken(request);
-            if (StringUtils.hasText(token)) {
-                Long userId = jwtService.getUserIdFromToken(token);
-                String userIdStr = String.valueOf(userId);
-                String role = jwtService.getRoleFromToken(token);
+            JwtPrincipal principal = StringUtils.hasText(token) ? jwtService.authenticate(token) : null;
+            // Revocation is checked from memory; only a Bloom filter hit touches the database
+            if (principal != null && !tokenRevocationService.isRevoked(principal)) {
+                String userIdStr = String.valueOf(principal.userId());
+                String role = principal.role();
                 List<SimpleGrantedAuthority> authorities = role != null
                         ? List.of(new SimpleGrantedAuthority("ROLE_" + role))
                         : List.of();
@@ -6,58 +6,48 @@ import com.maths.teacher.auth.web.AuthResponse;
 import com.maths.teacher.auth.web.LoginRequest;
 import com.maths.teacher.auth.web.SignupRequest;
 import com.maths.teacher.catalog.exception.ErrorMessages;
+import io.jsonwebtoken.JwtException;
 import java.util.Optional;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class AuthAppService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UserRegistrationService userRegistrationService;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
-    public AuthAppService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public AuthAppService(
+            UserRepository userRepository,
+            PasswordHashingService passwordHashingService,
+            UserRegistrationService userRegistrationService,
+            JwtService jwtService,
+            RefreshTokenService refreshTokenService,
+            TokenRevocationService tokenRevocationService
+    ) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.userRegistrationService = userRegistrationService;
         this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
-    @Transactional
     public AuthResponse signup(SignupRequest request) {
-        String email = request.getEmail() != null ? request.getEmail().trim().toLowerCase() : "";
-        String mobile = request.getMobileNumber() != null ? request.getMobileNumber().trim() : "";
-
-        if (userRepository.findByEmail(email).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.EMAIL_ALREADY_REGISTERED);
-        }
-        if (userRepository.findByMobileNumber(mobile).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.MOBILE_ALREADY_REGISTERED);
-        }
-
-        String passwordHash = passwordEncoder.encode(request.getPassword());
-        User user = new User(
-                request.getFirstName().trim(),
-                request.getLastName().trim(),
-                email,
-                mobile,
-                passwordHash
+        User user = userRegistrationService.register(
+                request.getFirstName(),
+                request.getLastName(),
+                request.getEmail(),
+                request.getMobileNumber(),
+                request.getPassword()
         );
-        user = userRepository.save(user);
 
-        String token = jwtService.createToken(user.getId(), user.getEmail(), user.getRole().name());
-        return new AuthResponse(
-                token,
-                user.getId(),
-                user.getEmail(),
-                user.getFirstName(),
-                user.getLastName(),
-                user.getMobileNumber(),
-                user.getRole().name()
-        );
+        return startSession(user);
     }
 
     /**
@@ -71,18 +61,51 @@ public class AuthAppService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email or mobile number is required.");
         }
 
-        Optional<User> userOpt = userRepository.findByEmailOrMobileNumber(username);
+        Optional<User> userOpt = userRepository.findByLoginIdentifier(username);
         if (userOpt.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, ErrorMessages.NO_ACCOUNT_FOUND_EMAIL_OR_MOBILE);
         }
 
         User user = userOpt.get();
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPasswordHash())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, ErrorMessages.PASSWORD_INVALID);
         }
 
+        return startSession(user);
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     */
+    public AuthResponse refresh(String refreshToken) {
+        var rotation = refreshTokenService.rotate(refreshToken);
+        User user = userRepository.findById(rotation.userId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Account no longer exists."));
+        return toResponse(user, rotation.refreshToken());
+    }
+
+    /**
+     * Ends the session: revokes the refresh token family and, if given and still valid,
+     * the access token, so both stop working immediately.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+        if (accessToken != null && !accessToken.isBlank()) {
+            try {
+                tokenRevocationService.revokeToken(jwtService.parse(accessToken));
+            } catch (JwtException | IllegalArgumentException ignored) {
+                // Expired or malformed: nothing left to revoke
+            }
+        }
+    }
+
+    private AuthResponse startSession(User user) {
+        return toResponse(user, refreshTokenService.issue(user.getId()));
+    }
+
+    private AuthResponse toResponse(User user, String refreshToken) {
         String token = jwtService.createToken(user.getId(), user.getEmail(), user.getRole().name());
-        return new AuthResponse(
+        AuthResponse response = new AuthResponse(
                 token,
                 user.getId(),
                 user.getEmail(),
@@ -91,5 +114,7 @@ public class AuthAppService {
                 user.getMobileNumber(),
                 user.getRole().name()
         );
+        response.setRefreshToken(refreshToken);
+        return response;
     }
 }
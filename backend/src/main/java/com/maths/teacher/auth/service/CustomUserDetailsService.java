@@ -29,10 +29,8 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Try to find by email first, then by mobile number
-        return userRepository.findByEmail(username)
-                .orElseGet(() -> userRepository.findByMobileNumber(username)
-                        .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username)));
+        return userRepository.findByLoginIdentifier(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
     /**
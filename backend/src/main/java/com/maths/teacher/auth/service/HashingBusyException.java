@@ -0,0 +1,25 @@
+package com.maths.teacher.auth.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the password-hashing queue is full. Maps to 429 with a Retry-After header.
+ */
+public class HashingBusyException extends ResponseStatusException {
+
+    private final int retryAfterSeconds;
+
+    public HashingBusyException(int retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Too many sign-in attempts right now. Please try again in a moment.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,15 @@
+package com.maths.teacher.auth.service;
+
+import java.time.Instant;
+
+/**
+ * The verified contents of an access token that requests need: who, which role, the token
+ * ID used for revocation, and when it was issued and expires. {@code tokenId} is null for
+ * tokens issued before token IDs were added.
+ */
+public record JwtPrincipal(Long userId, String role, String tokenId, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpiredAt(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
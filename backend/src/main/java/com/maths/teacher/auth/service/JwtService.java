@@ -2,10 +2,20 @@ package com.maths.teacher.auth.service;
 
 import com.maths.teacher.auth.config.JwtProperties;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.crypto.SecretKey;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +24,11 @@ public class JwtService {
 
     private final JwtProperties jwtProperties;
     private final SecretKey secretKey;
+    private final JwtParser parser;
+
+    // SHA-256 of the token -> verified principal. Keyed by digest so raw tokens are not kept
+    // in memory; entries are dropped once the token expires.
+    private final Map<String, JwtPrincipal> verified = new ConcurrentHashMap<>();
 
     public JwtService(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
@@ -22,12 +37,16 @@ public class JwtService {
             throw new IllegalStateException("JWT secret must be at least 32 bytes for HS256. Set app.jwt.secret (e.g. JWT_SECRET env).");
         }
         this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
     }
 
     public String createToken(Long userId, String email, String role) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtProperties.getExpirationMs());
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(String.valueOf(userId))
                 .claim("email", email)
                 .claim("role", role)
@@ -37,20 +56,63 @@ public class JwtService {
                 .compact();
     }
 
-    public Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Verifies a token and returns its principal. A token seen before is served from the
+     * cache until it expires, so the HMAC check and JSON parse run once per token rather
+     * than once per request.
+     *
+     * @throws JwtException if the token is invalid or expired
+     */
+    public JwtPrincipal authenticate(String token) {
+        Instant now = Instant.now();
+        String digest = digest(token);
+        JwtPrincipal cached = verified.get(digest);
+        if (cached != null) {
+            if (!cached.isExpiredAt(now)) {
+                return cached;
+            }
+            verified.remove(digest);
+        }
+
+        JwtPrincipal principal = parse(token);
+        verified.put(digest, principal);
+        if (verified.size() > jwtProperties.getCacheMaxEntries()) {
+            evict(now);
+        }
+        return principal;
     }
 
-    public Long getUserIdFromToken(String token) {
-        String sub = parseToken(token).getSubject();
-        return Long.parseLong(sub);
+    /**
+     * Verifies a token without the cache.
+     *
+     * @throws JwtException if the token is invalid or expired
+     */
+    public JwtPrincipal parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return new JwtPrincipal(
+                Long.parseLong(claims.getSubject()),
+                claims.get("role", String.class),
+                claims.getId(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : Instant.EPOCH,
+                claims.getExpiration().toInstant()
+        );
     }
 
-    public String getRoleFromToken(String token) {
-        return parseToken(token).get("role", String.class);
+    private void evict(Instant now) {
+        verified.values().removeIf(principal -> principal.isExpiredAt(now));
+        Iterator<String> keys = verified.keySet().iterator();
+        while (verified.size() > jwtProperties.getCacheMaxEntries() && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
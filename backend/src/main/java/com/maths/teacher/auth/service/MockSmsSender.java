@@ -0,0 +1,42 @@
+package com.maths.teacher.auth.service;
+
+import com.maths.teacher.auth.config.SmsProperties;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stand-in for SNS when {@code app.sms.mock=true}. Logs the message instead of sending it.
+ * {@code app.sms.mock-latency-ms} and {@code app.sms.mock-failure-rate} simulate provider
+ * latency and errors so the dispatcher can be load-tested offline.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sms.mock", havingValue = "true")
+public class MockSmsSender implements SmsSender {
+
+    private static final Logger log = LoggerFactory.getLogger(MockSmsSender.class);
+
+    private final SmsProperties properties;
+
+    public MockSmsSender(SmsProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void send(String e164Number, String message) {
+        if (properties.getMockLatencyMs() > 0) {
+            try {
+                Thread.sleep(properties.getMockLatencyMs());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", ex);
+            }
+        }
+        if (ThreadLocalRandom.current().nextDouble() < properties.getMockFailureRate()) {
+            throw new IllegalStateException("Simulated SMS provider failure");
+        }
+        log.info("[SMS MOCK] To: {} | Message: {}", e164Number, message);
+    }
+}
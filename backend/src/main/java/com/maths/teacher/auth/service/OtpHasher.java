@@ -0,0 +1,59 @@
+package com.maths.teacher.auth.service;
+
+import com.maths.teacher.auth.config.JwtProperties;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes one-time passwords with HMAC-SHA256.
+ *
+ * A 6-digit OTP has only a million values, so a slow hash adds nothing: the protection
+ * is the server-side key (derived from the JWT secret, never stored with the OTP), the
+ * short expiry and the attempt limit. The mobile number is part of the MAC input, so a
+ * hash is only valid for the number it was issued to.
+ */
+@Component
+public class OtpHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public OtpHasher(JwtProperties jwtProperties) {
+        byte[] derived = mac(
+                new SecretKeySpec(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                "password-reset-otp");
+        this.key = new SecretKeySpec(derived, ALGORITHM);
+    }
+
+    public String hash(String mobileNumber, String otp) {
+        return HexFormat.of().formatHex(mac(key, mobileNumber + ":" + otp));
+    }
+
+    /**
+     * Constant-time comparison of an OTP against a stored hash.
+     */
+    public boolean matches(String mobileNumber, String otp, String storedHash) {
+        if (otp == null || storedHash == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                hash(mobileNumber, otp).getBytes(StandardCharsets.US_ASCII),
+                storedHash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] mac(SecretKeySpec key, String input) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(input.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC-SHA256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.maths.teacher.auth.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when a password reset OTP is missing, expired, wrong or used up. Maps to 400.
+ * The reset transaction commits on this exception so the spent attempt is kept.
+ */
+public class OtpRejectedException extends ResponseStatusException {
+
+    public OtpRejectedException(String reason) {
+        super(HttpStatus.BAD_REQUEST, reason);
+    }
+}
@@ -0,0 +1,151 @@
+package com.maths.teacher.auth.service;
+
+import com.maths.teacher.auth.config.PasswordHashingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Runs BCrypt on a small fixed pool instead of on the request threads.
+ *
+ * At most {@code threads} hashes run at once and at most {@code queueCapacity} wait, so a
+ * burst of logins can only use that much CPU and park that many request threads. Anything
+ * beyond that is rejected straight away with 429 and Retry-After, leaving the rest of the
+ * request pool free for catalog reads.
+ *
+ * Bulk imports use {@link #encodeAll}, which runs on a separate pool sized by default to
+ * the cores the interactive pool leaves free (thread priorities are ignored on Linux, so
+ * the split is by thread count). A large import neither fills the interactive queue nor
+ * takes the cores logins hash on.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService bulkExecutor;
+    private final Timer encodeTimer;
+    private final Timer bulkEncodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            PasswordHashingProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.properties = properties;
+
+        int threads = properties.getThreads() > 0
+                ? properties.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                threadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        int bulkThreads = properties.getBulkThreads() > 0
+                ? properties.getBulkThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - threads);
+        this.bulkExecutor = Executors.newFixedThreadPool(bulkThreads, threadFactory("password-hash-bulk-"));
+
+        this.encodeTimer = meterRegistry.timer("auth.password.hash", "operation", "encode");
+        this.bulkEncodeTimer = meterRegistry.timer("auth.password.hash", "operation", "encode_bulk");
+        this.matchesTimer = meterRegistry.timer("auth.password.hash", "operation", "matches");
+        this.waitTimer = meterRegistry.timer("auth.password.hash.wait");
+        this.rejected = meterRegistry.counter("auth.password.hash.rejected");
+        meterRegistry.gauge("auth.password.hash.queue", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes many passwords in parallel and returns the hashes in input order.
+     * Intended for admin imports; the call blocks until every hash is done.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        List<Future<String>> futures = rawPasswords.stream()
+                .map(raw -> bulkExecutor.submit(() -> bulkEncodeTimer.recordCallable(() -> passwordEncoder.encode(raw))))
+                .toList();
+        var hashes = new ArrayList<String>(futures.size());
+        for (Future<String> future : futures) {
+            hashes.add(await(future));
+        }
+        return hashes;
+    }
+
+    private <T> T run(Timer hashTimer, Callable<T> hash) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new HashingBusyException(properties.getRetryAfterSeconds());
+        }
+
+        return await(future);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Request was interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+
+    private static ThreadFactory threadFactory(String namePrefix) {
+        var threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        bulkExecutor.shutdown();
+    }
+}
@@ -1,91 +1,144 @@
 package com.maths.teacher.auth.service;
 
+import com.maths.teacher.auth.config.OtpProperties;
 import com.maths.teacher.auth.domain.PasswordResetOtp;
 import com.maths.teacher.auth.repository.PasswordResetOtpRepository;
 import com.maths.teacher.auth.repository.UserRepository;
+import com.maths.teacher.auth.util.LoginIdentifiers;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
-import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class PasswordResetService {
 
-    private static final int OTP_EXPIRY_MINUTES = 10;
+    private static final Logger logger = LoggerFactory.getLogger(PasswordResetService.class);
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
     private final UserRepository userRepository;
     private final PasswordResetOtpRepository otpRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final OtpHasher otpHasher;
+    private final OtpProperties otpProperties;
     private final SmsService smsService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     public PasswordResetService(UserRepository userRepository,
                                 PasswordResetOtpRepository otpRepository,
-                                PasswordEncoder passwordEncoder,
-                                SmsService smsService) {
+                                PasswordHashingService passwordHashingService,
+                                OtpHasher otpHasher,
+                                OtpProperties otpProperties,
+                                SmsService smsService,
+                                RefreshTokenService refreshTokenService,
+                                TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.otpRepository = otpRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.otpHasher = otpHasher;
+        this.otpProperties = otpProperties;
         this.smsService = smsService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Transactional
     public void forgotPassword(String mobileNumber) {
-        String mobile = mobileNumber.trim();
+        String mobile = LoginIdentifiers.toE164(mobileNumber);
 
         // Look up user — silently succeed even if not found (don't reveal existence)
-        var userOpt = userRepository.findByMobileNumber(mobile);
+        var userOpt = userRepository.findByMobile(mobileNumber);
         if (userOpt.isEmpty()) {
             // Return without error to avoid user enumeration
             return;
         }
         var user = userOpt.get();
 
-        // Invalidate any existing unused OTPs for this mobile
-        List<PasswordResetOtp> existing = otpRepository.findAllByMobileNumberAndUsedFalse(mobile);
-        existing.forEach(PasswordResetOtp::markUsed);
-        otpRepository.saveAll(existing);
+        // Within the cooldown the OTP already sent stays valid and no new SMS goes out.
+        // The response is the same either way so the cooldown does not reveal the account.
+        Instant now = Instant.now();
+        var latest = otpRepository.findTopByMobileNumberAndUsedFalseOrderByCreatedAtDesc(mobile);
+        if (latest.isPresent()
+                && latest.get().getExpiresAt().isAfter(now)
+                && latest.get().getCreatedAt().isAfter(now.minusSeconds(otpProperties.getResendCooldownSeconds()))) {
+            logger.info("OTP resend for user {} suppressed by cooldown", user.getId());
+            return;
+        }
+
+        otpRepository.invalidateAll(mobile);
 
         // Generate 6-digit OTP
         String otp = String.format("%06d", SECURE_RANDOM.nextInt(1_000_000));
-        String otpHash = passwordEncoder.encode(otp);
-
-        Instant expiresAt = Instant.now().plus(OTP_EXPIRY_MINUTES, ChronoUnit.MINUTES);
-        PasswordResetOtp resetOtp = new PasswordResetOtp(user.getId(), mobile, otpHash, expiresAt);
-        otpRepository.save(resetOtp);
+        Instant expiresAt = now.plus(otpProperties.getExpiryMinutes(), ChronoUnit.MINUTES);
+        otpRepository.save(new PasswordResetOtp(user.getId(), mobile, otpHasher.hash(mobile, otp), expiresAt));
 
         smsService.sendOtp(mobile, otp);
     }
 
-    @Transactional
+    /**
+     * Verifies the OTP and sets the new password. Each call uses up one attempt before
+     * the OTP is compared, and the attempt is kept even though the call then fails, hence
+     * no rollback for {@link OtpRejectedException}. Any other failure (hashing queue full,
+     * interrupted) rolls everything back, so the OTP stays usable for a retry.
+     */
+    @Transactional(noRollbackFor = OtpRejectedException.class)
     public void resetPassword(String mobileNumber, String otp, String newPassword) {
-        String mobile = mobileNumber.trim();
+        String mobile = LoginIdentifiers.toE164(mobileNumber);
 
         PasswordResetOtp resetOtp = otpRepository
                 .findTopByMobileNumberAndUsedFalseOrderByCreatedAtDesc(mobile)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.BAD_REQUEST, "No active OTP found. Please request a new one."));
+                .orElseThrow(() -> new OtpRejectedException("No active OTP found. Please request a new one."));
 
         if (Instant.now().isAfter(resetOtp.getExpiresAt())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "OTP has expired. Please request a new one.");
+            throw new OtpRejectedException("OTP has expired. Please request a new one.");
         }
 
-        if (!passwordEncoder.matches(otp, resetOtp.getOtpHash())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid OTP.");
+        if (otpRepository.consumeAttempt(resetOtp.getId(), otpProperties.getMaxAttempts()) == 0) {
+            otpRepository.markUsed(resetOtp.getId());
+            throw new OtpRejectedException("Too many incorrect attempts. Please request a new OTP.");
         }
 
-        resetOtp.markUsed();
-        otpRepository.save(resetOtp);
+        if (!otpHasher.matches(mobile, otp, resetOtp.getOtpHash())) {
+            throw new OtpRejectedException("Invalid OTP.");
+        }
 
-        var user = userRepository.findByMobileNumber(mobile)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found."));
+        // Hash before the OTP is spent: if hashing is refused, nothing below has happened
+        String newHash = passwordHashingService.encode(newPassword);
 
-        String newHash = passwordEncoder.encode(newPassword);
-        userRepository.updatePasswordHash(user.getId(), newHash);
+        if (otpRepository.markUsed(resetOtp.getId()) == 0) {
+            // A concurrent request with the same OTP got there first
+            throw new OtpRejectedException("No active OTP found. Please request a new one.");
+        }
+        userRepository.updatePasswordHash(resetOtp.getUserId(), newHash);
+
+        // Sessions opened with the old password end with it
+        refreshTokenService.revokeAll(resetOtp.getUserId());
+        tokenRevocationService.revokeAllForUser(resetOtp.getUserId());
+    }
+
+    /**
+     * Deletes used and expired OTPs in small batches so the table only ever holds the
+     * handful of codes that are still live.
+     */
+    @Scheduled(
+            initialDelayString = "${app.auth.otp.purge-initial-delay-ms:60000}",
+            fixedDelayString = "${app.auth.otp.purge-interval-ms:600000}"
+    )
+    public void purgeExpired() {
+        int batchSize = Math.max(1, otpProperties.getPurgeBatchSize());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = otpRepository.purgeBatch(batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        if (total > 0) {
+            logger.info("Purged {} used or expired password reset OTPs", total);
+        }
     }
 }
@@ -0,0 +1,136 @@
+package com.maths.teacher.auth.service;
+
+import com.maths.teacher.auth.config.JwtProperties;
+import com.maths.teacher.auth.domain.RefreshToken;
+import com.maths.teacher.auth.repository.RefreshTokenRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Issues and rotates opaque refresh tokens.
+ *
+ * Every refresh revokes the presented token and issues a new one in the same family. If a
+ * token that was already rotated is presented again, it has been copied: the whole family
+ * is revoked and the caller has to sign in again.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtProperties jwtProperties;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtProperties jwtProperties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtProperties = jwtProperties;
+    }
+
+    /**
+     * Starts a new token family for a fresh sign-in and returns the raw token.
+     */
+    public String issue(Long userId) {
+        return create(userId, UUID.randomUUID());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one and returns the owner with the new raw token.
+     *
+     * @throws ResponseStatusException 401 if the token is unknown, expired, revoked or reused
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = find(rawToken);
+        Instant now = Instant.now();
+        if (current.getRevokedAt() != null) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            logger.warn("Refresh token reuse detected for user {}; family {} revoked",
+                    current.getUserId(), current.getFamilyId());
+            throw invalid();
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw invalid();
+        }
+        if (refreshTokenRepository.revoke(current.getId(), now) == 0) {
+            // Rotated concurrently by another request with the same token
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw invalid();
+        }
+        return new Rotation(current.getUserId(), create(current.getUserId(), current.getFamilyId()));
+    }
+
+    /**
+     * Revokes the family of the given token (logout). Unknown tokens are ignored.
+     */
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), Instant.now()));
+    }
+
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, Instant.now());
+    }
+
+    @Scheduled(cron = "${app.jwt.refresh-purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.purgeExpired(PURGE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        if (total > 0) {
+            logger.info("Purged {} expired refresh tokens", total);
+        }
+    }
+
+    private String create(Long userId, UUID familyId) {
+        byte[] bytes = new byte[32];
+        SECURE_RANDOM.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(jwtProperties.getRefreshExpirationDays()));
+        refreshTokenRepository.save(new RefreshToken(userId, familyId, hash(raw), expiresAt));
+        return raw;
+    }
+
+    private RefreshToken find(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw invalid();
+        }
+        return refreshTokenRepository.findByTokenHash(hash(rawToken)).orElseThrow(RefreshTokenService::invalid);
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Session has expired. Please sign in again.");
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Rotation(Long userId, String refreshToken) {}
+}
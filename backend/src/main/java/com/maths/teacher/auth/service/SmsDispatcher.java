@@ -0,0 +1,181 @@
+package com.maths.teacher.auth.service;
+
+import com.maths.teacher.auth.config.SmsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends SMS in the background so request threads and DB connections never wait on SNS.
+ *
+ * Messages are handed over after the surrounding transaction commits and sent by a small
+ * worker pool fed from a bounded queue. Failed sends are retried with jittered exponential
+ * backoff until {@code max-attempts} or {@code max-message-age-seconds} is reached.
+ * Each number may receive at most {@code per-number-limit} messages per window.
+ *
+ * The queue lives in memory on purpose: OTP messages carry the code in clear text and are
+ * worthless after a few minutes, so they are not written to the database. A message lost
+ * in a restart is recovered by the user asking for a new code.
+ */
+@Component
+public class SmsDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmsDispatcher.class);
+
+    private final SmsSender sender;
+    private final SmsProperties properties;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retryScheduler;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter rateLimited;
+    private final Counter rejected;
+    private final Timer sendTimer;
+
+    public SmsDispatcher(SmsSender sender, SmsProperties properties, MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.properties = properties;
+
+        int threads = Math.max(1, properties.getWorkers());
+        var threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sms-dispatch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sms-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowSeconds = Math.max(1, properties.getPerNumberWindowSeconds());
+        retryScheduler.scheduleAtFixedRate(this::evictWindows, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+
+        this.sent = meterRegistry.counter("sms.dispatch", "result", "sent");
+        this.retried = meterRegistry.counter("sms.dispatch", "result", "retried");
+        this.failed = meterRegistry.counter("sms.dispatch", "result", "failed");
+        this.rateLimited = meterRegistry.counter("sms.dispatch", "result", "rate_limited");
+        this.rejected = meterRegistry.counter("sms.dispatch", "result", "rejected");
+        this.sendTimer = meterRegistry.timer("sms.send");
+        meterRegistry.gauge("sms.queue.size", workers, executor -> executor.getQueue().size());
+    }
+
+    /**
+     * Queues a message. Inside a transaction it is only queued once the transaction
+     * commits, so a rolled-back request never sends a code that was not stored.
+     */
+    public void enqueue(String e164Number, String message) {
+        var sms = new Sms(e164Number, message, System.currentTimeMillis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(sms, 1);
+                }
+            });
+        } else {
+            submit(sms, 1);
+        }
+    }
+
+    private void submit(Sms sms, int attempt) {
+        if (attempt == 1 && !tryAcquire(sms.to())) {
+            rateLimited.increment();
+            logger.warn("SMS to {} dropped: per-number limit reached", mask(sms.to()));
+            return;
+        }
+        try {
+            workers.execute(() -> deliver(sms, attempt));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            logger.warn("SMS to {} dropped: dispatch queue is full", mask(sms.to()));
+        }
+    }
+
+    private void deliver(Sms sms, int attempt) {
+        try {
+            sendTimer.record(() -> sender.send(sms.to(), sms.message()));
+            sent.increment();
+        } catch (RuntimeException ex) {
+            long ageMillis = System.currentTimeMillis() - sms.createdAtMillis();
+            long delayMillis = backoffMillis(attempt);
+            if (attempt >= properties.getMaxAttempts()
+                    || ageMillis + delayMillis > properties.getMaxMessageAgeSeconds() * 1000) {
+                failed.increment();
+                logger.error("SMS to {} failed after {} attempts: {}", mask(sms.to()), attempt, ex.getMessage());
+                return;
+            }
+            retried.increment();
+            logger.warn("SMS to {} failed (attempt {}), retrying in {} ms: {}",
+                    mask(sms.to()), attempt, delayMillis, ex.getMessage());
+            try {
+                retryScheduler.schedule(() -> submit(sms, attempt + 1), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                failed.increment();
+            }
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter: a random delay between half and all of
+     * base * 2^(attempt - 1), so retries after a provider outage do not arrive together.
+     */
+    private long backoffMillis(int attempt) {
+        long cap = properties.getRetryBaseDelayMs() << Math.min(attempt - 1, 16);
+        return ThreadLocalRandom.current().nextLong(Math.max(1, cap / 2), Math.max(2, cap + 1));
+    }
+
+    private boolean tryAcquire(String number) {
+        long now = System.currentTimeMillis();
+        long windowMillis = properties.getPerNumberWindowSeconds() * 1000;
+        var result = new boolean[1];
+        windows.compute(number, (key, window) -> {
+            if (window == null || now - window.startMillis() >= windowMillis) {
+                window = new Window(now, 0);
+            }
+            result[0] = window.count() < properties.getPerNumberLimit();
+            return result[0] ? new Window(window.startMillis(), window.count() + 1) : window;
+        });
+        return result[0];
+    }
+
+    private void evictWindows() {
+        long cutoff = System.currentTimeMillis() - properties.getPerNumberWindowSeconds() * 1000;
+        windows.values().removeIf(window -> window.startMillis() < cutoff);
+    }
+
+    private static String mask(String number) {
+        return number.length() <= 4 ? "****" : "****" + number.substring(number.length() - 4);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+    private record Sms(String to, String message, long createdAtMillis) {}
+
+    private record Window(long startMillis, int count) {}
+}
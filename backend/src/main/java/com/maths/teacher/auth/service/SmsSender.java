@@ -0,0 +1,10 @@
+package com.maths.teacher.auth.service;
+
+/**
+ * Delivers one SMS. Called from the {@link SmsDispatcher} workers, never on a request
+ * thread; an exception marks the attempt as failed and the message is retried.
+ */
+public interface SmsSender {
+
+    void send(String e164Number, String message);
+}
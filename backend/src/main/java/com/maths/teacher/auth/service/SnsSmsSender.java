@@ -0,0 +1,36 @@
+package com.maths.teacher.auth.service;
+
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+
+@Component
+@ConditionalOnProperty(name = "app.sms.mock", havingValue = "false", matchIfMissing = true)
+public class SnsSmsSender implements SmsSender {
+
+    private final SnsClient snsClient;
+
+    public SnsSmsSender(SnsClient snsClient) {
+        this.snsClient = snsClient;
+    }
+
+    @Override
+    public void send(String e164Number, String message) {
+        PublishRequest request = PublishRequest.builder()
+                .phoneNumber(e164Number)
+                .message(message)
+                .messageAttributes(Map.of(
+                        "AWS.SNS.SMS.SMSType",
+                        MessageAttributeValue.builder()
+                                .dataType("String")
+                                .stringValue("Transactional")
+                                .build()
+                ))
+                .build();
+
+        snsClient.publish(request);
+    }
+}
@@ -0,0 +1,170 @@
+package com.maths.teacher.auth.service;
+
+import com.maths.teacher.auth.config.JwtProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Decides whether a verified access token has been revoked, without a database query on
+ * the normal request path.
+ *
+ * Revoked token IDs go into Bloom filters bucketed by the token's expiry, so a bucket is
+ * dropped as a whole once every token in it has expired. A Bloom miss (the usual case)
+ * answers "not revoked" from memory; a hit is confirmed against {@code revoked_tokens},
+ * which also keeps false positives from locking anyone out. "Sign out everywhere" is a
+ * per-user cutoff: tokens issued before it are rejected.
+ *
+ * Revocations are written to the database and applied to this instance at once; other
+ * instances pick them up on the next sync, a few seconds later.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    // Re-read a little before the last sync so rows committed late are not missed
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtProperties jwtProperties;
+    private final long bucketSeconds;
+    private final Map<Long, BloomFilter> buckets = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> revokedBefore = new ConcurrentHashMap<>();
+    private final Map<String, Instant> confirmed = new ConcurrentHashMap<>();
+    private final Counter bloomHits;
+    private final Counter falsePositives;
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate, JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jwtProperties = jwtProperties;
+        this.bucketSeconds = Math.max(60, jwtProperties.getExpirationMs() / 1000);
+        this.bloomHits = meterRegistry.counter("auth.revocation.bloom", "result", "hit");
+        this.falsePositives = meterRegistry.counter("auth.revocation.bloom", "result", "false_positive");
+        meterRegistry.gauge("auth.revocation.buckets", buckets, Map::size);
+    }
+
+    public boolean isRevoked(JwtPrincipal principal) {
+        Instant cutoff = revokedBefore.get(principal.userId());
+        if (cutoff != null && principal.issuedAt().isBefore(cutoff)) {
+            return true;
+        }
+        String tokenId = principal.tokenId();
+        if (tokenId == null) {
+            return false;
+        }
+        BloomFilter bucket = buckets.get(bucketOf(principal.expiresAt()));
+        if (bucket == null || !bucket.mightContain(tokenId)) {
+            return false;
+        }
+        if (confirmed.containsKey(tokenId)) {
+            return true;
+        }
+        bloomHits.increment();
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM revoked_tokens WHERE jti = ?", Integer.class, tokenId);
+        if (rows != null && rows > 0) {
+            confirmed.put(tokenId, principal.expiresAt());
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revokes one access token (logout) until it expires.
+     */
+    public void revokeToken(JwtPrincipal principal) {
+        if (principal.tokenId() == null || principal.isExpiredAt(Instant.now())) {
+            return;
+        }
+        jdbcTemplate.update("""
+                INSERT INTO revoked_tokens (jti, user_id, expires_at) VALUES (?, ?, ?)
+                ON CONFLICT (jti) DO NOTHING
+                """, principal.tokenId(), principal.userId(), Timestamp.from(principal.expiresAt()));
+        add(principal.tokenId(), principal.expiresAt());
+        confirmed.put(principal.tokenId(), principal.expiresAt());
+    }
+
+    /**
+     * Invalidates every access token the user holds now (admin kick, password reset).
+     */
+    public void revokeAllForUser(Long userId) {
+        // Token iat has second precision. Tokens issued earlier in this second stay valid, so
+        // a sign-in right after a password reset is not rejected along with the old sessions.
+        Instant cutoff = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        jdbcTemplate.update("""
+                INSERT INTO user_token_revocations (user_id, revoked_before, updated_at) VALUES (?, ?, NOW())
+                ON CONFLICT (user_id) DO UPDATE SET revoked_before = EXCLUDED.revoked_before, updated_at = NOW()
+                """, userId, Timestamp.from(cutoff));
+        revokedBefore.merge(userId, cutoff, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /**
+     * Pulls revocations made on other instances. The first run loads everything still live.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.jwt.revocation-sync-ms:5000}")
+    public void sync() {
+        Instant now = Instant.now();
+        Timestamp since = Timestamp.from(lastSync.minus(SYNC_OVERLAP));
+        try {
+            jdbcTemplate.query(
+                    "SELECT jti, expires_at FROM revoked_tokens WHERE revoked_at > ? AND expires_at > NOW()",
+                    rs -> {
+                        add(rs.getString(1), rs.getTimestamp(2).toInstant());
+                    }, since);
+            jdbcTemplate.query(
+                    "SELECT user_id, revoked_before FROM user_token_revocations WHERE updated_at > ?",
+                    rs -> {
+                        revokedBefore.merge(rs.getLong(1), rs.getTimestamp(2).toInstant(),
+                                (a, b) -> a.isAfter(b) ? a : b);
+                    }, since);
+            lastSync = now;
+        } catch (RuntimeException ex) {
+            logger.warn("Token revocation sync failed: {}", ex.getMessage());
+        }
+        evictExpired(now);
+    }
+
+    /**
+     * Deletes revocation rows that no longer matter because the tokens they cover expired.
+     */
+    @Scheduled(cron = "${app.jwt.revocation-purge-cron:0 45 * * * *}")
+    public void purgeExpired() {
+        int tokens = jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at < NOW()");
+        int users = jdbcTemplate.update("DELETE FROM user_token_revocations WHERE revoked_before < ?",
+                Timestamp.from(Instant.now().minusMillis(jwtProperties.getExpirationMs())));
+        if (tokens + users > 0) {
+            logger.info("Purged {} revoked tokens and {} user revocations", tokens, users);
+        }
+    }
+
+    private void add(String tokenId, Instant expiresAt) {
+        buckets.computeIfAbsent(bucketOf(expiresAt), bucket -> new BloomFilter(
+                        jwtProperties.getRevocationExpectedPerBucket(),
+                        jwtProperties.getRevocationFalsePositiveRate()))
+                .put(tokenId);
+    }
+
+    private void evictExpired(Instant now) {
+        long current = bucketOf(now);
+        buckets.keySet().removeIf(bucket -> bucket < current);
+        confirmed.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        Instant oldestLiveIssue = now.minusMillis(jwtProperties.getExpirationMs());
+        revokedBefore.values().removeIf(cutoff -> cutoff.isBefore(oldestLiveIssue));
+    }
+
+    private long bucketOf(Instant expiresAt) {
+        return expiresAt.getEpochSecond() / bucketSeconds;
+    }
+}
@@ -0,0 +1,81 @@
+package com.maths.teacher.auth.service;
+
+import com.maths.teacher.auth.domain.User;
+import com.maths.teacher.auth.util.LoginIdentifiers;
+import com.maths.teacher.catalog.exception.ErrorMessages;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Creates user accounts for self signup and admin registration.
+ *
+ * There are no existence checks up front: one statement inserts the row unless the mobile
+ * number is already held in any of its stored forms (accounts older than E.164
+ * normalization may keep the 10-digit form, which {@code uq_users_mobile} cannot see).
+ * A duplicate email, or a concurrent signup for the same canonical mobile, is reported
+ * from the {@code uq_users_email} / {@code uq_users_mobile} violation.
+ */
+@Service
+public class UserRegistrationService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO users (first_name, last_name, email, mobile_number, password_hash, role, created_at)
+            SELECT ?, ?, ?, ?, ?, 'USER', ?
+            WHERE NOT EXISTS (SELECT 1 FROM users WHERE mobile_number = ANY(?))
+            RETURNING id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordHashingService passwordHashingService;
+
+    public UserRegistrationService(JdbcTemplate jdbcTemplate, PasswordHashingService passwordHashingService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordHashingService = passwordHashingService;
+    }
+
+    public User register(String firstName, String lastName, String email, String mobileNumber, String password) {
+        String passwordHash = passwordHashingService.encode(password);
+        String normalizedEmail = LoginIdentifiers.normalizeEmail(email);
+        String mobile = LoginIdentifiers.toE164(mobileNumber);
+        String[] mobileVariants = LoginIdentifiers.mobileVariants(mobile).toArray(String[]::new);
+        Instant createdAt = Instant.now();
+
+        List<Long> ids;
+        try {
+            ids = jdbcTemplate.query(INSERT_SQL, ps -> {
+                ps.setString(1, firstName.trim());
+                ps.setString(2, lastName.trim());
+                ps.setString(3, normalizedEmail);
+                ps.setString(4, mobile);
+                ps.setString(5, passwordHash);
+                ps.setTimestamp(6, Timestamp.from(createdAt));
+                ps.setArray(7, ps.getConnection().createArrayOf("text", mobileVariants));
+            }, (rs, rowNum) -> rs.getLong(1));
+        } catch (DataIntegrityViolationException ex) {
+            throw duplicateAccount(ex);
+        }
+        if (ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.MOBILE_ALREADY_REGISTERED);
+        }
+        return new User(ids.get(0), firstName.trim(), lastName.trim(), normalizedEmail, mobile, passwordHash, createdAt);
+    }
+
+    private static ResponseStatusException duplicateAccount(DataIntegrityViolationException ex) {
+        String detail = String.valueOf(ex.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+
+        if (detail.contains("uq_users_email") || detail.contains("idx_users_email") || detail.contains("(email)")) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.EMAIL_ALREADY_REGISTERED, ex);
+        }
+        if (detail.contains("uq_users_mobile") || detail.contains("idx_users_mobile") || detail.contains("(mobile_number)")) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.MOBILE_ALREADY_REGISTERED, ex);
+        }
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Account could not be created.", ex);
+    }
+}
@@ -0,0 +1,98 @@
+package com.maths.teacher.auth.util;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical forms of the identifiers a user can sign in with.
+ *
+ * Emails are stored lower-cased and mobile numbers in E.164 ({@code +91XXXXXXXXXX}), so a
+ * lookup is a single equality match on an indexed column. Accounts created before mobile
+ * numbers were normalized may still hold the bare 10-digit form; {@link #mobileVariants}
+ * covers those as well.
+ */
+public final class LoginIdentifiers {
+
+    // The rules Hibernate Validator applies for @Email, minus quoted local parts and
+    // address literals: a dot-atom local part of at most 64 characters and a domain of
+    // letter/digit/hyphen labels.
+    private static final String LOCAL_ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~\\u0080-\\uFFFF-]+";
+    private static final Pattern EMAIL_LOCAL_PART = Pattern.compile(
+            LOCAL_ATOM + "(?:\\." + LOCAL_ATOM + ")*", Pattern.CASE_INSENSITIVE);
+    private static final String DOMAIN_LABEL = "\\p{Alnum}(?:[\\p{Alnum}-]{0,61}\\p{Alnum})?";
+    private static final Pattern EMAIL_DOMAIN = Pattern.compile(DOMAIN_LABEL + "(?:\\." + DOMAIN_LABEL + ")*");
+
+    private LoginIdentifiers() {
+        // Utility class - prevent instantiation
+    }
+
+    public static boolean isEmail(String identifier) {
+        return identifier != null && identifier.indexOf('@') >= 0;
+    }
+
+    /**
+     * Whether the value is an email address signup's {@code @Email} would accept (and at
+     * most 255 characters, the column size).
+     */
+    public static boolean isValidEmail(String email) {
+        if (email == null || email.length() > 255) {
+            return false;
+        }
+        int at = email.lastIndexOf('@');
+        if (at <= 0 || at > 64 || at == email.length() - 1) {
+            return false;
+        }
+        return EMAIL_LOCAL_PART.matcher(email.substring(0, at)).matches()
+                && EMAIL_DOMAIN.matcher(email.substring(at + 1)).matches();
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Converts an Indian mobile number to E.164. Ten-digit numbers get the +91 prefix;
+     * anything else keeps its digits with a leading +.
+     */
+    public static String toE164(String mobileNumber) {
+        if (mobileNumber == null) {
+            return "";
+        }
+        String trimmed = mobileNumber.trim();
+        String digits = trimmed.replaceAll("[^0-9]", "");
+        if (digits.isEmpty()) {
+            return trimmed;
+        }
+        if (digits.startsWith("91") && digits.length() == 12) {
+            return "+" + digits;
+        }
+        if (digits.length() == 11 && digits.startsWith("0")) {
+            return "+91" + digits.substring(1);
+        }
+        if (digits.length() == 10) {
+            return "+91" + digits;
+        }
+        // Already in E.164 or unknown format — keep the digits with a leading +
+        return "+" + digits;
+    }
+
+    /**
+     * The stored forms a mobile number may have: the canonical E.164 value first, then
+     * the legacy forms used before normalization.
+     */
+    public static List<String> mobileVariants(String mobileNumber) {
+        var variants = new LinkedHashSet<String>();
+        String canonical = toE164(mobileNumber);
+        variants.add(canonical);
+        if (canonical.startsWith("+91") && canonical.length() == 13) {
+            variants.add(canonical.substring(3));
+            variants.add(canonical.substring(1));
+        }
+        if (mobileNumber != null && !mobileNumber.isBlank()) {
+            variants.add(mobileNumber.trim());
+        }
+        return List.copyOf(variants);
+    }
+}
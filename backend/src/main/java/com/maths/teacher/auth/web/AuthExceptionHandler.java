@@ -14,6 +14,7 @@ public class AuthExceptionHandler {
         String message = ex.getReason() != null ? ex.getReason() : ex.getStatusCode().toString();
         return ResponseEntity
                 .status(ex.getStatusCode())
+                .headers(ex.getHeaders())
                 .body(new ErrorResponse(message));
     }
 }
@@ -9,6 +9,7 @@ public class AuthResponse {
     private String lastName;
     private String mobileNumber;
     private String role;
+    private String refreshToken;
 
     public AuthResponse() {
     }
@@ -87,4 +88,12 @@ public class AuthResponse {
     public void setRole(String role) {
         this.role = role;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 }
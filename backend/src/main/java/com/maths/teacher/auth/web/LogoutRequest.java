@@ -0,0 +1,14 @@
+package com.maths.teacher.auth.web;
+
+public class LogoutRequest {
+
+    private String refreshToken;
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
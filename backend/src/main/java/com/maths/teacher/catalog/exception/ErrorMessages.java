@@ -27,6 +27,9 @@ public final class ErrorMessages {
 
     public static final String ACCESS_DENIED = "Access denied";
 
+    /** Shown when a student requests content of a course they have not purchased. */
+    public static final String COURSE_NOT_PURCHASED = "You have not purchased this course.";
+
     /** Shown when login identifier (email or mobile) does not match any account. */
     public static final String NO_ACCOUNT_FOUND_EMAIL_OR_MOBILE = "No account found with this email or mobile number.";
 
@@ -2,9 +2,13 @@ package com.maths.teacher.catalog.repository;
 
 import com.maths.teacher.catalog.domain.VideoPdf;
 import java.util.List;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface VideoPdfRepository extends JpaRepository<VideoPdf, Long> {
+
+    /** Joins each PDF's video into the same query instead of loading the videos one by one. */
+    @EntityGraph(attributePaths = "video")
     List<VideoPdf> findByVideo_IdInOrderByDisplayOrderAsc(List<Long> videoIds);
     java.util.Optional<VideoPdf> findByIdAndVideo_Id(Long id, Long videoId);
     java.util.Optional<VideoPdf> findByVideo_IdAndPdfType(Long videoId, String pdfType);
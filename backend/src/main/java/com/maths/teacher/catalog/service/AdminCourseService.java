@@ -3,7 +3,9 @@ package com.maths.teacher.catalog.service;
 import com.maths.teacher.auth.domain.User;
 import com.maths.teacher.auth.repository.UserRepository;
 import com.maths.teacher.catalog.web.dto.AdminCourseResponse;
+import com.maths.teacher.catalog.web.dto.CompleteUploadRequest;
 import com.maths.teacher.catalog.web.dto.CreateCourseRequest;
+import com.maths.teacher.catalog.web.dto.StartUploadRequest;
 import com.maths.teacher.catalog.web.dto.StudentResponse;
 import com.maths.teacher.catalog.web.dto.TagStudentRequest;
 import com.maths.teacher.catalog.web.dto.UpdateCourseRequest;
@@ -13,13 +15,21 @@ import com.maths.teacher.payment.domain.Purchase;
 import com.maths.teacher.payment.repository.CourseRepository;
 import com.maths.teacher.payment.repository.PaymentOrderRepository;
 import com.maths.teacher.payment.repository.PurchaseRepository;
+import com.maths.teacher.security.EntitlementIndex;
+import com.maths.teacher.storage.S3LocationResolver;
+import com.maths.teacher.storage.S3Properties;
 import com.maths.teacher.storage.S3StorageService;
+import com.maths.teacher.storage.S3UploadSessionService;
+import com.maths.teacher.storage.StorageDeletionQueue;
+import com.maths.teacher.storage.S3UploadSessionService.UploadSession;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -32,24 +42,44 @@ public class AdminCourseService {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminCourseService.class);
 
+    private static final long MAX_THUMBNAIL_BYTES = 5L * 1024 * 1024;
+
     private final CourseRepository courseRepository;
     private final PurchaseRepository purchaseRepository;
     private final PaymentOrderRepository paymentOrderRepository;
     private final UserRepository userRepository;
     private final S3StorageService storageService;
+    private final S3UploadSessionService uploadSessionService;
+    private final StorageDeletionQueue storageDeletionQueue;
+    private final EntitlementIndex entitlementIndex;
+    private final CourseContentCache courseContentCache;
+    private final S3Properties s3Properties;
+    private final TransactionTemplate transactionTemplate;
 
     public AdminCourseService(
             CourseRepository courseRepository,
             PurchaseRepository purchaseRepository,
             PaymentOrderRepository paymentOrderRepository,
             UserRepository userRepository,
-            S3StorageService storageService
+            S3StorageService storageService,
+            S3UploadSessionService uploadSessionService,
+            StorageDeletionQueue storageDeletionQueue,
+            EntitlementIndex entitlementIndex,
+            CourseContentCache courseContentCache,
+            S3Properties s3Properties,
+            PlatformTransactionManager transactionManager
     ) {
         this.courseRepository = courseRepository;
         this.purchaseRepository = purchaseRepository;
         this.paymentOrderRepository = paymentOrderRepository;
         this.userRepository = userRepository;
         this.storageService = storageService;
+        this.uploadSessionService = uploadSessionService;
+        this.storageDeletionQueue = storageDeletionQueue;
+        this.entitlementIndex = entitlementIndex;
+        this.courseContentCache = courseContentCache;
+        this.s3Properties = s3Properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -81,6 +111,7 @@ public class AdminCourseService {
 
         // Save course to database
         Course saved = courseRepository.save(course);
+        courseContentCache.invalidateCourseList();
 
         logger.info("Course created with ID: {}", saved.getId());
 
@@ -121,26 +152,89 @@ public class AdminCourseService {
         // Handle thumbnail update
         if (thumbnail != null && !thumbnail.isEmpty()) {
             validateImageFile(thumbnail);
-            // Delete old thumbnail if exists
-            if (course.getThumbnailUrl() != null && !course.getThumbnailUrl().isEmpty()) {
-                try {
-                    storageService.deleteByStorageUrl(course.getThumbnailUrl());
-                } catch (Exception e) {
-                    logger.warn("Failed to delete old thumbnail: {}", e.getMessage());
-                }
-            }
+            // Old thumbnail is deleted by the storage worker once this transaction commits
+            storageDeletionQueue.enqueue(course.getThumbnailUrl());
             String newThumbnailUrl = storageService.uploadCourseThumbnail(courseId, thumbnail);
             course.setThumbnailUrl(newThumbnailUrl);
         }
 
         // Save changes
         Course updated = courseRepository.save(course);
+        courseContentCache.invalidateCourseList();
 
         logger.info("Course updated: {}", courseId);
 
         return toAdminResponse(updated);
     }
 
+    /**
+     * Starts a direct-to-S3 upload of a new thumbnail (JPEG/PNG, max 5MB).
+     */
+    public UploadSession startThumbnailUpload(Long courseId, StartUploadRequest request) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found");
+        }
+        String contentType = request.getContentType();
+        if (!"image/jpeg".equals(contentType) && !"image/png".equals(contentType)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only JPEG and PNG images are allowed");
+        }
+        if (request.getSize() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File size is required");
+        }
+        String extension = contentType.equals("image/png") ? "png" : "jpg";
+        return uploadSessionService.start(
+                thumbnailKeyPrefix(courseId), extension, contentType, request.getSize(), MAX_THUMBNAIL_BYTES);
+    }
+
+    /**
+     * Verifies a directly uploaded thumbnail and makes it the course thumbnail. The S3 calls
+     * run first, without a transaction; only the switch to the new key is transactional.
+     */
+    public AdminCourseResponse completeThumbnailUpload(Long courseId, CompleteUploadRequest request) {
+        Course current = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+        if (isStoredAt(current.getThumbnailUrl(), request.getKey())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "This image is already the course thumbnail");
+        }
+
+        String newThumbnailUrl = uploadSessionService.complete(
+                request.getKey(),
+                request.getParts(),
+                thumbnailKeyPrefix(courseId)
+        );
+
+        Course updated = transactionTemplate.execute(status -> {
+            uploadSessionService.consume(request.getKey());
+            Course course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+            String oldThumbnailUrl = course.getThumbnailUrl();
+            if (!isStoredAt(oldThumbnailUrl, request.getKey())) {
+                storageDeletionQueue.enqueue(oldThumbnailUrl);
+            }
+            course.setThumbnailUrl(newThumbnailUrl);
+            return courseRepository.save(course);
+        });
+        courseContentCache.invalidateCourseList();
+
+        logger.info("Course thumbnail updated via direct upload: {}", courseId);
+        return toAdminResponse(updated);
+    }
+
+    private boolean isStoredAt(String storageUrl, String key) {
+        if (storageUrl == null || storageUrl.isBlank() || key == null) {
+            return false;
+        }
+        try {
+            return S3LocationResolver.resolve(storageUrl, s3Properties).key().equals(key);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private String thumbnailKeyPrefix(Long courseId) {
+        return "courses/" + courseId + "/";
+    }
+
     /**
      * Soft deletes a course (sets active = false).
      */
@@ -153,6 +247,7 @@ public class AdminCourseService {
 
         course.setActive(false);
         courseRepository.save(course);
+        courseContentCache.invalidateCourseList();
 
         logger.info("Course soft-deleted: {}", courseId);
     }
@@ -235,6 +330,7 @@ public class AdminCourseService {
         Purchase purchase = new Purchase(userId, courseId, orderId, txnId, 0, course.getCurrency());
         purchase.setUser(user);
         purchase = purchaseRepository.save(purchase);
+        entitlementIndex.grant(userId, courseId);
 
         logger.info("Admin tagged student {} to course {}", userId, courseId);
         return new StudentResponse(user.getId(), user.getFirstName(), user.getLastName(),
@@ -255,6 +351,7 @@ public class AdminCourseService {
         }
 
         purchaseRepository.deleteByUserIdAndCourseId(userId, courseId);
+        entitlementIndex.revoke(userId, courseId);
         logger.info("Admin untagged student {} from course {}", userId, courseId);
     }
 
@@ -4,28 +4,51 @@ import com.maths.teacher.catalog.domain.VideoPdf;
 import com.maths.teacher.catalog.exception.ErrorMessages;
 import com.maths.teacher.catalog.repository.VideoPdfRepository;
 import com.maths.teacher.catalog.repository.VideoRepository;
+import com.maths.teacher.catalog.web.dto.CompletePdfUploadRequest;
 import com.maths.teacher.catalog.web.dto.PdfResponse;
+import com.maths.teacher.catalog.web.dto.StartUploadRequest;
 import com.maths.teacher.storage.S3StorageService;
+import com.maths.teacher.storage.S3UploadSessionService;
+import com.maths.teacher.storage.S3UploadSessionService.UploadSession;
+import com.maths.teacher.storage.StorageDeletionQueue;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class AdminPdfService {
 
+    private static final String PDF_CONTENT_TYPE = "application/pdf";
+    private static final long MAX_DIRECT_UPLOAD_BYTES = 500L * 1024 * 1024;
+
     private final VideoRepository videoRepository;
     private final VideoPdfRepository videoPdfRepository;
     private final S3StorageService storageService;
+    private final S3UploadSessionService uploadSessionService;
+    private final StorageDeletionQueue storageDeletionQueue;
+    private final CourseContentCache courseContentCache;
+    private final TransactionTemplate transactionTemplate;
 
     public AdminPdfService(
             VideoRepository videoRepository,
             VideoPdfRepository videoPdfRepository,
-            S3StorageService storageService
+            S3StorageService storageService,
+            S3UploadSessionService uploadSessionService,
+            StorageDeletionQueue storageDeletionQueue,
+            CourseContentCache courseContentCache,
+            PlatformTransactionManager transactionManager
     ) {
         this.videoRepository = videoRepository;
         this.videoPdfRepository = videoPdfRepository;
         this.storageService = storageService;
+        this.uploadSessionService = uploadSessionService;
+        this.storageDeletionQueue = storageDeletionQueue;
+        this.courseContentCache = courseContentCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public PdfResponse addPdf(
@@ -51,9 +74,72 @@ public class AdminPdfService {
 
         var pdf = new VideoPdf(null, video, title, pdfType, storageUrl, displayOrder);
         var saved = videoPdfRepository.save(pdf);
+        courseContentCache.invalidate(video.getCourseId());
         return new PdfResponse(saved.getId(), saved.getTitle(), saved.getPdfType(), saved.getFileUrl(), saved.getDisplayOrder());
     }
 
+    /**
+     * Starts a direct-to-S3 upload of a PDF for a video. The file bytes never pass
+     * through this server; call {@link #completePdfUpload} once the browser is done.
+     */
+    public UploadSession startPdfUpload(Long videoId, StartUploadRequest request) {
+        if (!videoRepository.existsById(videoId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.VIDEO_NOT_FOUND);
+        }
+        if (!PDF_CONTENT_TYPE.equals(request.getContentType()) || request.getSize() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A PDF content type and file size are required");
+        }
+        return uploadSessionService.start(
+                pdfKeyPrefix(videoId), "pdf", PDF_CONTENT_TYPE, request.getSize(), MAX_DIRECT_UPLOAD_BYTES);
+    }
+
+    /**
+     * Verifies a finished direct upload and records it as a new PDF of the video.
+     */
+    public PdfResponse completePdfUpload(Long videoId, CompletePdfUploadRequest request) {
+        var video = videoRepository.findById(videoId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.VIDEO_NOT_FOUND));
+        if (request.getTitle() == null || request.getTitle().isBlank()
+                || request.getPdfType() == null || request.getPdfType().isBlank()
+                || request.getDisplayOrder() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "title, pdfType and displayOrder are required");
+        }
+        videoPdfRepository.findByVideo_IdAndPdfType(videoId, request.getPdfType())
+                .ifPresent(existingPdf -> {
+                    throw new ResponseStatusException(
+                            HttpStatus.CONFLICT,
+                            ErrorMessages.pdfTypeAlreadyExists(request.getPdfType())
+                    );
+                });
+
+        var storageUrl = uploadSessionService.complete(request.getKey(), request.getParts(), pdfKeyPrefix(videoId));
+
+        var pdf = new VideoPdf(null, video, request.getTitle(), request.getPdfType(), storageUrl, request.getDisplayOrder());
+        var saved = transactionTemplate.execute(status -> {
+            uploadSessionService.consume(request.getKey());
+            return videoPdfRepository.save(pdf);
+        });
+        courseContentCache.invalidate(video.getCourseId());
+        return new PdfResponse(saved.getId(), saved.getTitle(), saved.getPdfType(), saved.getFileUrl(), saved.getDisplayOrder());
+    }
+
+    /**
+     * Abandons an unfinished multipart PDF upload.
+     */
+    public void abortPdfUpload(Long videoId, String key) {
+        uploadSessionService.abort(key, pdfKeyPrefix(videoId));
+    }
+
+    private String pdfKeyPrefix(Long videoId) {
+        return "videos/" + videoId + "/pdfs/";
+    }
+
+    /**
+     * Updates a PDF's fields and, when a file is given, replaces it. The new file is uploaded
+     * before any row changes, and the row update and the deletion of the replaced file commit
+     * together; if the transaction rolls back, the new object is left for the storage GC.
+     */
+    @Transactional
     public PdfResponse updatePdf(
             Long videoId,
             Long pdfId,
@@ -65,6 +151,8 @@ public class AdminPdfService {
         var pdf = videoPdfRepository.findByIdAndVideo_Id(pdfId, videoId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.PDF_NOT_FOUND));
 
+        String storageUrl = file != null && !file.isEmpty() ? storageService.uploadPdf(videoId, file) : null;
+
         if (title != null && !title.isBlank()) {
             pdf.setTitle(title);
         }
@@ -74,20 +162,24 @@ public class AdminPdfService {
         if (displayOrder != null) {
             pdf.setDisplayOrder(displayOrder);
         }
-        if (file != null && !file.isEmpty()) {
-            storageService.deleteByStorageUrl(pdf.getFileUrl());
-            var storageUrl = storageService.uploadPdf(videoId, file);
+        String replacedFileUrl = null;
+        if (storageUrl != null) {
+            replacedFileUrl = pdf.getFileUrl();
             pdf.setFileUrl(storageUrl);
         }
 
         var saved = videoPdfRepository.save(pdf);
+        storageDeletionQueue.enqueue(replacedFileUrl);
+        courseContentCache.invalidate(saved.getVideo().getCourseId());
         return new PdfResponse(saved.getId(), saved.getTitle(), saved.getPdfType(), saved.getFileUrl(), saved.getDisplayOrder());
     }
 
+    @Transactional
     public void deletePdf(Long videoId, Long pdfId) {
         var pdf = videoPdfRepository.findByIdAndVideo_Id(pdfId, videoId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.PDF_NOT_FOUND));
-        storageService.deleteByStorageUrl(pdf.getFileUrl());
         videoPdfRepository.delete(pdf);
+        storageDeletionQueue.enqueue(pdf.getFileUrl());
+        courseContentCache.invalidate(pdf.getVideo().getCourseId());
     }
 }
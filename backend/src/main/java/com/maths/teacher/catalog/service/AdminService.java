@@ -8,36 +8,64 @@ import com.maths.teacher.catalog.util.YouTubeUrlExtractor;
 import com.maths.teacher.catalog.web.dto.PdfResponse;
 import com.maths.teacher.catalog.web.dto.VideoResponse;
 import com.maths.teacher.storage.S3StorageService;
+import com.maths.teacher.storage.StorageDeletionQueue;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class AdminService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AdminService.class);
+
     private static final String PDF_TYPE_NOTES = "Notes";
     private static final String PDF_TYPE_SOLVED_PRACTICE_SET = "Solved Practice Set";
     private static final String PDF_TYPE_ANNOTATED_PRACTICE_SET = "Annotated Practice Set";
 
+    private static final String RESERVE_VIDEO_ID_SQL = "SELECT nextval(pg_get_serial_sequence('videos', 'id'))";
+    private static final String INSERT_VIDEO_SQL = """
+            INSERT INTO videos (id, video_id, title, course_id, thumbnail_url, duration, display_order)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
     private final VideoRepository videoRepository;
     private final VideoPdfRepository videoPdfRepository;
     private final S3StorageService storageService;
+    private final StorageDeletionQueue storageDeletionQueue;
     private final YouTubeUrlExtractor youtubeUrlExtractor;
+    private final CourseContentCache courseContentCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
 
     public AdminService(
             VideoRepository videoRepository,
             VideoPdfRepository videoPdfRepository,
             S3StorageService storageService,
-            YouTubeUrlExtractor youtubeUrlExtractor
+            StorageDeletionQueue storageDeletionQueue,
+            YouTubeUrlExtractor youtubeUrlExtractor,
+            CourseContentCache courseContentCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager
     ) {
         this.videoRepository = videoRepository;
         this.videoPdfRepository = videoPdfRepository;
         this.storageService = storageService;
+        this.storageDeletionQueue = storageDeletionQueue;
         this.youtubeUrlExtractor = youtubeUrlExtractor;
+        this.courseContentCache = courseContentCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -54,7 +82,6 @@ public class AdminService {
      * @param annotatedPracticeSetPdf Annotated Practice Set PDF (optional)
      * @return Created video with PDFs
      */
-    @Transactional
     public VideoResponse createVideoLesson(
             String youtubeVideoLink,
             String title,
@@ -69,30 +96,27 @@ public class AdminService {
         String videoId = youtubeUrlExtractor.extractVideoId(youtubeVideoLink);
         String thumbnailUrl = youtubeUrlExtractor.generateThumbnailUrl(videoId);
 
-        // Create video entity
-        var video = new Video(null, videoId, title, courseId, thumbnailUrl, duration, displayOrder);
-        var savedVideo = videoRepository.save(video);
-
-        // Process PDFs: upload to S3 first, then batch save to DB
-        var pdfsToSave = new ArrayList<VideoPdf>();
-        int displayOrderCounter = 1;
-
+        // Collect the PDFs to upload, in display order
+        var uploads = new ArrayList<PdfUpload>();
         if (notesPdf != null && !notesPdf.isEmpty()) {
-            pdfsToSave.add(createPdfEntity(savedVideo, notesPdf, PDF_TYPE_NOTES, displayOrderCounter++));
+            uploads.add(new PdfUpload(notesPdf, PDF_TYPE_NOTES, uploads.size() + 1));
         }
-
         if (solvedPracticeSetPdf != null && !solvedPracticeSetPdf.isEmpty()) {
-            pdfsToSave.add(createPdfEntity(savedVideo, solvedPracticeSetPdf, PDF_TYPE_SOLVED_PRACTICE_SET, displayOrderCounter++));
+            uploads.add(new PdfUpload(solvedPracticeSetPdf, PDF_TYPE_SOLVED_PRACTICE_SET, uploads.size() + 1));
         }
-
         if (annotatedPracticeSetPdf != null && !annotatedPracticeSetPdf.isEmpty()) {
-            pdfsToSave.add(createPdfEntity(savedVideo, annotatedPracticeSetPdf, PDF_TYPE_ANNOTATED_PRACTICE_SET, displayOrderCounter++));
+            uploads.add(new PdfUpload(annotatedPracticeSetPdf, PDF_TYPE_ANNOTATED_PRACTICE_SET, uploads.size() + 1));
         }
 
-        // Batch save all PDFs in a single DB call
-        var savedPdfs = pdfsToSave.isEmpty() 
-                ? new ArrayList<VideoPdf>() 
-                : videoPdfRepository.saveAll(pdfsToSave);
+        // The S3 keys contain the video ID, so the ID is taken from the sequence up front and
+        // the PDFs are uploaded with no DB connection held. The video row and its PDFs are
+        // then inserted in one short transaction: students never see a half-created lesson,
+        // and a failed upload leaves nothing behind but an unused ID.
+        Long id = jdbcTemplate.queryForObject(RESERVE_VIDEO_ID_SQL, Long.class);
+        var savedVideo = new Video(id, videoId, title, courseId, thumbnailUrl, duration, displayOrder);
+        var pdfsToSave = uploadPdfs(savedVideo, uploads);
+        List<VideoPdf> savedPdfs = insertLesson(savedVideo, pdfsToSave);
+        courseContentCache.invalidate(courseId);
 
         // Convert to response DTOs
         var pdfResponses = savedPdfs.stream()
@@ -116,6 +140,67 @@ public class AdminService {
         );
     }
 
+    /**
+     * Uploads all PDFs concurrently, one virtual thread per file, so the total time is that
+     * of the slowest upload. If any upload fails, the files that did upload are removed.
+     */
+    private List<VideoPdf> uploadPdfs(Video video, List<PdfUpload> uploads) {
+        if (uploads.isEmpty()) {
+            return List.of();
+        }
+
+        List<Future<VideoPdf>> futures;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            futures = uploads.stream()
+                    .map(upload -> executor.submit(() ->
+                            createPdfEntity(video, upload.file(), upload.pdfType(), upload.displayOrder())))
+                    .toList();
+        }
+
+        var pdfs = new ArrayList<VideoPdf>();
+        Throwable failure = null;
+        for (var future : futures) {
+            if (future.state() == Future.State.SUCCESS) {
+                pdfs.add(future.resultNow());
+            } else if (failure == null) {
+                failure = future.exceptionNow();
+            }
+        }
+        if (failure != null) {
+            deleteUploadedQuietly(pdfs);
+            if (failure instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to upload PDF", failure);
+        }
+        return pdfs;
+    }
+
+    private List<VideoPdf> insertLesson(Video video, List<VideoPdf> pdfs) {
+        try {
+            return transactionTemplate.execute(status -> {
+                jdbcTemplate.update(INSERT_VIDEO_SQL, video.getId(), video.getVideoId(), video.getTitle(),
+                        video.getCourseId(), video.getThumbnailUrl(), video.getDuration(), video.getDisplayOrder());
+                return pdfs.isEmpty() ? List.<VideoPdf>of() : videoPdfRepository.saveAll(pdfs);
+            });
+        } catch (RuntimeException ex) {
+            deleteUploadedQuietly(pdfs);
+            throw ex;
+        }
+    }
+
+    private void deleteUploadedQuietly(List<VideoPdf> pdfs) {
+        for (VideoPdf pdf : pdfs) {
+            try {
+                storageDeletionQueue.enqueue(pdf.getFileUrl());
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to schedule removal of uploaded PDF {}: {}", pdf.getFileUrl(), ex.getMessage());
+            }
+        }
+    }
+
+    private record PdfUpload(MultipartFile file, String pdfType, int displayOrder) {}
+
     /**
      * Creates a PDF entity after uploading to S3.
      * Does not save to DB - use batch saveAll() for multiple PDFs.
@@ -180,9 +265,10 @@ public class AdminService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Video not found"));
         List<VideoPdf> pdfs = videoPdfRepository.findByVideo_IdInOrderByDisplayOrderAsc(List.of(videoId));
         for (VideoPdf pdf : pdfs) {
-            storageService.deleteByStorageUrl(pdf.getFileUrl());
+            storageDeletionQueue.enqueue(pdf.getFileUrl());
         }
         videoRepository.deleteById(videoId);
+        courseContentCache.invalidate(video.getCourseId());
     }
 
     @Transactional
@@ -197,6 +283,7 @@ public class AdminService {
             video.setDisplayOrder(displayOrder);
         }
         Video saved = videoRepository.save(video);
+        courseContentCache.invalidate(saved.getCourseId());
 
         List<PdfResponse> pdfResponses = saved.getPdfs().stream()
                 .map(pdf -> new PdfResponse(
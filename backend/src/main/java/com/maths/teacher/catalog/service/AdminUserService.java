@@ -2,14 +2,21 @@ package com.maths.teacher.catalog.service;
 
 import com.maths.teacher.auth.domain.User;
 import com.maths.teacher.auth.repository.UserRepository;
+import com.maths.teacher.auth.service.RefreshTokenService;
+import com.maths.teacher.auth.service.TokenRevocationService;
+import com.maths.teacher.auth.service.UserRegistrationService;
 import com.maths.teacher.catalog.web.dto.RegisterStudentRequest;
+import com.maths.teacher.catalog.web.dto.UserSearchPageResponse;
 import com.maths.teacher.catalog.web.dto.UserSearchResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -17,46 +24,179 @@ public class AdminUserService {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminUserService.class);
 
+    private static final int MIN_SEARCH_LENGTH = 3;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Scores lie in [0, 2], so the first page starts above any real score.
+    private static final float FIRST_PAGE_SCORE = 3f;
+
+    // At most this many matches are ranked per search, of which at most MAX_TYPO_CANDIDATES
+    // typo-only ones; a broader term gets one page and needs narrowing.
+    private static final int MAX_CANDIDATES = 500;
+    private static final int MAX_TYPO_CANDIDATES = 100;
+
+    // Substring hits (which include prefixes) score 1 + similarity, typo-only hits just the
+    // similarity. Both tiers are read from idx_users_search_trgm and cut off by LIMIT:
+    // substring hits first, then typo hits (word similarity above pg_trgm's threshold) up
+    // to the rest of the budget. Only those rows are scored and sorted, so a term matching
+    // thousands of users costs about the same as a narrow one. Typo hits get the smaller
+    // budget because each candidate row costs a similarity recheck. The keyset condition
+    // on (score DESC, id) pages through the candidates without OFFSET.
+    //
+    // The LIMITs have no ORDER BY, so when a tier is cut off, which rows it keeps can change
+    // between requests and paging would skip or repeat users. Ordering them by id would make
+    // every search read and recheck all of its matches (5-15x slower for broad terms on the
+    // 500k-user bench), so a cut-off search is answered with one page and no cursor. The
+    // tier sizes are returned to tell the two cases apart.
+    private static final String SEARCH_SQL = """
+            WITH substring_hits AS (
+                SELECT id, first_name, last_name, email, mobile_number,
+                       user_search_text(first_name, last_name, email, mobile_number) AS search_text
+                FROM users
+                WHERE user_search_text(first_name, last_name, email, mobile_number) LIKE ?
+                LIMIT ?
+            ), typo_hits AS (
+                SELECT id, first_name, last_name, email, mobile_number,
+                       user_search_text(first_name, last_name, email, mobile_number) AS search_text
+                FROM users
+                WHERE ? <% user_search_text(first_name, last_name, email, mobile_number)
+                  AND user_search_text(first_name, last_name, email, mobile_number) NOT LIKE ?
+                LIMIT (SELECT least(?, ? - count(*)) FROM substring_hits)
+            ), matches AS (
+                SELECT id, first_name, last_name, email, mobile_number,
+                       (1 + word_similarity(?, search_text))::real AS score
+                FROM substring_hits
+                UNION ALL
+                SELECT id, first_name, last_name, email, mobile_number,
+                       word_similarity(?, search_text)::real
+                FROM typo_hits
+            )
+            SELECT id, first_name, last_name, email, mobile_number, score,
+                   (SELECT count(*) FROM substring_hits) AS substring_count,
+                   (SELECT count(*) FROM typo_hits) AS typo_count
+            FROM matches
+            WHERE score < ? OR (score = ? AND id > ?)
+            ORDER BY score DESC, id
+            LIMIT ?
+            """;
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserRegistrationService userRegistrationService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final JdbcTemplate jdbcTemplate;
 
-    public AdminUserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AdminUserService(
+            UserRepository userRepository,
+            UserRegistrationService userRegistrationService,
+            RefreshTokenService refreshTokenService,
+            TokenRevocationService tokenRevocationService,
+            JdbcTemplate jdbcTemplate
+    ) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.userRegistrationService = userRegistrationService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
-    @Transactional
     public UserSearchResponse registerStudent(RegisterStudentRequest request) {
-        String email = request.getEmail() != null ? request.getEmail().trim().toLowerCase() : "";
-        String mobile = request.getMobileNumber() != null ? request.getMobileNumber().trim() : "";
-
-        if (userRepository.findByEmail(email).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already registered");
-        }
-        if (userRepository.findByMobileNumber(mobile).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Mobile number already registered");
-        }
-
-        String passwordHash = passwordEncoder.encode(request.getPassword());
-        User user = new User(
-                request.getFirstName().trim(),
-                request.getLastName().trim(),
-                email,
-                mobile,
-                passwordHash
+        User user = userRegistrationService.register(
+                request.getFirstName(),
+                request.getLastName(),
+                request.getEmail(),
+                request.getMobileNumber(),
+                request.getPassword()
         );
-        user = userRepository.save(user);
 
-        logger.info("Admin registered new student: id={}, mobile={}", user.getId(), mobile);
+        logger.info("Admin registered new student: id={}, mobile={}", user.getId(), user.getMobileNumber());
         return toResponse(user);
     }
 
     public UserSearchResponse searchUser(String query) {
-        return userRepository.findByEmailOrMobileNumber(query.trim())
+        return userRepository.findByLoginIdentifier(query.trim())
                 .map(this::toResponse)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
+    /**
+     * Searches users by any part of their name, email or mobile number, tolerating typos.
+     * Best matches come first; pass the returned cursor back to get the next page. A term
+     * matching more users than are ranked ({@value #MAX_CANDIDATES}) gets a single page
+     * flagged as truncated, with no cursor.
+     */
+    public UserSearchPageResponse searchUsers(String query, String cursor, Integer limit) {
+        String term = normalizeSearchTerm(query);
+        if (term.length() < MIN_SEARCH_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search term must be at least " + MIN_SEARCH_LENGTH + " characters");
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        SearchCursor after = cursor == null || cursor.isBlank()
+                ? new SearchCursor(FIRST_PAGE_SCORE, 0L)
+                : SearchCursor.decode(cursor);
+        String pattern = "%" + escapeLike(term) + "%";
+
+        List<SearchHit> hits = jdbcTemplate.query(SEARCH_SQL,
+                (rs, rowNum) -> new SearchHit(
+                        new UserSearchResponse(
+                                rs.getLong("id"),
+                                rs.getString("first_name"),
+                                rs.getString("last_name"),
+                                rs.getString("email"),
+                                rs.getString("mobile_number")),
+                        rs.getFloat("score"),
+                        isTruncated(rs.getInt("substring_count"), rs.getInt("typo_count"))),
+                pattern, MAX_CANDIDATES, term, pattern, MAX_TYPO_CANDIDATES, MAX_CANDIDATES, term, term,
+                after.score(), after.score(), after.id(), pageSize + 1);
+
+        boolean truncated = !hits.isEmpty() && hits.get(0).truncated();
+        String nextCursor = null;
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            SearchHit last = hits.get(pageSize - 1);
+            if (!truncated) {
+                nextCursor = new SearchCursor(last.score(), last.user().getId()).encode();
+            }
+        }
+        return new UserSearchPageResponse(hits.stream().map(SearchHit::user).toList(), nextCursor, truncated);
+    }
+
+    /** Whether either candidate tier filled its LIMIT, so matches may have been left out. */
+    private static boolean isTruncated(int substringCount, int typoCount) {
+        return substringCount >= MAX_CANDIDATES
+                || typoCount >= Math.min(MAX_TYPO_CANDIDATES, MAX_CANDIDATES - substringCount);
+    }
+
+    /**
+     * Lower-cases and collapses whitespace. Phone numbers typed with spaces or dashes are
+     * joined up so they match the stored E.164 form.
+     */
+    static String normalizeSearchTerm(String query) {
+        String term = query == null ? "" : query.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (term.matches("\\+?[0-9][0-9 ()-]*")) {
+            term = term.replaceAll("[^0-9+]", "");
+        }
+        return term;
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Signs the user out on every device: refresh tokens are revoked and access tokens
+     * already issued stop working on the next request.
+     */
+    public void revokeSessions(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        refreshTokenService.revokeAll(userId);
+        tokenRevocationService.revokeAllForUser(userId);
+        logger.info("Admin revoked all sessions of user {}", userId);
+    }
+
     private UserSearchResponse toResponse(User user) {
         return new UserSearchResponse(
                 user.getId(),
@@ -66,4 +206,26 @@ public class AdminUserService {
                 user.getMobileNumber()
         );
     }
+
+    private record SearchHit(UserSearchResponse user, float score, boolean truncated) {}
+
+    /** Position after the last row of a page, encoded as opaque base64 "score:id". */
+    private record SearchCursor(float score, long id) {
+
+        String encode() {
+            String raw = Float.toString(score) + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SearchCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                return new SearchCursor(Float.parseFloat(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+    }
 }
@@ -0,0 +1,336 @@
+package com.maths.teacher.catalog.service;
+
+import com.maths.teacher.auth.service.PasswordHashingService;
+import com.maths.teacher.auth.util.LoginIdentifiers;
+import com.maths.teacher.catalog.exception.ErrorMessages;
+import com.maths.teacher.catalog.web.dto.BulkRegisterResponse;
+import com.maths.teacher.catalog.web.dto.BulkRegisterRowResult;
+import com.maths.teacher.catalog.web.dto.BulkRegisterRowResult.Status;
+import com.maths.teacher.catalog.web.dto.RegisterStudentRequest;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Registers a whole batch of students in one request.
+ *
+ * Rows are validated and de-duplicated within the file first, then checked against
+ * existing accounts with one {@code = ANY(?)} query. Passwords of the remaining rows are
+ * hashed in parallel on the bulk hashing pool and the users are written with JDBC batch
+ * inserts. {@code ON CONFLICT DO NOTHING} catches accounts created concurrently, which are
+ * reported as duplicates. Every input row gets a result, in input order.
+ */
+@Service
+public class BulkStudentRegistrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkStudentRegistrationService.class);
+
+    static final int MAX_ROWS = 10_000;
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int MIN_PASSWORD_LENGTH = 8;
+
+    private static final String EXISTING_SQL =
+            "SELECT email, mobile_number FROM users WHERE email = ANY(?) OR mobile_number = ANY(?)";
+    // The NOT EXISTS covers legacy (non-E.164) forms of the mobile that the unique
+    // constraint cannot see; see UserRegistrationService.
+    private static final String INSERT_SQL = """
+            INSERT INTO users (first_name, last_name, email, mobile_number, password_hash, role, created_at)
+            SELECT ?, ?, ?, ?, ?, 'USER', ?
+            WHERE NOT EXISTS (SELECT 1 FROM users WHERE mobile_number = ANY(?))
+            ON CONFLICT DO NOTHING
+            """;
+    private static final String IDS_SQL = "SELECT id, email FROM users WHERE email = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordHashingService passwordHashingService;
+
+    public BulkStudentRegistrationService(JdbcTemplate jdbcTemplate, PasswordHashingService passwordHashingService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordHashingService = passwordHashingService;
+    }
+
+    /**
+     * Registers students from a CSV document with a header row. Recognised columns are
+     * firstName, lastName, mobileNumber (or mobile), email and password, in any order.
+     */
+    public BulkRegisterResponse registerCsv(String csv) {
+        List<List<String>> records = parseCsv(csv == null ? "" : csv);
+        if (records.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV is empty");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = records.get(0);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replaceAll("[ _-]", ""), i);
+        }
+        Integer mobileColumn = columns.getOrDefault("mobilenumber", columns.get("mobile"));
+        for (String required : List.of("firstname", "lastname", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header is missing column: " + required);
+            }
+        }
+        if (mobileColumn == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header is missing column: mobileNumber");
+        }
+
+        var requests = new ArrayList<RegisterStudentRequest>(records.size() - 1);
+        for (List<String> record : records.subList(1, records.size())) {
+            requests.add(new RegisterStudentRequest(
+                    field(record, columns.get("firstname")),
+                    field(record, columns.get("lastname")),
+                    field(record, mobileColumn),
+                    field(record, columns.get("email")),
+                    field(record, columns.get("password"))
+            ));
+        }
+        return register(requests);
+    }
+
+    /**
+     * Registers the given students. Row numbers in the result are 1-based positions in
+     * the input (for CSV, the header is not counted).
+     */
+    public BulkRegisterResponse register(List<RegisterStudentRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No students to register");
+        }
+        if (requests.size() > MAX_ROWS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_ROWS + " students can be registered at once");
+        }
+
+        var results = new BulkRegisterRowResult[requests.size()];
+        var candidates = new ArrayList<Candidate>();
+        Map<String, Integer> rowByEmail = new HashMap<>();
+        Map<String, Integer> rowByMobile = new HashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            int row = i + 1;
+            RegisterStudentRequest request = requests.get(i);
+            String email = LoginIdentifiers.normalizeEmail(request.getEmail());
+            String mobile = LoginIdentifiers.toE164(request.getMobileNumber());
+
+            String problem = validate(request, email, mobile);
+            if (problem != null) {
+                results[i] = new BulkRegisterRowResult(row, Status.INVALID, null, email, mobile, problem);
+                continue;
+            }
+            Integer emailRow = rowByEmail.putIfAbsent(email, row);
+            if (emailRow != null) {
+                results[i] = new BulkRegisterRowResult(row, Status.DUPLICATE, null, email, mobile,
+                        "Same email as row " + emailRow);
+                continue;
+            }
+            Integer mobileRow = rowByMobile.putIfAbsent(mobile, row);
+            if (mobileRow != null) {
+                results[i] = new BulkRegisterRowResult(row, Status.DUPLICATE, null, email, mobile,
+                        "Same mobile number as row " + mobileRow);
+                continue;
+            }
+            candidates.add(new Candidate(i, request.getFirstName().trim(), request.getLastName().trim(),
+                    email, mobile, request.getPassword()));
+        }
+
+        List<Candidate> fresh = excludeExisting(candidates, results);
+        List<String> hashes = passwordHashingService.encodeAll(fresh.stream().map(Candidate::password).toList());
+        insert(fresh, hashes, results);
+
+        var response = new BulkRegisterResponse(Arrays.asList(results));
+        logger.info("Bulk student registration: rows={}, created={}, duplicates={}, invalid={}",
+                requests.size(), response.getCreated(), response.getDuplicates(), response.getInvalid());
+        return response;
+    }
+
+    private static String validate(RegisterStudentRequest request, String email, String mobile) {
+        if (isBlank(request.getFirstName()) || isBlank(request.getLastName())) {
+            return "First and last name are required";
+        }
+        if (request.getFirstName().trim().length() > 100 || request.getLastName().trim().length() > 100) {
+            return "Names must be at most 100 characters";
+        }
+        if (!LoginIdentifiers.isValidEmail(email)) {
+            return "A valid email is required";
+        }
+        if (mobile.replaceAll("[^0-9]", "").length() < 10 || mobile.length() > 20) {
+            return "A valid mobile number is required";
+        }
+        if (request.getPassword() == null || request.getPassword().length() < MIN_PASSWORD_LENGTH) {
+            return "Password must be at least " + MIN_PASSWORD_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    /**
+     * Marks candidates whose email or mobile already belongs to an account, using a single
+     * query over all emails and all stored forms of the mobile numbers.
+     */
+    private List<Candidate> excludeExisting(List<Candidate> candidates, BulkRegisterRowResult[] results) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        String[] emails = candidates.stream().map(Candidate::email).toArray(String[]::new);
+        String[] mobiles = candidates.stream()
+                .flatMap(candidate -> LoginIdentifiers.mobileVariants(candidate.mobile()).stream())
+                .toArray(String[]::new);
+
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenMobiles = new HashSet<>();
+        jdbcTemplate.query(EXISTING_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("text", emails));
+            ps.setArray(2, ps.getConnection().createArrayOf("text", mobiles));
+        }, rs -> {
+            takenEmails.add(rs.getString(1));
+            takenMobiles.add(LoginIdentifiers.toE164(rs.getString(2)));
+        });
+
+        var fresh = new ArrayList<Candidate>(candidates.size());
+        for (Candidate candidate : candidates) {
+            if (takenEmails.contains(candidate.email())) {
+                results[candidate.index()] = candidate.result(Status.DUPLICATE, null, ErrorMessages.EMAIL_ALREADY_REGISTERED);
+            } else if (takenMobiles.contains(candidate.mobile())) {
+                results[candidate.index()] = candidate.result(Status.DUPLICATE, null, ErrorMessages.MOBILE_ALREADY_REGISTERED);
+            } else {
+                fresh.add(candidate);
+            }
+        }
+        return fresh;
+    }
+
+    private void insert(List<Candidate> candidates, List<String> hashes, BulkRegisterRowResult[] results) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        var now = Timestamp.from(Instant.now());
+        var inserted = new ArrayList<Candidate>(candidates.size());
+
+        for (int from = 0; from < candidates.size(); from += INSERT_BATCH_SIZE) {
+            int to = Math.min(from + INSERT_BATCH_SIZE, candidates.size());
+            List<Candidate> batch = candidates.subList(from, to);
+            List<String> batchHashes = hashes.subList(from, to);
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Candidate candidate = batch.get(i);
+                    ps.setString(1, candidate.firstName());
+                    ps.setString(2, candidate.lastName());
+                    ps.setString(3, candidate.email());
+                    ps.setString(4, candidate.mobile());
+                    ps.setString(5, batchHashes.get(i));
+                    ps.setTimestamp(6, now);
+                    ps.setArray(7, ps.getConnection().createArrayOf("text",
+                            LoginIdentifiers.mobileVariants(candidate.mobile()).toArray()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                Candidate candidate = batch.get(i);
+                if (counts[i] == 0) {
+                    // Lost a race with a signup that took the email or mobile meanwhile
+                    results[candidate.index()] = candidate.result(Status.DUPLICATE, null,
+                            "An account with this email or mobile number is already registered.");
+                } else {
+                    inserted.add(candidate);
+                }
+            }
+        }
+
+        if (inserted.isEmpty()) {
+            return;
+        }
+        Map<String, Long> idsByEmail = new HashMap<>();
+        String[] emails = inserted.stream().map(Candidate::email).toArray(String[]::new);
+        jdbcTemplate.query(IDS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", emails)),
+                rs -> {
+                    idsByEmail.put(rs.getString(2), rs.getLong(1));
+                });
+        for (Candidate candidate : inserted) {
+            results[candidate.index()] = candidate.result(Status.CREATED, idsByEmail.get(candidate.email()), null);
+        }
+    }
+
+    private static String field(List<String> record, Integer column) {
+        return column != null && column < record.size() ? record.get(column).trim() : null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Minimal RFC 4180 parser: comma separated, double-quoted fields may contain commas,
+     * line breaks and doubled quotes. Blank lines are skipped.
+     */
+    static List<List<String>> parseCsv(String csv) {
+        var records = new ArrayList<List<String>>();
+        var record = new ArrayList<String>();
+        var field = new StringBuilder();
+        boolean quoted = false;
+        int start = csv.startsWith("\uFEFF") ? 1 : 0;
+
+        for (int i = start; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                endRecord(records, record, field);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        endRecord(records, record, field);
+        return records;
+    }
+
+    private static void endRecord(List<List<String>> records, List<String> record, StringBuilder field) {
+        record.add(field.toString());
+        field.setLength(0);
+        if (record.size() > 1 || !record.get(0).isBlank()) {
+            records.add(record);
+        }
+    }
+
+    private record Candidate(int index, String firstName, String lastName, String email, String mobile, String password) {
+
+        BulkRegisterRowResult result(Status status, Long userId, String message) {
+            return new BulkRegisterRowResult(index + 1, status, userId, email, mobile, message);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.maths.teacher.catalog.service;
+
+import com.maths.teacher.catalog.web.dto.VideoResponse;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory, per-course snapshot of the student video list.
+ *
+ * Every course has a version number that is bumped whenever admin code changes its
+ * videos or PDFs. A snapshot is only stored if the version it was built from is still
+ * current, so a read that raced with an admin write can never re-insert stale content.
+ *
+ * Versions also back the HTTP ETags of the catalog endpoints. They live in memory and
+ * restart from 0, so every ETag is prefixed with the startup time of this instance.
+ */
+@Component
+public class CourseContentCache {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong courseListVersion = new AtomicLong();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached video list for a course, building it with the loader on a miss.
+     */
+    public Snapshot get(Long courseId, Supplier<List<VideoResponse>> loader) {
+        long version = version(courseId);
+        Snapshot cached = snapshots.get(courseId);
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+
+        Snapshot built = new Snapshot(version, List.copyOf(loader.get()));
+        snapshots.compute(courseId, (id, existing) -> version(id) == version ? built : existing);
+        return built;
+    }
+
+    /**
+     * Returns cached video lists for several courses. All misses are handed to the loader
+     * in one call, so a cold library costs one batch of queries instead of one per course.
+     * Courses the loader returns nothing for are cached as having no videos.
+     */
+    public Map<Long, Snapshot> getAll(
+            Collection<Long> courseIds,
+            Function<List<Long>, Map<Long, List<VideoResponse>>> loader
+    ) {
+        Map<Long, Snapshot> result = new HashMap<>();
+        Map<Long, Long> missVersions = new HashMap<>();
+        for (Long courseId : courseIds) {
+            long version = version(courseId);
+            Snapshot cached = snapshots.get(courseId);
+            if (cached != null && cached.version() == version) {
+                result.put(courseId, cached);
+            } else {
+                missVersions.put(courseId, version);
+            }
+        }
+        if (missVersions.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<VideoResponse>> loaded = loader.apply(List.copyOf(missVersions.keySet()));
+        missVersions.forEach((courseId, version) -> {
+            Snapshot built = new Snapshot(version, List.copyOf(loaded.getOrDefault(courseId, List.of())));
+            snapshots.compute(courseId, (id, existing) -> version(id) == version ? built : existing);
+            result.put(courseId, built);
+        });
+        return result;
+    }
+
+    /**
+     * Current content version of a course. Starts at 0 and only ever increases.
+     */
+    public long version(Long courseId) {
+        return versions.getOrDefault(courseId, 0L);
+    }
+
+    /**
+     * Version of course metadata (title, price, thumbnail, active flag) across all courses.
+     */
+    public long courseListVersion() {
+        return courseListVersion.get();
+    }
+
+    /**
+     * Strong ETag for the video list of a course.
+     */
+    public String videosETag(Long courseId) {
+        return "\"c" + courseId + "-" + epoch + "-" + version(courseId) + "\"";
+    }
+
+    /**
+     * Strong ETag for the public course listing.
+     */
+    public String courseListETag() {
+        return "\"courses-" + epoch + "-" + courseListVersion() + "\"";
+    }
+
+    /**
+     * Strong ETag for a course listing filtered by a set of purchased courses.
+     * The fingerprint identifies the set, so users with the same purchases share an ETag.
+     */
+    public String courseListETag(long purchasesFingerprint) {
+        return "\"courses-" + epoch + "-" + courseListVersion() + "-" + Long.toHexString(purchasesFingerprint) + "\"";
+    }
+
+    /**
+     * Drops the snapshot for a course. When called inside a transaction the eviction is
+     * deferred until after commit, so readers cannot rebuild from uncommitted state.
+     */
+    public void invalidate(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        afterCompletion(() -> {
+            versions.merge(courseId, 1L, Long::sum);
+            snapshots.remove(courseId);
+        });
+    }
+
+    /**
+     * Marks course metadata as changed, so listing ETags stop matching.
+     */
+    public void invalidateCourseList() {
+        afterCompletion(courseListVersion::incrementAndGet);
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Immutable video list for one course, tagged with the version it was built from.
+     */
+    public record Snapshot(long version, List<VideoResponse> videos) {}
+}
@@ -3,7 +3,14 @@ package com.maths.teacher.catalog.service;
 import com.maths.teacher.catalog.exception.ErrorMessages;
 import com.maths.teacher.catalog.repository.VideoPdfRepository;
 import com.maths.teacher.catalog.web.dto.PdfDownloadResponse;
+import com.maths.teacher.catalog.web.dto.PdfDownloadUrlResponse;
+import com.maths.teacher.catalog.web.dto.PdfResponse;
+import com.maths.teacher.security.VideoAccessService;
 import com.maths.teacher.storage.S3PresignedUrlService;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -13,24 +20,63 @@ public class PdfDownloadService {
 
     private final VideoPdfRepository videoPdfRepository;
     private final S3PresignedUrlService presignedUrlService;
+    private final VideoAccessService videoAccessService;
+    private final VideoCatalogService videoCatalogService;
 
     public PdfDownloadService(
             VideoPdfRepository videoPdfRepository,
-            S3PresignedUrlService presignedUrlService
+            S3PresignedUrlService presignedUrlService,
+            VideoAccessService videoAccessService,
+            VideoCatalogService videoCatalogService
     ) {
         this.videoPdfRepository = videoPdfRepository;
         this.presignedUrlService = presignedUrlService;
+        this.videoAccessService = videoAccessService;
+        this.videoCatalogService = videoCatalogService;
     }
 
     /**
-     * Returns a presigned download URL for the given PDF. No authorization required;
-     * all users may download PDFs tagged to a video.
+     * Returns a presigned download URL for the given PDF.
+     * The user must have purchased the course the PDF's video belongs to.
      */
-    public PdfDownloadResponse getDownloadUrl(Long videoId, Long pdfId) {
+    public PdfDownloadResponse getDownloadUrl(Long videoId, Long pdfId, Long userId) {
         var pdf = videoPdfRepository.findByIdAndVideo_Id(pdfId, videoId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.PDF_NOT_FOUND));
+        if (!videoAccessService.hasCourseAccess(userId, pdf.getVideo().getCourseId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, ErrorMessages.COURSE_NOT_PURCHASED);
+        }
 
         var presigned = presignedUrlService.createPresignedDownloadUrl(pdf.getFileUrl());
         return new PdfDownloadResponse(presigned.url(), presigned.expiresInSeconds());
     }
+
+    /**
+     * Returns presigned download URLs for the PDFs of a purchased course, optionally
+     * limited to the given PDF IDs. PDFs come from the course content snapshot, which is
+     * built with one IN query on a miss, and all URLs are signed in one pass.
+     */
+    public List<PdfDownloadUrlResponse> getCourseDownloadUrls(Long courseId, Collection<Long> pdfIds, Long userId) {
+        record Entry(Long videoId, PdfResponse pdf) {}
+
+        Set<Long> wanted = pdfIds == null ? Set.of() : Set.copyOf(pdfIds);
+        List<Entry> entries = videoCatalogService.getVideosByCourse(courseId, userId).stream()
+                .flatMap(video -> video.getPdfs().stream().map(pdf -> new Entry(video.getId(), pdf)))
+                .filter(entry -> wanted.isEmpty() || wanted.contains(entry.pdf().getId()))
+                .toList();
+
+        Map<String, S3PresignedUrlService.PresignedUrlResult> signed = presignedUrlService.createPresignedDownloadUrls(
+                entries.stream().map(entry -> entry.pdf().getFileUrl()).toList());
+
+        return entries.stream()
+                .map(entry -> {
+                    var presigned = signed.get(entry.pdf().getFileUrl());
+                    return new PdfDownloadUrlResponse(
+                            entry.videoId(),
+                            entry.pdf().getId(),
+                            presigned.url(),
+                            presigned.expiresInSeconds()
+                    );
+                })
+                .toList();
+    }
 }
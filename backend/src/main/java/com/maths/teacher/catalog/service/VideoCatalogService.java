@@ -1,13 +1,21 @@
 package com.maths.teacher.catalog.service;
 
 import com.maths.teacher.catalog.domain.Video;
+import com.maths.teacher.catalog.exception.ErrorMessages;
 import com.maths.teacher.catalog.repository.VideoPdfRepository;
 import com.maths.teacher.catalog.repository.VideoRepository;
+import com.maths.teacher.catalog.web.dto.LibraryCourseResponse;
+import com.maths.teacher.catalog.web.dto.LibraryResponse;
 import com.maths.teacher.catalog.web.dto.PdfResponse;
 import com.maths.teacher.catalog.web.dto.VideoResponse;
+import com.maths.teacher.payment.domain.Course;
+import com.maths.teacher.payment.repository.CourseRepository;
 import com.maths.teacher.payment.repository.PurchaseRepository;
+import com.maths.teacher.security.VideoAccessService;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,23 +30,85 @@ public class VideoCatalogService {
 
     private final VideoRepository videoRepository;
     private final VideoPdfRepository videoPdfRepository;
+    private final VideoAccessService videoAccessService;
+    private final CourseContentCache courseContentCache;
+    private final CourseRepository courseRepository;
     private final PurchaseRepository purchaseRepository;
 
     public VideoCatalogService(
             VideoRepository videoRepository,
             VideoPdfRepository videoPdfRepository,
+            VideoAccessService videoAccessService,
+            CourseContentCache courseContentCache,
+            CourseRepository courseRepository,
             PurchaseRepository purchaseRepository
     ) {
         this.videoRepository = videoRepository;
         this.videoPdfRepository = videoPdfRepository;
+        this.videoAccessService = videoAccessService;
+        this.courseContentCache = courseContentCache;
+        this.courseRepository = courseRepository;
         this.purchaseRepository = purchaseRepository;
     }
 
     public List<VideoResponse> getVideosByCourse(Long courseId, Long userId) {
         logger.info("Fetching videos for course {} by user {}", courseId, userId);
-        if (!purchaseRepository.existsByUserIdAndCourseId(userId, courseId)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You have not purchased this course.");
+        requireCourseAccess(courseId, userId);
+        return courseContentCache.get(courseId, () -> loadVideos(courseId)).videos();
+    }
+
+    /**
+     * Returns the current ETag of a course's video list without touching the database.
+     * Access is checked first so the ETag never leaks to users who did not purchase.
+     */
+    public String getVideosETag(Long courseId, Long userId) {
+        requireCourseAccess(courseId, userId);
+        return courseContentCache.videosETag(courseId);
+    }
+
+    /**
+     * Returns every purchased course with its videos and PDFs in one response, in purchase
+     * order like {@code /api/user/courses}. Costs at most one query per table: the user's
+     * purchases, courses by ID, then videos and PDFs for all courses whose snapshot is not
+     * already cached.
+     */
+    public LibraryResponse getLibrary(Long userId) {
+        List<Long> courseIds = purchaseRepository.findCourseIdsByUserId(userId);
+        logger.info("Fetching library of {} courses for user {}", courseIds.size(), userId);
+        if (courseIds.isEmpty()) {
+            return new LibraryResponse(List.of());
+        }
+
+        Map<Long, Course> coursesById = courseRepository.findAllById(courseIds).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        List<Course> courses = courseIds.stream()
+                .map(coursesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        var snapshots = courseContentCache.getAll(
+                courses.stream().map(Course::getId).toList(),
+                this::loadVideosByCourse
+        );
+
+        return new LibraryResponse(courses.stream()
+                .map(course -> new LibraryCourseResponse(
+                        course.getId(),
+                        course.getTitle(),
+                        course.getDescription(),
+                        course.getThumbnailUrl(),
+                        snapshots.get(course.getId()).videos()
+                ))
+                .toList());
+    }
+
+    private void requireCourseAccess(Long courseId, Long userId) {
+        if (!videoAccessService.hasCourseAccess(userId, courseId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, ErrorMessages.COURSE_NOT_PURCHASED);
         }
+    }
+
+    private List<VideoResponse> loadVideos(Long courseId) {
+        logger.info("Building content snapshot for course {}", courseId);
         var videos = videoRepository.findByCourseIdOrderByDisplayOrderAsc(courseId);
         var pdfsByVideoId = loadPdfsByVideoId(videos);
 
@@ -47,6 +117,21 @@ public class VideoCatalogService {
                 .toList();
     }
 
+    private Map<Long, List<VideoResponse>> loadVideosByCourse(List<Long> courseIds) {
+        logger.info("Building content snapshots for courses {}", courseIds);
+        var videos = videoRepository.findByCourseIdInOrderByCourseIdAscDisplayOrderAsc(courseIds);
+        var pdfsByVideoId = loadPdfsByVideoId(videos);
+
+        return videos.stream()
+                .collect(Collectors.groupingBy(
+                        Video::getCourseId,
+                        Collectors.mapping(
+                                video -> toVideoResponse(video, pdfsByVideoId),
+                                Collectors.toList()
+                        )
+                ));
+    }
+
     private Map<Long, List<PdfResponse>> loadPdfsByVideoId(List<Video> videos) {
         var videoIds = videos.stream()
                 .map(Video::getId)
@@ -67,7 +152,7 @@ public class VideoCatalogService {
                                         pdf.getFileUrl(),
                                         pdf.getDisplayOrder()
                                 ),
-                                Collectors.toList()
+                                Collectors.toUnmodifiableList()
                         )
                 ));
     }
@@ -2,15 +2,21 @@ package com.maths.teacher.catalog.web;
 
 import com.maths.teacher.catalog.service.PdfDownloadService;
 import com.maths.teacher.catalog.service.VideoCatalogService;
+import com.maths.teacher.catalog.web.dto.LibraryResponse;
 import com.maths.teacher.catalog.web.dto.PdfDownloadResponse;
+import com.maths.teacher.catalog.web.dto.PdfDownloadUrlResponse;
 import com.maths.teacher.catalog.web.dto.VideoResponse;
 import com.maths.teacher.security.AuthService;
 import java.util.List;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api")
@@ -33,25 +39,58 @@ public class VideoCatalogController {
     /**
      * Returns all videos for a purchased course.
      * JWT required — user must have purchased this course to access its videos.
+     * Supports If-None-Match: unchanged content returns 304 without loading the videos.
      */
     @GetMapping("/courses/{courseId}/videos")
-    public List<VideoResponse> getVideosByCourse(
+    public ResponseEntity<List<VideoResponse>> getVideosByCourse(
             @PathVariable Long courseId,
-            @RequestHeader("Authorization") String authHeader
+            @RequestHeader("Authorization") String authHeader,
+            WebRequest webRequest
     ) {
         Long userId = Long.parseLong(authService.requireUserId(authHeader));
-        return videoCatalogService.getVideosByCourse(courseId, userId);
+        if (webRequest.checkNotModified(videoCatalogService.getVideosETag(courseId, userId))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(videoCatalogService.getVideosByCourse(courseId, userId));
+    }
+
+    /**
+     * Returns all purchased courses with their videos and PDFs in one response.
+     * JWT required. Replaces fetching /user/courses and then each course's videos.
+     */
+    @GetMapping("/user/library")
+    public LibraryResponse getLibrary(@RequestHeader("Authorization") String authHeader) {
+        Long userId = Long.parseLong(authService.requireUserId(authHeader));
+        return videoCatalogService.getLibrary(userId);
     }
 
     /**
      * Returns a presigned S3 URL for downloading a PDF.
-     * Can be called with or without JWT (optional access control).
+     * JWT required — user must have purchased the course the PDF belongs to.
      */
     @GetMapping("/videos/{videoId}/pdfs/{pdfId}/download")
     public PdfDownloadResponse downloadPdf(
             @PathVariable Long videoId,
-            @PathVariable Long pdfId
+            @PathVariable Long pdfId,
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        Long userId = Long.parseLong(authService.requireUserId(authHeader));
+        return pdfDownloadService.getDownloadUrl(videoId, pdfId, userId);
+    }
+
+    /**
+     * Returns presigned S3 URLs for all PDFs of a purchased course in one call.
+     * Pass pdfIds to limit the result to specific PDFs of that course.
+     */
+    @GetMapping("/courses/{courseId}/pdfs/download-urls")
+    public List<PdfDownloadUrlResponse> getCourseDownloadUrls(
+            @PathVariable Long courseId,
+            @RequestParam(required = false) List<Long> pdfIds,
+            @RequestHeader("Authorization") String authHeader
     ) {
-        return pdfDownloadService.getDownloadUrl(videoId, pdfId);
+        Long userId = Long.parseLong(authService.requireUserId(authHeader));
+        return pdfDownloadService.getCourseDownloadUrls(courseId, pdfIds, userId);
     }
 }
@@ -3,11 +3,14 @@ package com.maths.teacher.catalog.web.admin;
 import com.maths.teacher.catalog.service.AdminCourseService;
 import com.maths.teacher.catalog.service.AdminService;
 import com.maths.teacher.catalog.web.dto.AdminCourseResponse;
+import com.maths.teacher.catalog.web.dto.CompleteUploadRequest;
 import com.maths.teacher.catalog.web.dto.CreateCourseRequest;
+import com.maths.teacher.catalog.web.dto.StartUploadRequest;
 import com.maths.teacher.catalog.web.dto.StudentResponse;
 import com.maths.teacher.catalog.web.dto.TagStudentRequest;
 import com.maths.teacher.catalog.web.dto.UpdateCourseRequest;
 import com.maths.teacher.catalog.web.dto.VideoResponse;
+import com.maths.teacher.storage.S3UploadSessionService.UploadSession;
 import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -114,6 +117,36 @@ public class AdminCourseController {
         return adminCourseService.updateCourse(courseId, request, null);
     }
 
+    /**
+     * Starts a direct-to-S3 thumbnail upload. The browser PUTs the image to the returned URL.
+     *
+     * @param courseId course ID
+     * @param request  image content type and size
+     * @return presigned upload session
+     */
+    @PostMapping("/{courseId}/thumbnail/uploads")
+    public UploadSession startThumbnailUpload(
+            @PathVariable Long courseId,
+            @RequestBody StartUploadRequest request
+    ) {
+        return adminCourseService.startThumbnailUpload(courseId, request);
+    }
+
+    /**
+     * Sets the course thumbnail to an image uploaded directly to S3.
+     *
+     * @param courseId course ID
+     * @param request  key (and multipart details) from the upload session
+     * @return updated course
+     */
+    @PostMapping("/{courseId}/thumbnail/uploads/complete")
+    public AdminCourseResponse completeThumbnailUpload(
+            @PathVariable Long courseId,
+            @RequestBody CompleteUploadRequest request
+    ) {
+        return adminCourseService.completeThumbnailUpload(courseId, request);
+    }
+
     /**
      * Deletes (soft delete) a course.
      *
@@ -0,0 +1,37 @@
+package com.maths.teacher.catalog.web.admin;
+
+import com.maths.teacher.payment.service.PaymentReconciler;
+import com.maths.teacher.payment.service.PaymentReconciler.ReconciliationReport;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin API endpoints for payment maintenance.
+ * All endpoints require ADMIN role.
+ */
+@RestController
+@RequestMapping("/api/admin/payments")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminPaymentController {
+
+    private final PaymentReconciler paymentReconciler;
+
+    public AdminPaymentController(PaymentReconciler paymentReconciler) {
+        this.paymentReconciler = paymentReconciler;
+    }
+
+    /**
+     * Checks unsettled orders against Razorpay, as the scheduled job does.
+     * Dry run by default; pass dryRun=false to create missing purchases and expire orders.
+     *
+     * @param dryRun only report, do not write (default: true)
+     * @return how many orders were checked and what was done with them
+     */
+    @PostMapping("/reconcile")
+    public ReconciliationReport reconcile(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return paymentReconciler.run(dryRun);
+    }
+}
@@ -1,13 +1,17 @@
 package com.maths.teacher.catalog.web.admin;
 
 import com.maths.teacher.catalog.service.AdminPdfService;
+import com.maths.teacher.catalog.web.dto.CompletePdfUploadRequest;
 import com.maths.teacher.catalog.web.dto.PdfResponse;
+import com.maths.teacher.catalog.web.dto.StartUploadRequest;
+import com.maths.teacher.storage.S3UploadSessionService.UploadSession;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -37,6 +41,32 @@ public class AdminPdfController {
         return adminService.addPdf(videoId, title, pdfType, displayOrder, file);
     }
 
+    /**
+     * Starts a direct-to-S3 upload. Returns presigned URLs the browser PUTs the file to.
+     */
+    @PostMapping("/uploads")
+    public UploadSession startPdfUpload(@PathVariable Long videoId, @RequestBody StartUploadRequest request) {
+        return adminService.startPdfUpload(videoId, request);
+    }
+
+    /**
+     * Records a PDF whose bytes were uploaded directly to S3.
+     */
+    @PostMapping("/uploads/complete")
+    @ResponseStatus(HttpStatus.CREATED)
+    public PdfResponse completePdfUpload(@PathVariable Long videoId, @RequestBody CompletePdfUploadRequest request) {
+        return adminService.completePdfUpload(videoId, request);
+    }
+
+    @DeleteMapping("/uploads")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void abortPdfUpload(
+            @PathVariable Long videoId,
+            @RequestParam String key
+    ) {
+        adminService.abortPdfUpload(videoId, key);
+    }
+
     @PutMapping("/{pdfId}")
     public PdfResponse updatePdf(
             @PathVariable Long videoId,
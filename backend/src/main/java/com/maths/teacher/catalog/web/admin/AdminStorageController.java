@@ -0,0 +1,37 @@
+package com.maths.teacher.catalog.web.admin;
+
+import com.maths.teacher.storage.StorageGarbageCollector;
+import com.maths.teacher.storage.StorageGarbageCollector.GcReport;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin API endpoints for storage maintenance.
+ * All endpoints require ADMIN role.
+ */
+@RestController
+@RequestMapping("/api/admin/storage")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminStorageController {
+
+    private final StorageGarbageCollector storageGarbageCollector;
+
+    public AdminStorageController(StorageGarbageCollector storageGarbageCollector) {
+        this.storageGarbageCollector = storageGarbageCollector;
+    }
+
+    /**
+     * Finds storage objects no course or PDF references any more.
+     * Dry run by default; pass dryRun=false to queue the orphans for deletion.
+     *
+     * @param dryRun only report, do not delete (default: true)
+     * @return counts and a sample of orphaned keys
+     */
+    @PostMapping("/gc")
+    public GcReport collectGarbage(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return storageGarbageCollector.run(dryRun);
+    }
+}
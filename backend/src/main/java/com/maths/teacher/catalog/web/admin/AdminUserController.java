@@ -1,11 +1,17 @@
 package com.maths.teacher.catalog.web.admin;
 
 import com.maths.teacher.catalog.service.AdminUserService;
+import com.maths.teacher.catalog.service.BulkStudentRegistrationService;
+import com.maths.teacher.catalog.web.dto.BulkRegisterResponse;
 import com.maths.teacher.catalog.web.dto.RegisterStudentRequest;
+import com.maths.teacher.catalog.web.dto.UserSearchPageResponse;
 import com.maths.teacher.catalog.web.dto.UserSearchResponse;
+import java.util.List;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -23,9 +29,14 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminUserController {
 
     private final AdminUserService adminUserService;
+    private final BulkStudentRegistrationService bulkStudentRegistrationService;
 
-    public AdminUserController(AdminUserService adminUserService) {
+    public AdminUserController(
+            AdminUserService adminUserService,
+            BulkStudentRegistrationService bulkStudentRegistrationService
+    ) {
         this.adminUserService = adminUserService;
+        this.bulkStudentRegistrationService = bulkStudentRegistrationService;
     }
 
     /**
@@ -38,6 +49,24 @@ public class AdminUserController {
         return adminUserService.registerStudent(request);
     }
 
+    /**
+     * Registers many students at once from a JSON array. Each row is reported as CREATED,
+     * DUPLICATE or INVALID; rows that fail do not affect the others.
+     */
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkRegisterResponse registerStudents(@RequestBody List<RegisterStudentRequest> requests) {
+        return bulkStudentRegistrationService.register(requests);
+    }
+
+    /**
+     * Registers many students at once from a CSV file with a header row
+     * (firstName,lastName,mobileNumber,email,password).
+     */
+    @PostMapping(path = "/bulk", consumes = "text/csv")
+    public BulkRegisterResponse registerStudentsCsv(@RequestBody String csv) {
+        return bulkStudentRegistrationService.registerCsv(csv);
+    }
+
     /**
      * Looks up a registered user by mobile number or email.
      *
@@ -47,4 +76,29 @@ public class AdminUserController {
     public UserSearchResponse searchUser(@RequestParam String q) {
         return adminUserService.searchUser(q);
     }
+
+    /**
+     * Searches users by partial name, email or mobile number, tolerating small typos.
+     *
+     * @param q at least 3 characters
+     * @param cursor {@code nextCursor} from the previous page, omitted for the first page
+     * @param limit page size, 20 by default and at most 100
+     */
+    @GetMapping("/search")
+    public UserSearchPageResponse searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return adminUserService.searchUsers(q, cursor, limit);
+    }
+
+    /**
+     * Signs a user out everywhere ("kick"). Takes effect on the user's next request.
+     */
+    @PostMapping("/{userId}/revoke-sessions")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void revokeSessions(@PathVariable Long userId) {
+        adminUserService.revokeSessions(userId);
+    }
 }
@@ -0,0 +1,27 @@
+package com.maths.teacher.catalog.web.dto;
+
+import java.util.List;
+
+public class BulkRegisterResponse {
+
+    private final int created;
+    private final int duplicates;
+    private final int invalid;
+    private final List<BulkRegisterRowResult> results;
+
+    public BulkRegisterResponse(List<BulkRegisterRowResult> results) {
+        this.results = results;
+        this.created = count(results, BulkRegisterRowResult.Status.CREATED);
+        this.duplicates = count(results, BulkRegisterRowResult.Status.DUPLICATE);
+        this.invalid = count(results, BulkRegisterRowResult.Status.INVALID);
+    }
+
+    private static int count(List<BulkRegisterRowResult> results, BulkRegisterRowResult.Status status) {
+        return (int) results.stream().filter(result -> result.getStatus() == status).count();
+    }
+
+    public int getCreated() { return created; }
+    public int getDuplicates() { return duplicates; }
+    public int getInvalid() { return invalid; }
+    public List<BulkRegisterRowResult> getResults() { return results; }
+}
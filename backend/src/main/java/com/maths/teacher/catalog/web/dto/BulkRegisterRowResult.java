@@ -0,0 +1,29 @@
+package com.maths.teacher.catalog.web.dto;
+
+public class BulkRegisterRowResult {
+
+    public enum Status { CREATED, DUPLICATE, INVALID }
+
+    private final int row;
+    private final Status status;
+    private final Long userId;
+    private final String email;
+    private final String mobileNumber;
+    private final String message;
+
+    public BulkRegisterRowResult(int row, Status status, Long userId, String email, String mobileNumber, String message) {
+        this.row = row;
+        this.status = status;
+        this.userId = userId;
+        this.email = email;
+        this.mobileNumber = mobileNumber;
+        this.message = message;
+    }
+
+    public int getRow() { return row; }
+    public Status getStatus() { return status; }
+    public Long getUserId() { return userId; }
+    public String getEmail() { return email; }
+    public String getMobileNumber() { return mobileNumber; }
+    public String getMessage() { return message; }
+}
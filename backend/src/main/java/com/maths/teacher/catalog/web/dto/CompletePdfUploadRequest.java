@@ -0,0 +1,17 @@
+package com.maths.teacher.catalog.web.dto;
+
+/**
+ * Finishes a direct-to-S3 PDF upload and records the PDF against its video.
+ */
+public class CompletePdfUploadRequest extends CompleteUploadRequest {
+
+    private String title;
+    private String pdfType;
+    private Integer displayOrder;
+
+    public CompletePdfUploadRequest() {}
+
+    public String getTitle() { return title; }
+    public String getPdfType() { return pdfType; }
+    public Integer getDisplayOrder() { return displayOrder; }
+}
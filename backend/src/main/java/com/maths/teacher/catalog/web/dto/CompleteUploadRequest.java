@@ -0,0 +1,19 @@
+package com.maths.teacher.catalog.web.dto;
+
+import com.maths.teacher.storage.S3UploadSessionService.UploadedPart;
+import java.util.List;
+
+/**
+ * Request to finish a direct-to-S3 upload. {@code parts} is only needed when the upload
+ * session was a multipart upload; its upload ID is looked up from the key.
+ */
+public class CompleteUploadRequest {
+
+    private String key;
+    private List<UploadedPart> parts;
+
+    public CompleteUploadRequest() {}
+
+    public String getKey() { return key; }
+    public List<UploadedPart> getParts() { return parts; }
+}
@@ -0,0 +1,46 @@
+package com.maths.teacher.catalog.web.dto;
+
+import java.util.List;
+
+public class LibraryCourseResponse {
+
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final String thumbnailUrl;
+    private final List<VideoResponse> videos;
+
+    public LibraryCourseResponse(
+            Long id,
+            String title,
+            String description,
+            String thumbnailUrl,
+            List<VideoResponse> videos
+    ) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.thumbnailUrl = thumbnailUrl;
+        this.videos = videos;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public List<VideoResponse> getVideos() {
+        return videos;
+    }
+}
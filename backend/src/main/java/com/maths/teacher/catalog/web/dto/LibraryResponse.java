@@ -0,0 +1,16 @@
+package com.maths.teacher.catalog.web.dto;
+
+import java.util.List;
+
+public class LibraryResponse {
+
+    private final List<LibraryCourseResponse> courses;
+
+    public LibraryResponse(List<LibraryCourseResponse> courses) {
+        this.courses = courses;
+    }
+
+    public List<LibraryCourseResponse> getCourses() {
+        return courses;
+    }
+}
@@ -0,0 +1,32 @@
+package com.maths.teacher.catalog.web.dto;
+
+public class PdfDownloadUrlResponse {
+
+    private final Long videoId;
+    private final Long pdfId;
+    private final String url;
+    private final Integer expiresInSeconds;
+
+    public PdfDownloadUrlResponse(Long videoId, Long pdfId, String url, Integer expiresInSeconds) {
+        this.videoId = videoId;
+        this.pdfId = pdfId;
+        this.url = url;
+        this.expiresInSeconds = expiresInSeconds;
+    }
+
+    public Long getVideoId() {
+        return videoId;
+    }
+
+    public Long getPdfId() {
+        return pdfId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Integer getExpiresInSeconds() {
+        return expiresInSeconds;
+    }
+}
@@ -10,6 +10,14 @@ public class RegisterStudentRequest {
 
     public RegisterStudentRequest() {}
 
+    public RegisterStudentRequest(String firstName, String lastName, String mobileNumber, String email, String password) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.mobileNumber = mobileNumber;
+        this.email = email;
+        this.password = password;
+    }
+
     public String getFirstName() { return firstName; }
     public String getLastName() { return lastName; }
     public String getMobileNumber() { return mobileNumber; }
@@ -0,0 +1,15 @@
+package com.maths.teacher.catalog.web.dto;
+
+/**
+ * Request to start a direct-to-S3 upload: the file's content type and size in bytes.
+ */
+public class StartUploadRequest {
+
+    private String contentType;
+    private Long size;
+
+    public StartUploadRequest() {}
+
+    public String getContentType() { return contentType; }
+    public Long getSize() { return size; }
+}
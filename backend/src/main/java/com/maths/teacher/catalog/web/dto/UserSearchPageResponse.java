@@ -0,0 +1,26 @@
+package com.maths.teacher.catalog.web.dto;
+
+import java.util.List;
+
+/**
+ * One page of admin user search results. {@code nextCursor} is null on the last page;
+ * otherwise it is passed back unchanged to fetch the next page. {@code truncated} means the
+ * term matched more users than a search ranks: only this page is returned and the term
+ * should be narrowed.
+ */
+public class UserSearchPageResponse {
+
+    private final List<UserSearchResponse> users;
+    private final String nextCursor;
+    private final boolean truncated;
+
+    public UserSearchPageResponse(List<UserSearchResponse> users, String nextCursor, boolean truncated) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+        this.truncated = truncated;
+    }
+
+    public List<UserSearchResponse> getUsers() { return users; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isTruncated() { return truncated; }
+}
@@ -0,0 +1,314 @@
+package com.maths.teacher.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maths.teacher.auth.web.ErrorResponse;
+import com.maths.teacher.idempotency.IdempotencyStore.Claim;
+import com.maths.teacher.idempotency.IdempotencyStore.StoredResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Honours the Idempotency-Key header on authenticated POST, PUT, PATCH and DELETE requests.
+ *
+ * The first request with a key runs normally and its status and body are stored. Duplicates
+ * arriving while it runs wait for it; later ones get the stored response with an
+ * Idempotent-Replayed header, without reaching the controller. Keys are scoped to the user,
+ * method and path. Reusing a key for a different request (other query, content type, length
+ * or, for bodies small enough to hash, content) gets 422. Server errors and auth failures are
+ * not stored, so a retry runs again.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    /** Statuses that depend on the caller's state at the time, not on the request. */
+    private static final Set<Integer> NOT_STORED = Set.of(401, 403, 408, 429);
+    private static final StoredResponse WAIT_TIMED_OUT = new StoredResponse(0, null, new byte[0]);
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyFilter(
+            IdempotencyStore store,
+            IdempotencyProperties properties,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.store = store;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !METHODS.contains(request.getMethod())
+                || !StringUtils.hasText(request.getHeader(IDEMPOTENCY_KEY_HEADER));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String userId = currentUserId();
+        if (userId == null) {
+            // Anonymous requests have no scope to store a key under; let security reject them.
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must be at most 255 characters.");
+            return;
+        }
+
+        String scopedKey = userId + ":" + request.getMethod() + ":" + request.getRequestURI() + ":" + key;
+        HttpServletRequest cached = cacheBody(request);
+        String fingerprint = fingerprint(cached);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getWaitTimeoutSeconds());
+        while (true) {
+            Claim claim = store.claim(scopedKey, fingerprint);
+            switch (claim.outcome()) {
+                case EXECUTE -> {
+                    count("executed");
+                    execute(cached, response, filterChain, scopedKey);
+                    return;
+                }
+                case REPLAY -> {
+                    count("replayed");
+                    replay(response, claim.response());
+                    return;
+                }
+                case MISMATCH -> {
+                    count("mismatch");
+                    writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                            "Idempotency-Key was already used for a different request.");
+                    return;
+                }
+                case WAIT -> {
+                    StoredResponse stored = await(claim, deadline);
+                    if (stored == WAIT_TIMED_OUT) {
+                        count("timeout");
+                        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                        writeError(response, HttpStatus.CONFLICT,
+                                "A request with this Idempotency-Key is still in progress.");
+                        return;
+                    }
+                    if (stored != null) {
+                        count("replayed");
+                        replay(response, stored);
+                        return;
+                    }
+                    // The original was not stored (e.g. it failed); claim the key again.
+                }
+            }
+        }
+    }
+
+    private void execute(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain,
+            String scopedKey
+    ) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            int status = wrapper.getStatus();
+            byte[] body = wrapper.getContentAsByteArray();
+            if (isStorable(status, body)) {
+                store.complete(scopedKey, new StoredResponse(status, wrapper.getContentType(), body));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.abandon(scopedKey);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Errors sent with sendError get their body from the error page after this filter
+     * returns, so a 4xx is only stored when the body was written here.
+     */
+    private boolean isStorable(int status, byte[] body) {
+        if (status >= 500 || NOT_STORED.contains(status) || body.length > properties.getMaxBodyBytes()) {
+            return false;
+        }
+        return status < 400 || body.length > 0;
+    }
+
+    private StoredResponse await(Claim claim, long deadline) throws ServletException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return WAIT_TIMED_OUT;
+        }
+        try {
+            return claim.pending().get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            return WAIT_TIMED_OUT;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while waiting for an idempotent request", ex);
+        } catch (ExecutionException ex) {
+            return null;
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message));
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("idempotency.requests", "result", result).increment();
+    }
+
+    private static String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Reads the body into memory when it is hashed into the fingerprint: a declared length of
+     * at most max-body-bytes, and neither multipart (uploads stay streamed) nor a form, whose
+     * body the container reads for request parameters. Other requests are returned as they are.
+     */
+    private HttpServletRequest cacheBody(HttpServletRequest request) throws IOException {
+        long length = request.getContentLengthLong();
+        if (length < 0 || length > properties.getMaxBodyBytes()
+                || isContentType(request, MediaType.MULTIPART_FORM_DATA)
+                || isContentType(request, MediaType.APPLICATION_FORM_URLENCODED)) {
+            return request;
+        }
+        return new CachedBodyRequest(request, request.getInputStream().readNBytes((int) length));
+    }
+
+    private static boolean isContentType(HttpServletRequest request, MediaType type) {
+        try {
+            return request.getContentType() != null && type.includes(MediaType.parseMediaType(request.getContentType()));
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Bodies that were not read (see {@link #cacheBody}) are represented by content type and
+     * length only, which catches a key reused for a different upload in practice.
+     */
+    private static String fingerprint(HttpServletRequest request) {
+        String body = request instanceof CachedBodyRequest cached
+                ? IdempotencyStore.hash(cached.body)
+                : "unread";
+        return IdempotencyStore.hash(String.join("\n",
+                request.getMethod(),
+                request.getRequestURI(),
+                String.valueOf(request.getQueryString()),
+                String.valueOf(request.getContentType()),
+                String.valueOf(request.getContentLengthLong()),
+                body));
+    }
+
+    /** Serves a body that was read up front to everything downstream. */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            var in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Cached request body is read synchronously");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.maths.teacher.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+    /** How long a stored response is replayed for the same key. */
+    private long ttlHours = 24;
+    /** Completed responses kept in memory before the least recently used spill to the database. */
+    private int maxEntries = 10_000;
+    private long maxMemoryBytes = 32L * 1024 * 1024;
+    /** Responses larger than this are not stored in memory at all but written straight to the database. */
+    private int maxMemoryEntryBytes = 64 * 1024;
+    /**
+     * Responses larger than this are not stored; a retry runs the request again. Request bodies
+     * up to this size are hashed into the fingerprint.
+     */
+    private int maxBodyBytes = 1024 * 1024;
+    /** How long a duplicate waits for the in-flight original before getting 409. */
+    private long waitTimeoutSeconds = 30;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTtlHours() {
+        return ttlHours;
+    }
+
+    public void setTtlHours(long ttlHours) {
+        this.ttlHours = ttlHours;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxMemoryBytes() {
+        return maxMemoryBytes;
+    }
+
+    public void setMaxMemoryBytes(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    public int getMaxMemoryEntryBytes() {
+        return maxMemoryEntryBytes;
+    }
+
+    public void setMaxMemoryEntryBytes(int maxMemoryEntryBytes) {
+        this.maxMemoryEntryBytes = maxMemoryEntryBytes;
+    }
+
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public void setMaxBodyBytes(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public long getWaitTimeoutSeconds() {
+        return waitTimeoutSeconds;
+    }
+
+    public void setWaitTimeoutSeconds(long waitTimeoutSeconds) {
+        this.waitTimeoutSeconds = waitTimeoutSeconds;
+    }
+}
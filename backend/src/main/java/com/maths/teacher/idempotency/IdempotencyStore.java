@@ -0,0 +1,307 @@
+package com.maths.teacher.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the first response sent for each idempotency key.
+ *
+ * Entries live in an LRU map bounded by count and bytes. In-flight entries hold a future
+ * that duplicates wait on. Completed entries pushed out of memory, responses too large to
+ * keep in memory, and everything still held at shutdown are spilled to the
+ * idempotency_keys table, which is consulted on a memory miss. An entry leaving memory keeps
+ * answering claims until its row is written, so a duplicate never finds the key in neither
+ * place. Expired entries are purged from both. Only the SHA-256 of each key is written to the
+ * database.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final String SELECT_SQL = """
+            SELECT fingerprint, status_code, content_type, body FROM idempotency_keys
+            WHERE key_hash = ? AND expires_at > NOW()
+            """;
+    private static final String INSERT_SQL = """
+            INSERT INTO idempotency_keys (key_hash, fingerprint, status_code, content_type, body, expires_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (key_hash) DO NOTHING
+            """;
+
+    public record StoredResponse(int status, String contentType, byte[] body) {}
+
+    /** What the caller should do with a request carrying a given key. */
+    public enum Outcome {
+        /** First request with this key: run it, then call complete() or abandon(). */
+        EXECUTE,
+        /** Another request with this key is running; wait on {@link Claim#pending()}. */
+        WAIT,
+        /** A response is stored; replay {@link Claim#response()}. */
+        REPLAY,
+        /** The key was used for a different request. */
+        MISMATCH
+    }
+
+    public record Claim(Outcome outcome, CompletableFuture<StoredResponse> pending, StoredResponse response) {}
+
+    private final IdempotencyProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    /** Entries removed from {@link #entries} whose spill has not finished; guarded by this. */
+    private final Map<String, Entry> spilling = new HashMap<>();
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter spilled;
+    private long bytes;
+
+    public IdempotencyStore(IdempotencyProperties properties, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.memoryHits = meterRegistry.counter("idempotency.lookups", "result", "memory");
+        this.databaseHits = meterRegistry.counter("idempotency.lookups", "result", "database");
+        this.spilled = meterRegistry.counter("idempotency.spilled");
+        meterRegistry.gauge("idempotency.memory.entries", this, store -> store.size());
+        meterRegistry.gauge("idempotency.memory.bytes", this, store -> store.memoryBytes());
+    }
+
+    public Claim claim(String key, String fingerprint) {
+        Claim claim = claimFromMemory(key, fingerprint);
+        if (claim != null) {
+            memoryHits.increment();
+            return claim;
+        }
+
+        var spilledResponse = loadSpilled(key);
+        if (spilledResponse != null) {
+            databaseHits.increment();
+            return spilledResponse.fingerprint().equals(fingerprint)
+                    ? new Claim(Outcome.REPLAY, null, spilledResponse.response())
+                    : new Claim(Outcome.MISMATCH, null, null);
+        }
+
+        synchronized (this) {
+            // Another thread may have claimed the key while the database was read.
+            claim = claimFromMemory(key, fingerprint);
+            if (claim != null) {
+                return claim;
+            }
+            var entry = new Entry(fingerprint, new CompletableFuture<>(), expiry());
+            entries.put(key, entry);
+            return new Claim(Outcome.EXECUTE, entry.pending, null);
+        }
+    }
+
+    /** Stores the response of an EXECUTE claim and releases everyone waiting on it. */
+    public void complete(String key, StoredResponse response) {
+        Entry entry;
+        List<Map.Entry<String, Entry>> toSpill;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.response != null) {
+                return;
+            }
+            entry.response = response;
+            if (response.body().length > properties.getMaxMemoryEntryBytes()) {
+                entries.remove(key);
+                spilling.put(key, entry);
+                toSpill = List.of(Map.entry(key, entry));
+            } else {
+                bytes += entry.size();
+                toSpill = evict();
+            }
+        }
+        entry.pending.complete(response);
+        toSpill.forEach(spill -> spill(spill.getKey(), spill.getValue()));
+    }
+
+    /**
+     * Forgets an EXECUTE claim whose response should not be replayed (server errors,
+     * oversized bodies). Waiting duplicates get null and may claim the key themselves.
+     */
+    public void abandon(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.response != null) {
+                return;
+            }
+            entries.remove(key);
+        }
+        entry.pending.complete(null);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        synchronized (this) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.response != null && entry.expired(now)) {
+                    bytes -= entry.size();
+                    it.remove();
+                }
+            }
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < NOW()");
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void spillAll() {
+        List<Map.Entry<String, Entry>> completed;
+        synchronized (this) {
+            completed = entries.entrySet().stream()
+                    .filter(e -> e.getValue().response != null && !e.getValue().expired(Instant.now()))
+                    .map(e -> Map.entry(e.getKey(), e.getValue()))
+                    .toList();
+        }
+        completed.forEach(e -> spill(e.getKey(), e.getValue()));
+    }
+
+    private Claim claimFromMemory(String key, String fingerprint) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.response != null && entry.expired(Instant.now())) {
+                bytes -= entry.size();
+                entries.remove(key);
+                return null;
+            }
+            if (entry == null) {
+                entry = spilling.get(key);
+                if (entry == null) {
+                    return null;
+                }
+            }
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return new Claim(Outcome.MISMATCH, null, null);
+            }
+            return entry.response != null
+                    ? new Claim(Outcome.REPLAY, null, entry.response)
+                    : new Claim(Outcome.WAIT, entry.pending, null);
+        }
+    }
+
+    /**
+     * Moves least recently used completed entries from memory to {@link #spilling} until within
+     * bounds. Caller holds the lock and spills the returned entries after releasing it.
+     */
+    private List<Map.Entry<String, Entry>> evict() {
+        List<Map.Entry<String, Entry>> evicted = new ArrayList<>();
+        Instant now = Instant.now();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > properties.getMaxEntries() || bytes > properties.getMaxMemoryBytes()) && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            Entry entry = eldest.getValue();
+            if (entry.response == null) {
+                continue; // in flight: never evicted
+            }
+            bytes -= entry.size();
+            it.remove();
+            if (!entry.expired(now)) {
+                spilling.put(eldest.getKey(), entry);
+                evicted.add(Map.entry(eldest.getKey(), entry));
+            }
+        }
+        return evicted;
+    }
+
+    private void spill(String key, Entry entry) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, hash(key), entry.fingerprint, entry.response.status(),
+                    entry.response.contentType(), entry.response.body(), Timestamp.from(entry.expiresAt));
+            spilled.increment();
+        } catch (RuntimeException ex) {
+            logger.warn("Could not spill idempotency key to the database: {}", ex.getMessage());
+        } finally {
+            synchronized (this) {
+                spilling.remove(key, entry);
+            }
+        }
+    }
+
+    private Spilled loadSpilled(String key) {
+        try {
+            return jdbcTemplate.query(SELECT_SQL, rs -> rs.next()
+                    ? new Spilled(rs.getString("fingerprint"), new StoredResponse(
+                            rs.getInt("status_code"), rs.getString("content_type"), rs.getBytes("body")))
+                    : null, hash(key));
+        } catch (RuntimeException ex) {
+            // Without the spill table the request simply runs as if the key were new.
+            logger.warn("Could not read idempotency key from the database: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private Instant expiry() {
+        return Instant.now().plus(Duration.ofHours(properties.getTtlHours()));
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized long memoryBytes() {
+        return bytes;
+    }
+
+    static String hash(String value) {
+        return hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String hash(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private record Spilled(String fingerprint, StoredResponse response) {}
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> pending;
+        private final Instant expiresAt;
+        private StoredResponse response;
+
+        private Entry(String fingerprint, CompletableFuture<StoredResponse> pending, Instant expiresAt) {
+            this.fingerprint = fingerprint;
+            this.pending = pending;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean expired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+
+        private long size() {
+            // body plus a rough allowance for the key, fingerprint and object overhead
+            return (response != null ? response.body().length : 0) + 256L;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.maths.teacher.payment.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.razorpay.reconciliation")
+public class PaymentReconciliationProperties {
+
+    private boolean enabled = true;
+    /** Orders younger than this are left to the client's verify call and the webhook. */
+    private long minAgeMinutes = 15;
+    /** CREATED orders with no captured payment are marked EXPIRED after this long. */
+    private long expireAfterHours = 24;
+    /** Orders older than this are no longer looked at. */
+    private int lookbackDays = 30;
+    private int batchSize = 100;
+    /** Provider calls in flight at once. */
+    private int parallelism = 4;
+    /** Upper bound on provider calls per second across all threads. */
+    private double requestsPerSecond = 5;
+    private int maxOrdersPerRun = 2000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getMinAgeMinutes() { return minAgeMinutes; }
+    public void setMinAgeMinutes(long minAgeMinutes) { this.minAgeMinutes = minAgeMinutes; }
+
+    public long getExpireAfterHours() { return expireAfterHours; }
+    public void setExpireAfterHours(long expireAfterHours) { this.expireAfterHours = expireAfterHours; }
+
+    public int getLookbackDays() { return lookbackDays; }
+    public void setLookbackDays(int lookbackDays) { this.lookbackDays = lookbackDays; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+    public double getRequestsPerSecond() { return requestsPerSecond; }
+    public void setRequestsPerSecond(double requestsPerSecond) { this.requestsPerSecond = requestsPerSecond; }
+
+    public int getMaxOrdersPerRun() { return maxOrdersPerRun; }
+    public void setMaxOrdersPerRun(int maxOrdersPerRun) { this.maxOrdersPerRun = maxOrdersPerRun; }
+}
@@ -0,0 +1,45 @@
+package com.maths.teacher.payment.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.razorpay.webhook")
+public class PaymentWebhookProperties {
+
+    /** Webhook secret set in the Razorpay dashboard; the endpoint is disabled while blank. */
+    private String secret;
+    private int workers = 4;
+    private int queueCapacity = 2000;
+    private long leaseSeconds = 120;
+    private int maxAttempts = 8;
+    private long initialBackoffSeconds = 15;
+    private long maxBackoffSeconds = 3600;
+    private int sweepBatchSize = 500;
+    private int retentionDays = 30;
+
+    public String getSecret() { return secret; }
+    public void setSecret(String secret) { this.secret = secret; }
+
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+    public long getLeaseSeconds() { return leaseSeconds; }
+    public void setLeaseSeconds(long leaseSeconds) { this.leaseSeconds = leaseSeconds; }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+    public long getInitialBackoffSeconds() { return initialBackoffSeconds; }
+    public void setInitialBackoffSeconds(long initialBackoffSeconds) { this.initialBackoffSeconds = initialBackoffSeconds; }
+
+    public long getMaxBackoffSeconds() { return maxBackoffSeconds; }
+    public void setMaxBackoffSeconds(long maxBackoffSeconds) { this.maxBackoffSeconds = maxBackoffSeconds; }
+
+    public int getSweepBatchSize() { return sweepBatchSize; }
+    public void setSweepBatchSize(int sweepBatchSize) { this.sweepBatchSize = sweepBatchSize; }
+
+    public int getRetentionDays() { return retentionDays; }
+    public void setRetentionDays(int retentionDays) { this.retentionDays = retentionDays; }
+}
@@ -8,6 +8,16 @@ public class RazorpayProperties {
     private String keyId;
     private String keySecret;
     private String currency = "INR";
+    /** Razorpay REST API root; point it at a local stub for load tests. */
+    private String apiBaseUrl = "https://api.razorpay.com";
+    private long connectTimeoutMs = 2000;
+    private long readTimeoutMs = 5000;
+    /** Consecutive failed calls that open the circuit breaker. */
+    private int breakerFailureThreshold = 5;
+    /** How long the breaker stays open before one trial call is let through. */
+    private long breakerOpenSeconds = 30;
+    /** Unpaid orders younger than this are handed out again instead of creating a new one. */
+    private long orderReuseMinutes = 30;
 
     public String getKeyId() { return keyId; }
     public void setKeyId(String keyId) { this.keyId = keyId; }
@@ -17,4 +27,22 @@ public class RazorpayProperties {
 
     public String getCurrency() { return currency; }
     public void setCurrency(String currency) { this.currency = currency; }
+
+    public String getApiBaseUrl() { return apiBaseUrl; }
+    public void setApiBaseUrl(String apiBaseUrl) { this.apiBaseUrl = apiBaseUrl; }
+
+    public long getConnectTimeoutMs() { return connectTimeoutMs; }
+    public void setConnectTimeoutMs(long connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+
+    public long getReadTimeoutMs() { return readTimeoutMs; }
+    public void setReadTimeoutMs(long readTimeoutMs) { this.readTimeoutMs = readTimeoutMs; }
+
+    public int getBreakerFailureThreshold() { return breakerFailureThreshold; }
+    public void setBreakerFailureThreshold(int breakerFailureThreshold) { this.breakerFailureThreshold = breakerFailureThreshold; }
+
+    public long getBreakerOpenSeconds() { return breakerOpenSeconds; }
+    public void setBreakerOpenSeconds(long breakerOpenSeconds) { this.breakerOpenSeconds = breakerOpenSeconds; }
+
+    public long getOrderReuseMinutes() { return orderReuseMinutes; }
+    public void setOrderReuseMinutes(long orderReuseMinutes) { this.orderReuseMinutes = orderReuseMinutes; }
 }
@@ -20,7 +20,11 @@ import java.time.Instant;
 )
 public class PaymentOrder {
 
-    public enum Status { CREATED, PAID, FAILED }
+    /**
+     * EXPIRED: never paid; set by the reconciler so the order is not reused or checked again.
+     * REFUND_REQUIRED: paid for a course the user already owned, so no purchase was created.
+     */
+    public enum Status { CREATED, PAID, FAILED, EXPIRED, REFUND_REQUIRED }
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,70 @@
+package com.maths.teacher.payment.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A Razorpay webhook delivery, stored verbatim before it is processed. {@code eventId} is
+ * Razorpay's event ID, so redeliveries of the same event collapse onto one row.
+ */
+@Entity
+@Table(
+        name = "payment_webhook_events",
+        indexes = @Index(name = "idx_payment_webhook_events_received_at", columnList = "received_at")
+)
+public class PaymentWebhookEvent {
+
+    public enum Status { PENDING, PROCESSED, IGNORED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, unique = true, length = 100)
+    private String eventId;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private Instant receivedAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    protected PaymentWebhookEvent() {
+        // for JPA
+    }
+
+    public Long getId() { return id; }
+    public String getEventId() { return eventId; }
+    public String getEventType() { return eventType; }
+    public String getPayload() { return payload; }
+    public String getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public String getLastError() { return lastError; }
+    public Instant getReceivedAt() { return receivedAt; }
+    public Instant getProcessedAt() { return processedAt; }
+}
@@ -1,10 +1,20 @@
 package com.maths.teacher.payment.repository;
 
 import com.maths.teacher.payment.domain.PaymentOrder;
+import java.time.Instant;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface PaymentOrderRepository extends JpaRepository<PaymentOrder, Long> {
 
     Optional<PaymentOrder> findByRazorpayOrderId(String razorpayOrderId);
+
+    /** Latest unpaid order for the same course and price, served by idx_payment_orders_pending. */
+    Optional<PaymentOrder> findFirstByUserIdAndCourseIdAndStatusAndAmountPaiseAndCurrencyAndCreatedAtAfterOrderByCreatedAtDesc(
+            Long userId, Long courseId, String status, int amountPaise, String currency, Instant createdAfter);
+
+    default Optional<PaymentOrder> findReusable(Long userId, Long courseId, int amountPaise, String currency, Instant createdAfter) {
+        return findFirstByUserIdAndCourseIdAndStatusAndAmountPaiseAndCurrencyAndCreatedAtAfterOrderByCreatedAtDesc(
+                userId, courseId, PaymentOrder.Status.CREATED.name(), amountPaise, currency, createdAfter);
+    }
 }
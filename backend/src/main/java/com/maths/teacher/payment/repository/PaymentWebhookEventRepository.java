@@ -0,0 +1,93 @@
+package com.maths.teacher.payment.repository;
+
+import com.maths.teacher.payment.domain.PaymentWebhookEvent;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+
+    /**
+     * Stores the event unless one with the same event ID exists. Returns the new row's ID,
+     * or empty for a duplicate delivery.
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO payment_webhook_events (event_id, event_type, payload)
+            VALUES (:eventId, :eventType, :payload)
+            ON CONFLICT (event_id) DO NOTHING
+            RETURNING id
+            """, nativeQuery = true)
+    Optional<Long> insertIfAbsent(
+            @Param("eventId") String eventId,
+            @Param("eventType") String eventType,
+            @Param("payload") String payload);
+
+    /**
+     * Claims one pending event for processing, pushing its next attempt out by the lease.
+     * Empty if another worker holds it or it is no longer pending.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE payment_webhook_events
+               SET attempts = attempts + 1,
+                   next_attempt_at = NOW() + make_interval(secs => :leaseSeconds)
+             WHERE id = (SELECT id FROM payment_webhook_events
+                          WHERE id = :id AND status = 'PENDING' AND next_attempt_at <= NOW()
+                          FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<PaymentWebhookEvent> claim(@Param("id") long id, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Claims up to {@code limit} due events, oldest first. Used by the sweeper to pick up
+     * events whose hand-off to the worker pool was lost or rejected.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE payment_webhook_events
+               SET attempts = attempts + 1,
+                   next_attempt_at = NOW() + make_interval(secs => :leaseSeconds)
+             WHERE id IN (SELECT id FROM payment_webhook_events
+                           WHERE status = 'PENDING' AND next_attempt_at <= NOW()
+                           ORDER BY next_attempt_at
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<PaymentWebhookEvent> claimDue(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE payment_webhook_events
+               SET status = :status, processed_at = NOW(), last_error = :error
+             WHERE id = :id
+            """, nativeQuery = true)
+    int finish(@Param("id") long id, @Param("status") String status, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE payment_webhook_events
+               SET next_attempt_at = NOW() + make_interval(secs => :delaySeconds), last_error = :error
+             WHERE id = :id
+            """, nativeQuery = true)
+    int reschedule(@Param("id") long id, @Param("delaySeconds") long delaySeconds, @Param("error") String error);
+
+    /** Deletes settled events older than the retention period, a batch at a time. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM payment_webhook_events
+             WHERE id IN (SELECT id FROM payment_webhook_events
+                           WHERE status <> 'PENDING'
+                             AND received_at < NOW() - make_interval(days => :retentionDays)
+                           LIMIT :limit)
+            """, nativeQuery = true)
+    int purgeSettled(@Param("retentionDays") int retentionDays, @Param("limit") int limit);
+}
@@ -3,7 +3,10 @@ package com.maths.teacher.payment.repository;
 import com.maths.teacher.payment.domain.Purchase;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
 
@@ -13,6 +16,12 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
 
     List<Purchase> findByUserId(Long userId);
 
+    /** Course IDs in purchase order. */
+    @Query("SELECT p.courseId FROM Purchase p WHERE p.userId = :userId ORDER BY p.id")
+    List<Long> findCourseIdsByUserId(@Param("userId") Long userId);
+
+    /** Loads each purchase's user in the same query; the relation is lazy. */
+    @EntityGraph(attributePaths = "user")
     List<Purchase> findByCourseId(Long courseId);
 
     long countByCourseId(Long courseId);
@@ -0,0 +1,63 @@
+package com.maths.teacher.payment.service;
+
+/**
+ * Minimal consecutive-failure circuit breaker.
+ *
+ * CLOSED lets every call through. {@code failureThreshold} failures in a row open it, and
+ * while OPEN calls are refused without touching the network. After {@code openMillis} a
+ * single trial call is allowed (HALF_OPEN): success closes the breaker, failure re-opens it.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(1, openMillis);
+    }
+
+    /** Returns true if the caller may make the call; it must then report the result. */
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /** Seconds until a trial call will be allowed; 0 when not open. */
+    synchronized long retryAfterSeconds() {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        long remaining = openMillis - (System.currentTimeMillis() - openedAt);
+        return Math.max(1, (remaining + 999) / 1000);
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
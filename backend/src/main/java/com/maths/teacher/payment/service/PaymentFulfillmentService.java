@@ -0,0 +1,171 @@
+package com.maths.teacher.payment.service;
+
+import com.maths.teacher.security.EntitlementIndex;
+import java.sql.Types;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Applies a payment to our records: the order is marked PAID and the purchase is created.
+ * Used by both the client's verify call and the Razorpay webhook. Every call is idempotent,
+ * so they and redeliveries can run in any order.
+ *
+ * The whole write is one statement: the order row is locked, the purchase inserted with
+ * ON CONFLICT DO NOTHING and the order status set from the result, without loading any
+ * entities. The unique keys on purchases (order, payment, user and course) decide what
+ * already exists. A payment for a course the user already owns through another order
+ * creates no purchase and leaves the order REFUND_REQUIRED, so it is settled and kept out
+ * of checkout and reconciliation while support refunds it.
+ */
+@Service
+public class PaymentFulfillmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentFulfillmentService.class);
+
+    /*
+     * Data-modifying CTEs all run against the same snapshot, so existing_payment_id is the
+     * purchase that existed before this statement and the status update learns whether the
+     * insert happened only through its RETURNING rows. NULL arguments skip that check. An
+     * order that is already PAID keeps its status: the conflict was with its own purchase.
+     */
+    private static final String FULFIL_SQL = """
+            WITH target AS (
+                SELECT id, user_id, course_id, amount_paise, currency
+                FROM payment_orders
+                WHERE razorpay_order_id = ?
+                FOR UPDATE
+            ), eligible AS (
+                SELECT * FROM target
+                WHERE user_id = COALESCE(?, user_id)
+                  AND amount_paise = COALESCE(?, amount_paise)
+                  AND UPPER(currency) = UPPER(COALESCE(?, currency))
+            ), inserted AS (
+                INSERT INTO purchases (user_id, course_id, razorpay_order_id, razorpay_payment_id,
+                                       amount_paise, currency, purchased_at)
+                SELECT user_id, course_id, ?, ?, amount_paise, currency, NOW() FROM eligible
+                ON CONFLICT DO NOTHING
+                RETURNING id
+            ), settled AS (
+                UPDATE payment_orders o
+                SET status = CASE WHEN EXISTS (SELECT 1 FROM inserted) THEN 'PAID' ELSE 'REFUND_REQUIRED' END
+                FROM eligible e
+                WHERE o.id = e.id AND o.status <> 'PAID'
+                RETURNING o.id
+            )
+            SELECT t.user_id, t.course_id,
+                   EXISTS (SELECT 1 FROM eligible) AS eligible,
+                   EXISTS (SELECT 1 FROM inserted) AS inserted,
+                   (SELECT razorpay_payment_id FROM purchases WHERE razorpay_order_id = ?) AS existing_payment_id
+            FROM target t
+            """;
+
+    private static final String PAYMENT_FOR_ORDER_SQL =
+            "SELECT razorpay_payment_id FROM purchases WHERE razorpay_order_id = ?";
+
+    public enum Outcome {
+        /** Order marked PAID and purchase created. */
+        FULFILLED,
+        /** The purchase already existed for this payment. */
+        ALREADY_FULFILLED,
+        /** The order was already fulfilled by a different payment; this one needs a refund. */
+        PAID_BY_OTHER_PAYMENT,
+        /**
+         * Paid, but the user already owns the course through another order. The order is
+         * marked REFUND_REQUIRED; no purchase is created.
+         */
+        COURSE_ALREADY_OWNED,
+        /** No order with this Razorpay order ID. */
+        ORDER_NOT_FOUND,
+        /** The order belongs to another user. Nothing was changed. */
+        WRONG_USER,
+        /** Amount or currency differ from the order. Nothing was changed. */
+        AMOUNT_MISMATCH
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntitlementIndex entitlementIndex;
+
+    public PaymentFulfillmentService(JdbcTemplate jdbcTemplate, EntitlementIndex entitlementIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entitlementIndex = entitlementIndex;
+    }
+
+    /**
+     * Records a captured payment reported by the webhook. {@code amountPaise} and
+     * {@code currency} are what Razorpay reports; they must match the order.
+     */
+    @Transactional
+    public Outcome recordCaptured(String razorpayOrderId, String razorpayPaymentId, long amountPaise, String currency) {
+        return fulfil(razorpayOrderId, razorpayPaymentId, null, amountPaise, currency);
+    }
+
+    /**
+     * Records a payment whose checkout signature the client sent. The signature binds the
+     * payment to the order, so only the owner is checked.
+     */
+    @Transactional
+    public Outcome recordVerified(Long userId, String razorpayOrderId, String razorpayPaymentId) {
+        return fulfil(razorpayOrderId, razorpayPaymentId, userId, null, null);
+    }
+
+    private Outcome fulfil(String razorpayOrderId, String razorpayPaymentId, Long userId, Long amountPaise, String currency) {
+        var row = jdbcTemplate.query(FULFIL_SQL, rs -> rs.next()
+                        ? new Row(rs.getLong("user_id"), rs.getLong("course_id"), rs.getBoolean("eligible"),
+                                rs.getBoolean("inserted"), rs.getString("existing_payment_id"))
+                        : null,
+                razorpayOrderId,
+                new SqlParameterValue(Types.BIGINT, userId),
+                new SqlParameterValue(Types.BIGINT, amountPaise),
+                new SqlParameterValue(Types.VARCHAR, currency),
+                razorpayOrderId,
+                razorpayPaymentId,
+                razorpayOrderId);
+
+        if (row == null) {
+            return Outcome.ORDER_NOT_FOUND;
+        }
+        if (!row.eligible()) {
+            if (userId != null && userId != row.userId()) {
+                logger.error("Order {} belongs to userId={}, but was verified by userId={}",
+                        razorpayOrderId, row.userId(), userId);
+                return Outcome.WRONG_USER;
+            }
+            logger.error("Payment {} for order {} reports {} {}, which does not match the order",
+                    razorpayPaymentId, razorpayOrderId, amountPaise, currency);
+            return Outcome.AMOUNT_MISMATCH;
+        }
+        if (row.inserted()) {
+            entitlementIndex.grant(row.userId(), row.courseId());
+            logger.info("Recorded purchase from payment {}: userId={}, courseId={}",
+                    razorpayPaymentId, row.userId(), row.courseId());
+            return Outcome.FULFILLED;
+        }
+
+        String existingPaymentId = row.existingPaymentId();
+        if (existingPaymentId == null) {
+            // A purchase committed while this statement waited for the order lock is not in its
+            // snapshot; this read is the only extra round trip and only happens on that race
+            // or when the course is already owned.
+            existingPaymentId = jdbcTemplate.query(PAYMENT_FOR_ORDER_SQL,
+                    rs -> rs.next() ? rs.getString(1) : null, razorpayOrderId);
+        }
+        if (existingPaymentId == null) {
+            logger.error("User {} paid order {} (payment {}) for course {} they already own; order marked REFUND_REQUIRED",
+                    row.userId(), razorpayOrderId, razorpayPaymentId, row.courseId());
+            return Outcome.COURSE_ALREADY_OWNED;
+        }
+        if (!Objects.equals(existingPaymentId, razorpayPaymentId)) {
+            logger.error("Order {} already fulfilled by payment {}; payment {} needs a refund",
+                    razorpayOrderId, existingPaymentId, razorpayPaymentId);
+            return Outcome.PAID_BY_OTHER_PAYMENT;
+        }
+        return Outcome.ALREADY_FULFILLED;
+    }
+
+    private record Row(long userId, long courseId, boolean eligible, boolean inserted, String existingPaymentId) {}
+}
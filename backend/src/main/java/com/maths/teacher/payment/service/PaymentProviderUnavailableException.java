@@ -0,0 +1,25 @@
+package com.maths.teacher.payment.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown while the Razorpay circuit breaker is open. Maps to 503 with a Retry-After header.
+ */
+public class PaymentProviderUnavailableException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public PaymentProviderUnavailableException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Payments are temporarily unavailable. Please try again shortly.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,326 @@
+package com.maths.teacher.payment.service;
+
+import com.maths.teacher.payment.config.PaymentReconciliationProperties;
+import com.maths.teacher.payment.domain.PaymentOrder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Repairs orders the client's verify call and the webhook did not settle.
+ *
+ * Pages by keyset on (created_at, id) through orders from the lookback window that are
+ * still CREATED, or PAID without a purchase. Each one is looked up at Razorpay, in
+ * parallel but paced to {@code requests-per-second}. A captured payment is recorded
+ * through {@link PaymentFulfillmentService}, exactly as the webhook would. A CREATED order
+ * with no payment in progress is marked EXPIRED once it is old enough, so it is neither
+ * reused for checkout nor checked again; REFUND_REQUIRED orders are not selected either.
+ * A session advisory lock keeps instances from running at the same time; no transaction
+ * is held across provider calls.
+ */
+@Service
+public class PaymentReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciler.class);
+    private static final long ADVISORY_LOCK_ID = 0x5041595245434EL; // "PAYRECN"
+
+    // Served by idx_payment_orders_created_at; the purchase lookup uses the unique order ID.
+    // A payment for a course the user already owned leaves its order REFUND_REQUIRED rather
+    // than PAID without a purchase, so the PAID branch only finds orders needing repair.
+    private static final String CANDIDATES_SQL = """
+            SELECT o.id, o.razorpay_order_id, o.status, o.created_at
+            FROM payment_orders o
+            WHERE (o.created_at, o.id) > (?, ?)
+              AND o.created_at < ?
+              AND (o.status = 'CREATED'
+                   OR (o.status = 'PAID' AND NOT EXISTS (
+                           SELECT 1 FROM purchases p WHERE p.razorpay_order_id = o.razorpay_order_id)))
+            ORDER BY o.created_at, o.id
+            LIMIT ?
+            """;
+
+    private static final String EXPIRE_SQL =
+            "UPDATE payment_orders SET status = 'EXPIRED' WHERE id = ? AND status = 'CREATED'";
+
+    public enum Result {
+        /** A captured payment was found and the purchase created. */
+        FULFILLED,
+        /** Marked EXPIRED: old enough and never paid. */
+        EXPIRED,
+        /** Settled in the meantime by verify or the webhook. */
+        ALREADY_FULFILLED,
+        /** Not paid yet, or a payment is still being processed; checked again next run. */
+        PENDING,
+        /**
+         * Paid but cannot be fulfilled (e.g. double payment, or a course already owned, which
+         * marks the order REFUND_REQUIRED); needs a refund or a person.
+         */
+        NEEDS_ATTENTION,
+        /** The provider lookup failed; checked again next run. */
+        ERROR
+    }
+
+    private final RazorpayGateway razorpayGateway;
+    private final PaymentFulfillmentService fulfillmentService;
+    private final PaymentReconciliationProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor lookups;
+    private final Timer runTimer;
+
+    public PaymentReconciler(
+            RazorpayGateway razorpayGateway,
+            PaymentFulfillmentService fulfillmentService,
+            PaymentReconciliationProperties properties,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.razorpayGateway = razorpayGateway;
+        this.fulfillmentService = fulfillmentService;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+
+        int threads = Math.max(1, properties.getParallelism());
+        var threadCount = new AtomicInteger();
+        this.lookups = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getBatchSize())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-reconcile-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.runTimer = meterRegistry.timer("payment.reconciliation.runs");
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.razorpay.reconciliation.initial-delay-ms:120000}",
+            fixedDelayString = "${app.razorpay.reconciliation.interval-ms:900000}"
+    )
+    public void scheduledRun() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            var report = run(false);
+            logger.info("Payment reconciliation finished: {}", report);
+        } catch (ResponseStatusException ex) {
+            logger.info("Payment reconciliation skipped: {}", ex.getReason());
+        }
+    }
+
+    /**
+     * Runs one reconciliation pass. In dry-run mode orders are looked up at Razorpay but
+     * nothing is written; the report counts what would have been done.
+     */
+    public ReconciliationReport run(boolean dryRun) {
+        // The lock is held on one pooled connection for the run; the work itself uses others.
+        return jdbcTemplate.execute((ConnectionCallback<ReconciliationReport>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                lock.setLong(1, ADVISORY_LOCK_ID);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Payment reconciliation is already running");
+                    }
+                }
+            }
+            try {
+                return runTimer.record(() -> reconcile(dryRun));
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, ADVISORY_LOCK_ID);
+                    unlock.execute();
+                }
+            }
+        });
+    }
+
+    private ReconciliationReport reconcile(boolean dryRun) {
+        Instant startedAt = Instant.now();
+        Instant youngest = startedAt.minus(Duration.ofMinutes(properties.getMinAgeMinutes()));
+        Instant expireBefore = startedAt.minus(Duration.ofHours(properties.getExpireAfterHours()));
+        var cursorCreatedAt = Timestamp.from(startedAt.minus(Duration.ofDays(properties.getLookbackDays())));
+        long cursorId = 0;
+
+        var pacer = new RequestPacer(properties.getRequestsPerSecond());
+        var providerDown = new AtomicBoolean();
+        var tally = new EnumMap<Result, AtomicInteger>(Result.class);
+        for (Result result : Result.values()) {
+            tally.put(result, new AtomicInteger());
+        }
+
+        int batchSize = Math.max(1, properties.getBatchSize());
+        int checked = 0;
+        while (checked < properties.getMaxOrdersPerRun() && !providerDown.get()) {
+            int limit = Math.min(batchSize, properties.getMaxOrdersPerRun() - checked);
+            List<Candidate> page = jdbcTemplate.query(CANDIDATES_SQL,
+                    (rs, rowNum) -> new Candidate(rs.getLong("id"), rs.getString("razorpay_order_id"),
+                            rs.getString("status"), rs.getTimestamp("created_at")),
+                    cursorCreatedAt, cursorId, Timestamp.from(youngest), limit);
+            if (page.isEmpty()) {
+                break;
+            }
+            Candidate last = page.get(page.size() - 1);
+            cursorCreatedAt = last.createdAt();
+            cursorId = last.id();
+            checked += page.size();
+
+            List<Callable<Result>> tasks = new ArrayList<>(page.size());
+            for (Candidate candidate : page) {
+                tasks.add(() -> reconcileOrder(candidate, expireBefore, dryRun, pacer, providerDown));
+            }
+            for (Future<Result> future : invokeAll(tasks)) {
+                Result result = resultOf(future);
+                tally.get(result).incrementAndGet();
+                if (!dryRun) {
+                    meterRegistry.counter("payment.reconciliation.orders", "result", result.name().toLowerCase()).increment();
+                }
+            }
+        }
+
+        Map<Result, Integer> counts = new EnumMap<>(Result.class);
+        tally.forEach((result, count) -> counts.put(result, count.get()));
+        return new ReconciliationReport(dryRun, checked, counts.get(Result.FULFILLED), counts.get(Result.EXPIRED),
+                counts.get(Result.ALREADY_FULFILLED), counts.get(Result.PENDING), counts.get(Result.NEEDS_ATTENTION),
+                counts.get(Result.ERROR), providerDown.get(), startedAt, Instant.now());
+    }
+
+    private Result reconcileOrder(
+            Candidate order,
+            Instant expireBefore,
+            boolean dryRun,
+            RequestPacer pacer,
+            AtomicBoolean providerDown
+    ) {
+        if (providerDown.get()) {
+            return Result.ERROR;
+        }
+        List<RazorpayGateway.Payment> payments;
+        try {
+            pacer.acquire();
+            payments = razorpayGateway.fetchOrderPayments(order.razorpayOrderId());
+        } catch (PaymentProviderUnavailableException ex) {
+            // Breaker is open: stop this run instead of burning through the rest of the page.
+            providerDown.set(true);
+            return Result.ERROR;
+        } catch (ResponseStatusException ex) {
+            return Result.ERROR;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Result.ERROR;
+        }
+
+        var captured = payments.stream().filter(RazorpayGateway.Payment::isCaptured).toList();
+        if (!captured.isEmpty()) {
+            return dryRun ? Result.FULFILLED : recordCaptured(order, captured);
+        }
+        if (PaymentOrder.Status.PAID.name().equals(order.status())) {
+            logger.error("Order {} is PAID without a purchase and Razorpay reports no captured payment",
+                    order.razorpayOrderId());
+            return Result.NEEDS_ATTENTION;
+        }
+        // "created" and "authorized" attempts may still be captured (or auto-refunded) by Razorpay.
+        boolean inProgress = payments.stream().anyMatch(p -> "created".equals(p.status()) || "authorized".equals(p.status()));
+        if (inProgress || order.createdAt().toInstant().isAfter(expireBefore)) {
+            return Result.PENDING;
+        }
+        if (dryRun) {
+            return Result.EXPIRED;
+        }
+        // The status guard skips orders paid since the page was read.
+        return jdbcTemplate.update(EXPIRE_SQL, order.id()) == 1 ? Result.EXPIRED : Result.ALREADY_FULFILLED;
+    }
+
+    /** Records every captured payment; only one can fulfil the order, the rest need refunds. */
+    private Result recordCaptured(Candidate order, List<RazorpayGateway.Payment> captured) {
+        Result result = Result.ALREADY_FULFILLED;
+        for (RazorpayGateway.Payment payment : captured) {
+            var outcome = fulfillmentService.recordCaptured(
+                    order.razorpayOrderId(), payment.id(), payment.amountPaise(), payment.currency());
+            switch (outcome) {
+                case FULFILLED -> {
+                    logger.info("Reconciled order {}: created purchase for payment {}", order.razorpayOrderId(), payment.id());
+                    if (result != Result.NEEDS_ATTENTION) {
+                        result = Result.FULFILLED;
+                    }
+                }
+                case ALREADY_FULFILLED -> {
+                    // settled by verify or the webhook since the page was read
+                }
+                default -> {
+                    logger.error("Reconciling order {}: payment {} is {}", order.razorpayOrderId(), payment.id(), outcome);
+                    result = Result.NEEDS_ATTENTION;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Future<Result>> invokeAll(List<Callable<Result>> tasks) {
+        try {
+            return lookups.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payment reconciliation interrupted");
+        }
+    }
+
+    private static Result resultOf(Future<Result> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            logger.error("Reconciling an order failed: {}", ex.getCause().getMessage(), ex.getCause());
+            return Result.ERROR;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Result.ERROR;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookups.shutdownNow();
+    }
+
+    private record Candidate(long id, String razorpayOrderId, String status, Timestamp createdAt) {}
+
+    public record ReconciliationReport(
+            boolean dryRun,
+            int ordersChecked,
+            int fulfilled,
+            int expired,
+            int alreadyFulfilled,
+            int pending,
+            int needsAttention,
+            int errors,
+            boolean providerUnavailable,
+            Instant startedAt,
+            Instant finishedAt
+    ) {}
+}
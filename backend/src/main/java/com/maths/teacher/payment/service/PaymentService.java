@@ -1,7 +1,6 @@
 package com.maths.teacher.payment.service;
 
-import com.maths.teacher.auth.domain.User;
-import com.maths.teacher.auth.repository.UserRepository;
+import com.maths.teacher.catalog.service.CourseContentCache;
 import com.maths.teacher.payment.config.RazorpayProperties;
 import com.maths.teacher.payment.domain.Course;
 import com.maths.teacher.payment.domain.PaymentOrder;
@@ -14,18 +13,28 @@ import com.maths.teacher.payment.web.CreateOrderResponse;
 import com.maths.teacher.payment.web.PaymentStatusResponse;
 import com.maths.teacher.payment.web.UserCoursesResponse;
 import com.maths.teacher.payment.web.VerifyPaymentResponse;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
+import com.maths.teacher.security.EntitlementIndex;
 import com.razorpay.RazorpayException;
 import com.razorpay.Utils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -33,27 +42,49 @@ public class PaymentService {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
 
-    private final RazorpayClient razorpayClient;
+    private final RazorpayGateway razorpayGateway;
     private final RazorpayProperties razorpayProperties;
     private final CourseRepository courseRepository;
     private final PaymentOrderRepository paymentOrderRepository;
     private final PurchaseRepository purchaseRepository;
-    private final UserRepository userRepository;
+    private final PaymentFulfillmentService fulfillmentService;
+    private final EntitlementIndex entitlementIndex;
+    private final CourseContentCache courseContentCache;
+    private final ConcurrentHashMap<String, CompletableFuture<CreateOrderResponse>> ordersInFlight = new ConcurrentHashMap<>();
+    private final Counter ordersCreated;
+    private final Counter ordersReused;
 
     public PaymentService(
-            RazorpayClient razorpayClient,
+            RazorpayGateway razorpayGateway,
             RazorpayProperties razorpayProperties,
             CourseRepository courseRepository,
             PaymentOrderRepository paymentOrderRepository,
             PurchaseRepository purchaseRepository,
-            UserRepository userRepository
+            PaymentFulfillmentService fulfillmentService,
+            EntitlementIndex entitlementIndex,
+            CourseContentCache courseContentCache,
+            MeterRegistry meterRegistry
     ) {
-        this.razorpayClient = razorpayClient;
+        this.razorpayGateway = razorpayGateway;
         this.razorpayProperties = razorpayProperties;
         this.courseRepository = courseRepository;
         this.paymentOrderRepository = paymentOrderRepository;
         this.purchaseRepository = purchaseRepository;
-        this.userRepository = userRepository;
+        this.fulfillmentService = fulfillmentService;
+        this.entitlementIndex = entitlementIndex;
+        this.courseContentCache = courseContentCache;
+        this.ordersCreated = meterRegistry.counter("payment.orders", "result", "created");
+        this.ordersReused = meterRegistry.counter("payment.orders", "result", "reused");
+    }
+
+    /** ETag of the public course listing, derived from the course metadata version. */
+    public String listCoursesETag() {
+        return courseContentCache.courseListETag();
+    }
+
+    /** ETag of the user's purchased course list, derived from versions only (no DB query). */
+    public String userCoursesETag(Long userId) {
+        return courseContentCache.courseListETag(entitlementIndex.coursesOf(userId).fingerprint());
     }
 
     /** Returns all active courses (public endpoint). */
@@ -64,48 +95,90 @@ public class PaymentService {
     }
 
     /**
-     * Creates a Razorpay order for the given course.
+     * Returns a Razorpay order for the given course.
      * Price comes from the course record — the client cannot influence it.
+     *
+     * An unpaid order for the same course and price created within
+     * {@code order-reuse-minutes} is handed out again, so double taps and returning to
+     * checkout do not create new provider orders. Concurrent requests for the same user and
+     * course share one provider call.
+     *
+     * Deliberately not transactional: the validation reads and the final insert each use a
+     * connection only briefly, and none is held during the Razorpay round trip.
      */
-    @Transactional
     public CreateOrderResponse createOrder(Long userId, Long courseId) {
         Course course = courseRepository.findById(courseId)
                 .filter(Course::isActive)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found."));
 
-        if (purchaseRepository.existsByUserIdAndCourseId(userId, courseId)) {
+        if (entitlementIndex.isEntitled(userId, courseId)) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "You have already purchased this course.");
         }
 
         int amountPaise = course.getPricePaise();
         String currency = course.getCurrency();
+        Instant reuseCutoff = Instant.now().minus(Duration.ofMinutes(razorpayProperties.getOrderReuseMinutes()));
+        var pending = paymentOrderRepository.findReusable(userId, courseId, amountPaise, currency, reuseCutoff);
+        if (pending.isPresent()) {
+            ordersReused.increment();
+            logger.info("Reusing pending Razorpay order {} for user {} course {}",
+                    pending.get().getRazorpayOrderId(), userId, courseId);
+            return toCreateOrderResponse(pending.get());
+        }
 
-        JSONObject orderRequest = new JSONObject();
-        orderRequest.put("amount", amountPaise);
-        orderRequest.put("currency", currency);
-        orderRequest.put("receipt", "rcpt_u" + userId + "_c" + courseId);
-
-        Order razorpayOrder;
+        String key = userId + ":" + courseId;
+        var mine = new CompletableFuture<CreateOrderResponse>();
+        var inFlight = ordersInFlight.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            ordersReused.increment();
+            return awaitOrder(inFlight);
+        }
         try {
-            razorpayOrder = razorpayClient.orders.create(orderRequest);
-        } catch (RazorpayException e) {
-            logger.error("Failed to create Razorpay order for user {} course {}: {}", userId, courseId, e.getMessage());
-            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Payment provider error. Please try again.");
+            var response = createNewOrder(userId, courseId, amountPaise, currency);
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            ordersInFlight.remove(key, mine);
         }
+    }
+
+    private CreateOrderResponse createNewOrder(Long userId, Long courseId, int amountPaise, String currency) {
+        String razorpayOrderId = razorpayGateway.createOrder(amountPaise, currency, "rcpt_u" + userId + "_c" + courseId);
 
-        String razorpayOrderId = razorpayOrder.get("id");
-        PaymentOrder paymentOrder = new PaymentOrder(razorpayOrderId, userId, courseId, amountPaise, currency);
-        paymentOrderRepository.save(paymentOrder);
+        // If this insert fails the Razorpay order is simply never paid and expires there.
+        var order = paymentOrderRepository.save(new PaymentOrder(razorpayOrderId, userId, courseId, amountPaise, currency));
+        ordersCreated.increment();
 
         logger.info("Created Razorpay order {} for user {} course {}", razorpayOrderId, userId, courseId);
-        return new CreateOrderResponse(razorpayOrderId, amountPaise, currency, razorpayProperties.getKeyId());
+        return toCreateOrderResponse(order);
+    }
+
+    private static CreateOrderResponse awaitOrder(CompletableFuture<CreateOrderResponse> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private CreateOrderResponse toCreateOrderResponse(PaymentOrder order) {
+        return new CreateOrderResponse(order.getRazorpayOrderId(), order.getAmountPaise(), order.getCurrency(),
+                razorpayProperties.getKeyId());
     }
 
     /**
      * Verifies signature, marks order paid, records purchase.
      * Idempotent: Multiple calls with same razorpayPaymentId will succeed.
+     *
+     * The signature check needs no database; the write is a single statement in
+     * {@link PaymentFulfillmentService}, so the order row is locked only for that statement.
      */
-    @Transactional
     public VerifyPaymentResponse verifyPayment(
             Long userId,
             String razorpayOrderId,
@@ -128,85 +201,52 @@ public class PaymentService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Payment signature verification failed.");
         }
 
-        PaymentOrder paymentOrder = paymentOrderRepository.findByRazorpayOrderId(razorpayOrderId)
-                .orElseThrow(() -> {
-                    logger.error("PaymentOrder not found for razorpayOrderId={}, userId={}", razorpayOrderId, userId);
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found.");
-                });
-
-        if (!paymentOrder.getUserId().equals(userId)) {
-            logger.error("OrderId mismatch: order belongs to userId={}, but verified by userId={}",
-                    paymentOrder.getUserId(), userId);
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Order does not belong to this user.");
+        PaymentFulfillmentService.Outcome outcome;
+        try {
+            outcome = fulfillmentService.recordVerified(userId, razorpayOrderId, razorpayPaymentId);
+        } catch (DataAccessException e) {
+            logger.error("Failed to record payment: userId={}, razorpayOrderId={}, payment={}, error={}",
+                    userId, razorpayOrderId, razorpayPaymentId, e.getMessage(), e);
+            throw enrollmentFailed(razorpayPaymentId);
         }
 
-        if (PaymentOrder.Status.PAID.name().equals(paymentOrder.getStatus())) {
-            logger.warn("Order already marked PAID: razorpayOrderId={}, userId={}", razorpayOrderId, userId);
-            // Check if Purchase already exists for idempotency
-            var existingPurchase = purchaseRepository.findByRazorpayPaymentId(razorpayPaymentId);
-            if (existingPurchase.isPresent()) {
+        return switch (outcome) {
+            case FULFILLED -> {
+                logger.info("Payment verification complete: userId={}, razorpayOrderId={}, razorpayPaymentId={}",
+                        userId, razorpayOrderId, razorpayPaymentId);
+                yield new VerifyPaymentResponse(true, "Payment verified successfully.");
+            }
+            case ALREADY_FULFILLED -> {
                 logger.info("Purchase already exists for payment {} (idempotent success)", razorpayPaymentId);
-                return new VerifyPaymentResponse(true, "Payment already verified successfully.");
+                yield new VerifyPaymentResponse(true, "Payment already verified successfully.");
             }
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Order already paid but purchase record missing. Contact support.");
-        }
-
-        // Idempotency check: if Purchase already exists for this payment ID, return success
-        var existingPurchase = purchaseRepository.findByRazorpayPaymentId(razorpayPaymentId);
-        if (existingPurchase.isPresent()) {
-            logger.info("Purchase already exists for payment {} (idempotent success)", razorpayPaymentId);
-            // Ensure order is marked as paid
-            if (!PaymentOrder.Status.PAID.name().equals(paymentOrder.getStatus())) {
-                paymentOrder.markPaid();
-                paymentOrderRepository.save(paymentOrder);
-                logger.info("Updated existing PaymentOrder to PAID status for idempotent call");
+            case ORDER_NOT_FOUND -> {
+                logger.error("PaymentOrder not found for razorpayOrderId={}, userId={}", razorpayOrderId, userId);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found.");
             }
-            return new VerifyPaymentResponse(true, "Payment already verified successfully.");
-        }
-
-        paymentOrder.markPaid();
-        paymentOrderRepository.save(paymentOrder);
-        logger.info("Marked PaymentOrder as PAID: razorpayOrderId={}, userId={}", razorpayOrderId, userId);
-
-        try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> {
-                        logger.error("User not found for enrollment: userId={}, payment={}", userId, razorpayPaymentId);
-                        return new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found for enrollment.");
-                    });
-
-            Purchase purchase = new Purchase(
-                    userId,
-                    paymentOrder.getCourseId(),
-                    razorpayOrderId,
-                    razorpayPaymentId,
-                    paymentOrder.getAmountPaise(),
-                    paymentOrder.getCurrency()
-            );
-            purchase.setUser(user);
-            purchaseRepository.save(purchase);
-            logger.info("Purchase record created successfully: userId={}, courseId={}, payment={}",
-                    userId, paymentOrder.getCourseId(), razorpayPaymentId);
-        } catch (ResponseStatusException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("Failed to create Purchase record: userId={}, courseId={}, payment={}, error={}",
-                    userId, paymentOrder.getCourseId(), razorpayPaymentId, e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                    "Payment verified but enrollment failed. Contact support with payment ID: " + razorpayPaymentId);
-        }
+            case WRONG_USER -> throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Order does not belong to this user.");
+            case PAID_BY_OTHER_PAYMENT -> throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Order already paid with a different payment. Contact support with payment ID: " + razorpayPaymentId);
+            case COURSE_ALREADY_OWNED -> throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "You have already purchased this course. Contact support with payment ID: " + razorpayPaymentId);
+            // Not checked for client verification; listed so the switch stays exhaustive.
+            case AMOUNT_MISMATCH -> throw enrollmentFailed(razorpayPaymentId);
+        };
+    }
 
-        logger.info("Payment verification complete: userId={}, razorpayOrderId={}, razorpayPaymentId={}",
-                userId, razorpayOrderId, razorpayPaymentId);
-        return new VerifyPaymentResponse(true, "Payment verified successfully.");
+    private static ResponseStatusException enrollmentFailed(String razorpayPaymentId) {
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Payment verified but enrollment failed. Contact support with payment ID: " + razorpayPaymentId);
     }
 
-    /** Returns full course details for all courses the user has purchased. */
+    /** Returns full course details for all courses the user has purchased, in purchase order. */
     public UserCoursesResponse getUserCourses(Long userId) {
-        List<Purchase> purchases = purchaseRepository.findByUserId(userId);
-        List<CourseResponse> courses = purchases.stream()
-                .map(p -> courseRepository.findById(p.getCourseId()).orElse(null))
-                .filter(c -> c != null)
+        List<Long> courseIds = purchaseRepository.findCourseIdsByUserId(userId);
+        Map<Long, Course> coursesById = courseRepository.findAllById(courseIds).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        List<CourseResponse> courses = courseIds.stream()
+                .map(coursesById::get)
+                .filter(Objects::nonNull)
                 .map(c -> new CourseResponse(c.getId(), c.getTitle(), c.getDescription(), c.getPricePaise(), c.getCurrency(), c.getThumbnailUrl()))
                 .toList();
         return new UserCoursesResponse(courses);
@@ -276,6 +316,21 @@ public class PaymentService {
                         "Payment recorded but enrollment failed. Contact support.",
                         "PaymentOrder status is PAID but Purchase record missing. Support ID: " + razorpayPaymentId
                 );
+            } else if (PaymentOrder.Status.REFUND_REQUIRED.name().equals(order.getStatus())) {
+                return new PaymentStatusResponse(
+                        false,
+                        false,
+                        "You already own this course, so this payment will be refunded. Contact support with payment ID: "
+                                + razorpayPaymentId,
+                        "PaymentOrder status: REFUND_REQUIRED"
+                );
+            } else if (PaymentOrder.Status.EXPIRED.name().equals(order.getStatus())) {
+                return new PaymentStatusResponse(
+                        false,
+                        false,
+                        "This order expired without a payment. Please start the checkout again.",
+                        "PaymentOrder status: EXPIRED"
+                );
             } else {
                 logger.info("PaymentOrder exists but not paid: order={}, status={}", razorpayOrderId, order.getStatus());
                 return new PaymentStatusResponse(
@@ -0,0 +1,105 @@
+package com.maths.teacher.payment.service;
+
+import com.maths.teacher.payment.config.PaymentWebhookProperties;
+import com.maths.teacher.payment.repository.PaymentWebhookEventRepository;
+import com.razorpay.RazorpayException;
+import com.razorpay.Utils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Accepts Razorpay webhook deliveries. The signature is checked against the raw body, the
+ * event is stored once per Razorpay event ID and then handed to {@link PaymentWebhookWorker}.
+ * Nothing else happens on the request thread, so Razorpay gets its 200 within milliseconds
+ * even during bursts, and a redelivered event is acknowledged without being applied twice.
+ */
+@Service
+public class PaymentWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookService.class);
+
+    private final PaymentWebhookEventRepository eventRepository;
+    private final PaymentWebhookWorker worker;
+    private final PaymentWebhookProperties properties;
+    private final Counter received;
+    private final Counter duplicates;
+    private final Counter rejected;
+
+    public PaymentWebhookService(
+            PaymentWebhookEventRepository eventRepository,
+            PaymentWebhookWorker worker,
+            PaymentWebhookProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.eventRepository = eventRepository;
+        this.worker = worker;
+        this.properties = properties;
+        this.received = meterRegistry.counter("payment.webhook.events", "result", "received");
+        this.duplicates = meterRegistry.counter("payment.webhook.events", "result", "duplicate");
+        this.rejected = meterRegistry.counter("payment.webhook.events", "result", "rejected");
+    }
+
+    /**
+     * Verifies and stores one delivery.
+     *
+     * @param payload raw request body, exactly as signed by Razorpay
+     * @param signature {@code X-Razorpay-Signature} header
+     * @param eventId {@code X-Razorpay-Event-Id} header; a hash of the body is used if absent
+     */
+    public void ingest(String payload, String signature, String eventId) {
+        String secret = properties.getSecret();
+        if (secret == null || secret.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payment webhook is not configured.");
+        }
+        if (payload == null || signature == null || !signatureMatches(payload, signature, secret)) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid webhook signature.");
+        }
+
+        String eventType;
+        try {
+            eventType = new JSONObject(payload).optString("event", "unknown");
+        } catch (JSONException ex) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Webhook body is not valid JSON.");
+        }
+        String key = eventId != null && !eventId.isBlank() ? eventId.trim() : "sha256:" + sha256(payload);
+
+        var inserted = eventRepository.insertIfAbsent(key, eventType, payload);
+        if (inserted.isEmpty()) {
+            duplicates.increment();
+            logger.debug("Duplicate webhook event {} ({}) acknowledged", key, eventType);
+            return;
+        }
+        received.increment();
+        worker.submit(inserted.get());
+    }
+
+    private static boolean signatureMatches(String payload, String signature, String secret) {
+        try {
+            return Utils.verifyWebhookSignature(payload, signature, secret);
+        } catch (RazorpayException ex) {
+            return false;
+        }
+    }
+
+    private static String sha256(String payload) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
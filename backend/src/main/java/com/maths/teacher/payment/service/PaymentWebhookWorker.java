@@ -0,0 +1,209 @@
+package com.maths.teacher.payment.service;
+
+import com.maths.teacher.payment.config.PaymentWebhookProperties;
+import com.maths.teacher.payment.domain.PaymentWebhookEvent;
+import com.maths.teacher.payment.repository.PaymentWebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies stored webhook events on a bounded worker pool.
+ *
+ * New events are handed over straight from the webhook request. Each task claims its row
+ * with a lease first, so an event is applied by one instance at a time. If the queue is
+ * full the event simply stays PENDING; the sweeper claims due rows periodically, which
+ * also covers events lost in a restart and retries scheduled with exponential backoff.
+ *
+ * payment.captured and order.paid create the purchase through
+ * {@link PaymentFulfillmentService}; other event types are recorded as IGNORED.
+ */
+@Component
+public class PaymentWebhookWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookWorker.class);
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final PaymentWebhookEventRepository eventRepository;
+    private final PaymentFulfillmentService fulfillmentService;
+    private final PaymentWebhookProperties properties;
+    private final ThreadPoolExecutor workers;
+    private final Counter processed;
+    private final Counter ignored;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter deferred;
+    private final Timer processTimer;
+
+    public PaymentWebhookWorker(
+            PaymentWebhookEventRepository eventRepository,
+            PaymentFulfillmentService fulfillmentService,
+            PaymentWebhookProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.eventRepository = eventRepository;
+        this.fulfillmentService = fulfillmentService;
+        this.properties = properties;
+
+        int threads = Math.max(1, properties.getWorkers());
+        var threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-webhook-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.processed = meterRegistry.counter("payment.webhook.events", "result", "processed");
+        this.ignored = meterRegistry.counter("payment.webhook.events", "result", "ignored");
+        this.retried = meterRegistry.counter("payment.webhook.events", "result", "retried");
+        this.failed = meterRegistry.counter("payment.webhook.events", "result", "failed");
+        this.deferred = meterRegistry.counter("payment.webhook.events", "result", "deferred");
+        this.processTimer = meterRegistry.timer("payment.webhook.process");
+        meterRegistry.gauge("payment.webhook.queue.size", workers, executor -> executor.getQueue().size());
+    }
+
+    /** Queues a freshly stored event. Never blocks; a full queue leaves it to the sweeper. */
+    public void submit(long eventId) {
+        try {
+            workers.execute(() -> eventRepository.claim(eventId, properties.getLeaseSeconds()).ifPresent(this::process));
+        } catch (RejectedExecutionException ex) {
+            deferred.increment();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.razorpay.webhook.sweep-initial-delay-ms:30000}",
+            fixedDelayString = "${app.razorpay.webhook.sweep-interval-ms:15000}"
+    )
+    public void sweep() {
+        int room = Math.min(workers.getQueue().remainingCapacity(), Math.max(1, properties.getSweepBatchSize()));
+        if (room == 0) {
+            return;
+        }
+        List<PaymentWebhookEvent> claimed = eventRepository.claimDue(room, properties.getLeaseSeconds());
+        for (PaymentWebhookEvent event : claimed) {
+            try {
+                workers.execute(() -> process(event));
+            } catch (RejectedExecutionException ex) {
+                // Claimed but not queued: picked up again once the lease runs out.
+                deferred.increment();
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.razorpay.webhook.purge-cron:0 15 4 * * *}")
+    public void purgeSettled() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = eventRepository.purgeSettled(properties.getRetentionDays(), PURGE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        if (total > 0) {
+            logger.info("Purged {} settled webhook events", total);
+        }
+    }
+
+    private void process(PaymentWebhookEvent event) {
+        processTimer.record(() -> {
+            try {
+                apply(event);
+            } catch (RuntimeException ex) {
+                retryOrFail(event, ex.getMessage());
+            }
+        });
+    }
+
+    private void apply(PaymentWebhookEvent event) {
+        String type = event.getEventType();
+        if (!"payment.captured".equals(type) && !"order.paid".equals(type)) {
+            finish(event, PaymentWebhookEvent.Status.IGNORED, null);
+            return;
+        }
+
+        JSONObject payment = new JSONObject(event.getPayload())
+                .getJSONObject("payload")
+                .getJSONObject("payment")
+                .getJSONObject("entity");
+        String orderId = payment.optString("order_id", null);
+        if (orderId == null || orderId.isBlank()) {
+            finish(event, PaymentWebhookEvent.Status.IGNORED, "Payment has no order ID");
+            return;
+        }
+        String paymentId = payment.getString("id");
+
+        var outcome = fulfillmentService.recordCaptured(
+                orderId, paymentId, payment.getLong("amount"), payment.getString("currency"));
+        switch (outcome) {
+            case FULFILLED, ALREADY_FULFILLED -> finish(event, PaymentWebhookEvent.Status.PROCESSED, null);
+            // The order row may not be committed yet; retried with backoff, then failed.
+            case ORDER_NOT_FOUND -> retryOrFail(event, "Order " + orderId + " not found");
+            case AMOUNT_MISMATCH -> finish(event, PaymentWebhookEvent.Status.FAILED,
+                    "Amount or currency does not match order " + orderId);
+            case COURSE_ALREADY_OWNED -> finish(event, PaymentWebhookEvent.Status.FAILED,
+                    "Course already owned; payment " + paymentId + " needs a refund");
+            case PAID_BY_OTHER_PAYMENT -> finish(event, PaymentWebhookEvent.Status.FAILED,
+                    "Order " + orderId + " already paid by another payment; payment " + paymentId + " needs a refund");
+            // Only client verification checks the user.
+            case WRONG_USER -> finish(event, PaymentWebhookEvent.Status.FAILED, "Unexpected outcome " + outcome);
+        }
+    }
+
+    private void finish(PaymentWebhookEvent event, PaymentWebhookEvent.Status status, String note) {
+        eventRepository.finish(event.getId(), status.name(), note);
+        switch (status) {
+            case PROCESSED -> processed.increment();
+            case IGNORED -> ignored.increment();
+            default -> {
+                failed.increment();
+                logger.error("Webhook event {} ({}) failed: {}", event.getEventId(), event.getEventType(), note);
+            }
+        }
+    }
+
+    private void retryOrFail(PaymentWebhookEvent event, String error) {
+        String message = truncate(error);
+        // attempts was incremented when the event was claimed
+        if (event.getAttempts() >= properties.getMaxAttempts()) {
+            finish(event, PaymentWebhookEvent.Status.FAILED, message);
+            return;
+        }
+        long delay = backoffSeconds(event.getAttempts());
+        retried.increment();
+        logger.warn("Webhook event {} ({}) attempt {} failed, retrying in {}s: {}",
+                event.getEventId(), event.getEventType(), event.getAttempts(), delay, message);
+        eventRepository.reschedule(event.getId(), delay, message);
+    }
+
+    private long backoffSeconds(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(properties.getInitialBackoffSeconds() << exponent, properties.getMaxBackoffSeconds());
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return "unknown error";
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,196 @@
+package com.maths.teacher.payment.service;
+
+import com.maths.teacher.payment.config.RazorpayProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Calls the Razorpay Orders API over plain HTTPS.
+ *
+ * The SDK client hides its HTTP timeouts, so requests go through the JDK client with an
+ * explicit connect timeout and a per-request read timeout. A circuit breaker stops calls
+ * after repeated timeouts or 5xx responses; checkout then fails fast with 503 instead of
+ * every request waiting out the timeout. Callers must not hold a database transaction
+ * across these calls.
+ */
+@Component
+public class RazorpayGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(RazorpayGateway.class);
+
+    private final RazorpayProperties properties;
+    private final HttpClient httpClient;
+    private final String authorization;
+    private final CircuitBreaker breaker;
+    private final MeterRegistry meterRegistry;
+
+    public RazorpayGateway(RazorpayProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getKeyId() == null || properties.getKeyId().isBlank()) {
+            throw new IllegalStateException("Razorpay key-id is required (RAZORPAY_KEY_ID env).");
+        }
+        if (properties.getKeySecret() == null || properties.getKeySecret().isBlank()) {
+            throw new IllegalStateException("Razorpay key-secret is required (RAZORPAY_KEY_SECRET env).");
+        }
+        this.properties = properties;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                .build();
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (properties.getKeyId() + ":" + properties.getKeySecret()).getBytes(StandardCharsets.UTF_8));
+        this.breaker = new CircuitBreaker(
+                properties.getBreakerFailureThreshold(), properties.getBreakerOpenSeconds() * 1000);
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("payment.provider.breaker.open", breaker,
+                b -> b.state() == CircuitBreaker.State.CLOSED ? 0 : 1);
+    }
+
+    /**
+     * Creates a Razorpay order and returns its ID.
+     *
+     * @throws PaymentProviderUnavailableException while the circuit breaker is open
+     * @throws ResponseStatusException 502 if Razorpay fails, times out or rejects the request
+     */
+    public String createOrder(int amountPaise, String currency, String receipt) {
+        JSONObject body = new JSONObject();
+        body.put("amount", amountPaise);
+        body.put("currency", currency);
+        body.put("receipt", receipt);
+        String orderId = call("create_order", HttpRequest.newBuilder(uri("/v1/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+        ).optString("id", "");
+        if (orderId.isBlank()) {
+            logger.error("Razorpay create_order response has no order ID");
+            throw providerError();
+        }
+        return orderId;
+    }
+
+    /**
+     * Lists the payment attempts made against a Razorpay order.
+     *
+     * @throws PaymentProviderUnavailableException while the circuit breaker is open
+     * @throws ResponseStatusException 502 if Razorpay fails, times out or rejects the request
+     */
+    public List<Payment> fetchOrderPayments(String razorpayOrderId) {
+        JSONObject body = call("fetch_order_payments", HttpRequest.newBuilder(
+                uri("/v1/orders/" + URLEncoder.encode(razorpayOrderId, StandardCharsets.UTF_8) + "/payments")).GET());
+        try {
+            JSONArray items = body.optJSONArray("items");
+            List<Payment> payments = new ArrayList<>();
+            for (int i = 0; items != null && i < items.length(); i++) {
+                JSONObject item = items.getJSONObject(i);
+                payments.add(new Payment(item.getString("id"), item.getLong("amount"),
+                        item.getString("currency"), item.getString("status")));
+            }
+            return payments;
+        } catch (JSONException ex) {
+            logger.error("Razorpay fetch_order_payments returned an unexpected body: {}", ex.getMessage());
+            throw providerError();
+        }
+    }
+
+    /** A payment attempt as Razorpay reports it; {@code status} is e.g. "captured" or "failed". */
+    public record Payment(String id, long amountPaise, String currency, String status) {
+
+        public boolean isCaptured() {
+            return "captured".equals(status);
+        }
+    }
+
+    private JSONObject call(String operation, HttpRequest.Builder request) {
+        if (!breaker.tryAcquire()) {
+            record(operation, "short_circuited", 0);
+            throw new PaymentProviderUnavailableException(breaker.retryAfterSeconds());
+        }
+
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    request.header("Authorization", authorization)
+                            .timeout(Duration.ofMillis(properties.getReadTimeoutMs()))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status >= 500 || status == 429) {
+                breaker.onFailure();
+                result = "server_error";
+                logger.error("Razorpay {} failed with HTTP {}: {}", operation, status, abbreviate(response.body()));
+                throw providerError();
+            }
+            // A 4xx means our request was wrong, not that Razorpay is down.
+            breaker.onSuccess();
+            if (status >= 400) {
+                result = "client_error";
+                logger.error("Razorpay {} rejected with HTTP {}: {}", operation, status, abbreviate(response.body()));
+                throw providerError();
+            }
+            result = "success";
+            return new JSONObject(response.body());
+        } catch (HttpTimeoutException ex) {
+            breaker.onFailure();
+            result = "timeout";
+            logger.error("Razorpay {} timed out: {}", operation, ex.getMessage());
+            throw providerError();
+        } catch (IOException ex) {
+            breaker.onFailure();
+            logger.error("Razorpay {} failed: {}", operation, ex.getMessage());
+            throw providerError();
+        } catch (JSONException ex) {
+            result = "bad_response";
+            logger.error("Razorpay {} returned an unreadable body: {}", operation, ex.getMessage());
+            throw providerError();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            breaker.onFailure();
+            throw providerError();
+        } finally {
+            record(operation, result, System.nanoTime() - start);
+        }
+    }
+
+    private void record(String operation, String result, long nanos) {
+        Timer.builder("payment.provider.calls")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    private URI uri(String path) {
+        String base = properties.getApiBaseUrl();
+        return URI.create(base.endsWith("/") ? base.substring(0, base.length() - 1) + path : base + path);
+    }
+
+    private static ResponseStatusException providerError() {
+        return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Payment provider error. Please try again.");
+    }
+
+    private static String abbreviate(String body) {
+        if (body == null) {
+            return "";
+        }
+        return body.length() > 500 ? body.substring(0, 500) + "..." : body;
+    }
+}
@@ -0,0 +1,30 @@
+package com.maths.teacher.payment.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces calls evenly so that together they stay under {@code permitsPerSecond}, however
+ * many threads share the pacer. Each caller reserves the next free slot and sleeps until it.
+ */
+class RequestPacer {
+
+    private final long intervalNanos;
+    private long nextSlot = System.nanoTime();
+
+    RequestPacer(double permitsPerSecond) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.01, permitsPerSecond));
+    }
+
+    void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlot);
+            nextSlot = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.maths.teacher.payment.service.PaymentService;
 import com.maths.teacher.security.AuthService;
 import jakarta.validation.Valid;
 import java.util.List;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 public class PaymentController {
@@ -23,19 +25,30 @@ public class PaymentController {
         this.authService = authService;
     }
 
-    /** Public — lists all active purchasable courses. */
+    /** Public — lists all active purchasable courses. Supports If-None-Match. */
     @GetMapping("/api/courses")
-    public ResponseEntity<List<CourseResponse>> listCourses() {
-        return ResponseEntity.ok(paymentService.listCourses());
+    public ResponseEntity<List<CourseResponse>> listCourses(WebRequest webRequest) {
+        if (webRequest.checkNotModified(paymentService.listCoursesETag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(paymentService.listCourses());
     }
 
-    /** JWT — returns the list of courses the logged-in user has purchased. */
+    /** JWT — returns the list of courses the logged-in user has purchased. Supports If-None-Match. */
     @GetMapping("/api/user/courses")
     public ResponseEntity<UserCoursesResponse> getUserCourses(
-            @RequestHeader("Authorization") String authHeader
+            @RequestHeader("Authorization") String authHeader,
+            WebRequest webRequest
     ) {
         Long userId = Long.parseLong(authService.requireUserId(authHeader));
-        return ResponseEntity.ok(paymentService.getUserCourses(userId));
+        if (webRequest.checkNotModified(paymentService.userCoursesETag(userId))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(paymentService.getUserCourses(userId));
     }
 
     /** JWT — creates a Razorpay order for the given course. */
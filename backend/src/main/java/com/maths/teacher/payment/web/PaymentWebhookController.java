@@ -0,0 +1,32 @@
+package com.maths.teacher.payment.web;
+
+import com.maths.teacher.payment.service.PaymentWebhookService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class PaymentWebhookController {
+
+    private final PaymentWebhookService paymentWebhookService;
+
+    public PaymentWebhookController(PaymentWebhookService paymentWebhookService) {
+        this.paymentWebhookService = paymentWebhookService;
+    }
+
+    /**
+     * Public — Razorpay webhook. Authenticated by the HMAC signature over the raw body.
+     * Returns 200 once the event is stored (or was already stored); processing is async.
+     */
+    @PostMapping("/api/payment/webhook")
+    public ResponseEntity<Void> receive(
+            @RequestBody String payload,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId
+    ) {
+        paymentWebhookService.ingest(payload, signature, eventId);
+        return ResponseEntity.ok().build();
+    }
+}
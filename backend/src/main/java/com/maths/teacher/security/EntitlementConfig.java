@@ -0,0 +1,9 @@
+package com.maths.teacher.security;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EntitlementProperties.class)
+public class EntitlementConfig {
+}
@@ -0,0 +1,237 @@
+package com.maths.teacher.security;
+
+import com.maths.teacher.payment.repository.PurchaseRepository;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory index of which courses each user has purchased.
+ *
+ * A user's entry is loaded from the purchases table on first access and then kept
+ * current by {@link #grant} / {@link #revoke}, so access checks on the read path are a
+ * map lookup plus a bit test. Course IDs are small BIGSERIAL values, so each user's
+ * purchases are stored as an immutable bitset indexed by course ID.
+ *
+ * At most {@code app.entitlements.max-users} users are kept; beyond that the least recently
+ * seen tenth is dropped and reloaded on their next access.
+ */
+@Component
+public class EntitlementIndex {
+
+    private final PurchaseRepository purchaseRepository;
+    private final EntitlementProperties properties;
+    private final Map<Long, Entry> entitlements = new ConcurrentHashMap<>();
+    // Bumped by every grant/revoke; a load that overlapped one is not published.
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public EntitlementIndex(PurchaseRepository purchaseRepository, EntitlementProperties properties) {
+        this.purchaseRepository = purchaseRepository;
+        this.properties = properties;
+    }
+
+    public boolean isEntitled(Long userId, Long courseId) {
+        if (userId == null || courseId == null) {
+            return false;
+        }
+        return coursesOf(userId).contains(courseId);
+    }
+
+    /**
+     * Returns the purchased course set for a user, loading it on first access.
+     *
+     * The query runs outside the map, so it holds no lock that other users' lookups could
+     * queue behind. A grant or revoke committed while it ran may be missing from the result;
+     * such a result is returned but not kept, and the next access loads again.
+     */
+    public CourseSet coursesOf(Long userId) {
+        Entry entry = entitlements.get(userId);
+        if (entry != null) {
+            entry.touch();
+            return entry.courses();
+        }
+        long seen = changes.get();
+        var loaded = new Entry(CourseSet.of(purchaseRepository.findCourseIdsByUserId(userId)));
+        // Checked and published under the key's lock, which update() also takes, so a change
+        // either is counted before the check or finds the entry and is applied to it.
+        Entry published = entitlements.compute(userId,
+                (id, current) -> current != null ? current : changes.get() == seen ? loaded : null);
+        if (published == null) {
+            return loaded.courses();
+        }
+        if (published == loaded) {
+            evictIfFull();
+        }
+        return published.courses();
+    }
+
+    /**
+     * Records a new purchase. Applied after commit when called inside a transaction.
+     */
+    public void grant(Long userId, Long courseId) {
+        afterCommit(() -> update(userId, set -> set.with(courseId)));
+    }
+
+    /**
+     * Removes a purchase. Applied after commit when called inside a transaction.
+     */
+    public void revoke(Long userId, Long courseId) {
+        afterCommit(() -> update(userId, set -> set.without(courseId)));
+    }
+
+    private void update(Long userId, UnaryOperator<CourseSet> change) {
+        // Users not yet loaded will read the committed state on their first access.
+        entitlements.compute(userId, (id, entry) -> {
+            changes.incrementAndGet();
+            return entry == null ? null : entry.with(change.apply(entry.courses()));
+        });
+    }
+
+    /**
+     * Drops the least recently seen users down to nine tenths of the bound, so the sort
+     * runs once per many new users rather than on each. One caller evicts at a time.
+     */
+    private void evictIfFull() {
+        int maxUsers = properties.getMaxUsers();
+        if (entitlements.size() <= maxUsers || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = entitlements.size() - (maxUsers - maxUsers / 10);
+            // Access times are copied first; they keep changing while the sort runs.
+            entitlements.entrySet().stream()
+                    .map(e -> new Candidate(e.getKey(), e.getValue(), e.getValue().lastAccess))
+                    .sorted(Comparator.comparingLong(Candidate::lastAccess))
+                    .limit(Math.max(0, excess))
+                    .forEach(candidate -> entitlements.remove(candidate.userId(), candidate.entry()));
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private record Candidate(Long userId, Entry entry, long lastAccess) {}
+
+    /** A user's course set and when it was last read. */
+    private static final class Entry {
+
+        private final CourseSet courses;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(CourseSet courses) {
+            this.courses = courses;
+        }
+
+        CourseSet courses() {
+            return courses;
+        }
+
+        void touch() {
+            lastAccess = System.nanoTime();
+        }
+
+        Entry with(CourseSet changed) {
+            var entry = new Entry(changed);
+            entry.lastAccess = lastAccess;
+            return entry;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Immutable bitset of course IDs. Bit {@code n} is set when the user owns course {@code n}.
+     */
+    public static final class CourseSet {
+
+        private static final CourseSet EMPTY = new CourseSet(new long[0]);
+
+        private final long[] words;
+
+        private CourseSet(long[] words) {
+            this.words = words;
+        }
+
+        public static CourseSet of(Iterable<Long> courseIds) {
+            CourseSet set = EMPTY;
+            for (Long courseId : courseIds) {
+                set = set.with(courseId);
+            }
+            return set;
+        }
+
+        public boolean contains(long courseId) {
+            if (courseId < 0) {
+                return false;
+            }
+            int word = (int) (courseId >>> 6);
+            return word < words.length && (words[word] & (1L << courseId)) != 0;
+        }
+
+        public CourseSet with(long courseId) {
+            if (courseId < 0 || contains(courseId)) {
+                return this;
+            }
+            int word = (int) (courseId >>> 6);
+            long[] copy = Arrays.copyOf(words, Math.max(words.length, word + 1));
+            copy[word] |= 1L << courseId;
+            return new CourseSet(copy);
+        }
+
+        public CourseSet without(long courseId) {
+            if (!contains(courseId)) {
+                return this;
+            }
+            long[] copy = words.clone();
+            copy[(int) (courseId >>> 6)] &= ~(1L << courseId);
+            return new CourseSet(copy);
+        }
+
+        /**
+         * Stable hash of the set contents, used to build content-derived ETags.
+         */
+        public long fingerprint() {
+            int length = words.length;
+            while (length > 0 && words[length - 1] == 0) {
+                length--;
+            }
+            long hash = 1125899906842597L;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + words[i];
+            }
+            return hash;
+        }
+
+        public boolean isEmpty() {
+            return Arrays.stream(words).allMatch(word -> word == 0);
+        }
+
+        public LongStream courseIds() {
+            return IntStream.range(0, words.length)
+                    .boxed()
+                    .flatMapToLong(word -> LongStream.range(0, 64)
+                            .filter(bit -> (words[word] & (1L << bit)) != 0)
+                            .map(bit -> ((long) word << 6) + bit));
+        }
+    }
+}
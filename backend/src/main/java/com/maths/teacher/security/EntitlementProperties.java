@@ -0,0 +1,18 @@
+package com.maths.teacher.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.entitlements")
+public class EntitlementProperties {
+
+    /** Users whose purchases are kept in memory; the least recently seen are dropped beyond this. */
+    private int maxUsers = 100_000;
+
+    public int getMaxUsers() {
+        return maxUsers;
+    }
+
+    public void setMaxUsers(int maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+}
@@ -1,12 +1,32 @@
 package com.maths.teacher.security;
 
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class VideoAccessService {
 
-    public boolean hasAccess(String userId, Long videoId) {
-        // Placeholder for paid access control rules.
-        return true;
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private final EntitlementIndex entitlementIndex;
+
+    public VideoAccessService(EntitlementIndex entitlementIndex) {
+        this.entitlementIndex = entitlementIndex;
+    }
+
+    /**
+     * Returns true if the user has purchased the course (or the caller is an admin).
+     * Answered from the in-memory entitlement index; no database round trip once the
+     * user's purchases are loaded.
+     */
+    public boolean hasCourseAccess(Long userId, Long courseId) {
+        return isAdmin() || entitlementIndex.isEntitled(userId, courseId);
+    }
+
+    private boolean isAdmin() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getAuthorities().stream()
+                .anyMatch(authority -> ADMIN_AUTHORITY.equals(authority.getAuthority()));
     }
 }
@@ -1,15 +1,17 @@
 package com.maths.teacher.storage;
 
 import com.maths.teacher.catalog.exception.ErrorMessages;
+import java.net.URI;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
-@EnableConfigurationProperties(S3Properties.class)
+@EnableConfigurationProperties({S3Properties.class, StorageDeletionProperties.class, StorageGcProperties.class})
 public class S3Config {
 
     @Bean
@@ -17,9 +19,13 @@ public class S3Config {
         if (properties.getRegion() == null || properties.getRegion().isBlank()) {
             throw new IllegalStateException(ErrorMessages.S3_REGION_REQUIRED);
         }
-        return S3Presigner.builder()
-                .region(Region.of(properties.getRegion()))
-                .build();
+        var builder = S3Presigner.builder()
+                .region(Region.of(properties.getRegion()));
+        if (properties.getEndpoint() != null && !properties.getEndpoint().isBlank()) {
+            builder.endpointOverride(URI.create(properties.getEndpoint()))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        }
+        return builder.build();
     }
 
     @Bean
@@ -27,8 +33,13 @@ public class S3Config {
         if (properties.getRegion() == null || properties.getRegion().isBlank()) {
             throw new IllegalStateException(ErrorMessages.S3_REGION_REQUIRED);
         }
-        return S3Client.builder()
-                .region(Region.of(properties.getRegion()))
-                .build();
+        var builder = S3Client.builder()
+                .region(Region.of(properties.getRegion()));
+        if (properties.getEndpoint() != null && !properties.getEndpoint().isBlank()) {
+            // Local S3 stand-in (e.g. MinIO from docker-compose) instead of AWS
+            builder.endpointOverride(URI.create(properties.getEndpoint()))
+                    .forcePathStyle(true);
+        }
+        return builder.build();
     }
 }
@@ -1,22 +1,86 @@
 package com.maths.teacher.storage;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+/**
+ * Creates presigned S3 download URLs.
+ *
+ * Signed URLs are cached per storage URL and handed out again while they still have at
+ * least {@code presignMinRemainingMinutes} of validity left, so a burst of clicks on the
+ * same PDF costs one signature. The returned expiry is the real remaining lifetime.
+ */
 @Service
 public class S3PresignedUrlService {
 
     private final S3Presigner s3Presigner;
     private final S3Properties properties;
+    private final Map<String, CachedUrl> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
 
-    public S3PresignedUrlService(S3Presigner s3Presigner, S3Properties properties) {
+    public S3PresignedUrlService(S3Presigner s3Presigner, S3Properties properties, MeterRegistry meterRegistry) {
+        if (properties.getPresignMinRemainingMinutes() < 0
+                || properties.getPresignExpiryMinutes() <= properties.getPresignMinRemainingMinutes()) {
+            // Otherwise a freshly signed URL is already too close to expiry to reuse, and every request signs again.
+            throw new IllegalStateException("app.storage.s3.presign-expiry-minutes must be greater than "
+                    + "presign-min-remaining-minutes (APP_STORAGE_S3_PRESIGN_EXPIRY_MINUTES, "
+                    + "APP_STORAGE_S3_PRESIGN_MIN_REMAINING_MINUTES).");
+        }
         this.s3Presigner = s3Presigner;
         this.properties = properties;
+        this.hits = meterRegistry.counter("storage.presign.cache", "result", "hit");
+        this.misses = meterRegistry.counter("storage.presign.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("storage.presign.cache.size", Tags.empty(), cache);
     }
 
     public PresignedUrlResult createPresignedDownloadUrl(String storageUrl) {
+        long now = System.currentTimeMillis();
+        long minRemainingMillis = Duration.ofMinutes(properties.getPresignMinRemainingMinutes()).toMillis();
+        return presign(storageUrl, now, minRemainingMillis);
+    }
+
+    /**
+     * Presigns several storage URLs in one pass. Duplicates are signed once; the result
+     * preserves the iteration order of the input.
+     */
+    public Map<String, PresignedUrlResult> createPresignedDownloadUrls(Collection<String> storageUrls) {
+        long now = System.currentTimeMillis();
+        long minRemainingMillis = Duration.ofMinutes(properties.getPresignMinRemainingMinutes()).toMillis();
+        Map<String, PresignedUrlResult> results = new LinkedHashMap<>();
+        for (String storageUrl : storageUrls) {
+            results.computeIfAbsent(storageUrl, url -> presign(url, now, minRemainingMillis));
+        }
+        return results;
+    }
+
+    private PresignedUrlResult presign(String storageUrl, long now, long minRemainingMillis) {
+        CachedUrl cached = cache.get(storageUrl);
+        if (cached != null && cached.usableAt(now, minRemainingMillis)) {
+            hits.increment();
+            return cached.toResult(now);
+        }
+
+        misses.increment();
+        CachedUrl signed = sign(storageUrl, now);
+        cache.put(storageUrl, signed);
+        if (cache.size() > properties.getPresignCacheMaxEntries()) {
+            evict(now, minRemainingMillis);
+        }
+        return signed.toResult(now);
+    }
+
+    private CachedUrl sign(String storageUrl, long now) {
         var location = S3LocationResolver.resolve(storageUrl, properties);
         var request = GetObjectRequest.builder()
                 .bucket(location.bucket())
@@ -28,10 +92,31 @@ public class S3PresignedUrlService {
                 .signatureDuration(expiryDuration)
                 .getObjectRequest(request));
 
-        return new PresignedUrlResult(
-                presignedRequest.url().toString(),
-                (int) expiryDuration.getSeconds()
-        );
+        return new CachedUrl(presignedRequest.url().toString(), now + expiryDuration.toMillis());
+    }
+
+    /**
+     * Drops entries that can no longer be handed out, then arbitrary entries until the
+     * cache is back under its bound. Only runs when an insert pushed it over the limit.
+     */
+    private void evict(long now, long minRemainingMillis) {
+        cache.values().removeIf(entry -> !entry.usableAt(now, minRemainingMillis));
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() > properties.getPresignCacheMaxEntries() && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record CachedUrl(String url, long expiresAtMillis) {
+
+        boolean usableAt(long now, long minRemainingMillis) {
+            return expiresAtMillis - now >= minRemainingMillis;
+        }
+
+        PresignedUrlResult toResult(long now) {
+            return new PresignedUrlResult(url, (int) ((expiresAtMillis - now) / 1000));
+        }
     }
 
     public record PresignedUrlResult(String url, int expiresInSeconds) {}
@@ -7,7 +7,12 @@ public class S3Properties {
 
     private String region;
     private String bucket;
+    private String endpoint;
     private int presignExpiryMinutes = 10;
+    private int presignMinRemainingMinutes = 5;
+    private int presignCacheMaxEntries = 10_000;
+    private int uploadPartSizeMb = 8;
+    private int uploadSessionHours = 24;
 
     public String getRegion() {
         return region;
@@ -25,6 +30,14 @@ public class S3Properties {
         this.bucket = bucket;
     }
 
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
     public int getPresignExpiryMinutes() {
         return presignExpiryMinutes;
     }
@@ -32,4 +45,36 @@ public class S3Properties {
     public void setPresignExpiryMinutes(int presignExpiryMinutes) {
         this.presignExpiryMinutes = presignExpiryMinutes;
     }
+
+    public int getPresignMinRemainingMinutes() {
+        return presignMinRemainingMinutes;
+    }
+
+    public void setPresignMinRemainingMinutes(int presignMinRemainingMinutes) {
+        this.presignMinRemainingMinutes = presignMinRemainingMinutes;
+    }
+
+    public int getPresignCacheMaxEntries() {
+        return presignCacheMaxEntries;
+    }
+
+    public void setPresignCacheMaxEntries(int presignCacheMaxEntries) {
+        this.presignCacheMaxEntries = presignCacheMaxEntries;
+    }
+
+    public int getUploadPartSizeMb() {
+        return uploadPartSizeMb;
+    }
+
+    public void setUploadPartSizeMb(int uploadPartSizeMb) {
+        this.uploadPartSizeMb = uploadPartSizeMb;
+    }
+
+    public int getUploadSessionHours() {
+        return uploadSessionHours;
+    }
+
+    public void setUploadSessionHours(int uploadSessionHours) {
+        this.uploadSessionHours = uploadSessionHours;
+    }
 }
@@ -1,7 +1,11 @@
 package com.maths.teacher.storage;
 
 import com.maths.teacher.catalog.exception.ErrorMessages;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -9,8 +13,13 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
 @Service
 public class S3StorageService {
@@ -29,12 +38,7 @@ public class S3StorageService {
         }
         var key = "videos/" + videoId + "/pdfs/" + UUID.randomUUID() + ".pdf";
         try {
-            var putRequest = PutObjectRequest.builder()
-                    .bucket(properties.getBucket())
-                    .key(key)
-                    .contentType("application/pdf")
-                    .build();
-            s3Client.putObject(putRequest, RequestBody.fromBytes(file.getBytes()));
+            upload(key, "application/pdf", file);
         } catch (IOException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorMessages.FAILED_TO_READ_PDF_FILE, ex);
         }
@@ -50,17 +54,13 @@ public class S3StorageService {
         String contentType = file.getContentType() != null ? file.getContentType() : "image/jpeg";
         String extension = contentType.equals("image/png") ? "png" : "jpg";
 
-        // If courseId is provided (update case), use it; otherwise generate unique filename
-        String fileName = courseId != null ? "thumbnail." + extension : UUID.randomUUID() + "." + extension;
+        // Always a fresh file name: the previous thumbnail is deleted asynchronously and
+        // must not share a key with its replacement
+        String fileName = UUID.randomUUID() + "." + extension;
         var key = "courses/" + (courseId != null ? courseId : UUID.randomUUID()) + "/" + fileName;
 
         try {
-            var putRequest = PutObjectRequest.builder()
-                    .bucket(properties.getBucket())
-                    .key(key)
-                    .contentType(contentType)
-                    .build();
-            s3Client.putObject(putRequest, RequestBody.fromBytes(file.getBytes()));
+            upload(key, contentType, file);
         } catch (IOException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Failed to read image file", ex);
         }
@@ -68,12 +68,72 @@ public class S3StorageService {
         return "s3://" + properties.getBucket() + "/" + key;
     }
 
-    public void deleteByStorageUrl(String storageUrl) {
-        var location = S3LocationResolver.resolve(storageUrl, properties);
-        var deleteRequest = DeleteObjectRequest.builder()
-                .bucket(location.bucket())
-                .key(location.key())
-                .build();
-        s3Client.deleteObject(deleteRequest);
+    /**
+     * Streams a multipart file to S3 without loading it into the heap. Files up to one part
+     * are sent with a single PUT straight from the request stream; larger files use a
+     * multipart upload that reads one part at a time into a single reused buffer.
+     */
+    private void upload(String key, String contentType, MultipartFile file) throws IOException {
+        // S3 rejects multipart parts smaller than 5 MB (except the last one).
+        int partSize = Math.max(5, properties.getUploadPartSizeMb()) * 1024 * 1024;
+        long size = file.getSize();
+        try (InputStream in = file.getInputStream()) {
+            if (size <= partSize) {
+                var putRequest = PutObjectRequest.builder()
+                        .bucket(properties.getBucket())
+                        .key(key)
+                        .contentType(contentType)
+                        .build();
+                s3Client.putObject(putRequest, RequestBody.fromInputStream(in, size));
+            } else {
+                uploadMultipart(key, contentType, in, partSize);
+            }
+        }
+    }
+
+    private void uploadMultipart(String key, String contentType, InputStream in, int partSize) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(properties.getBucket())
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] buffer = new byte[partSize];
+            int length;
+            while ((length = in.readNBytes(buffer, 0, partSize)) > 0) {
+                int partNumber = parts.size() + 1;
+                var uploaded = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(properties.getBucket())
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(uploaded.eTag()).build());
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (IOException | RuntimeException ex) {
+            abortQuietly(key, uploadId, ex);
+            throw ex;
+        }
+    }
+
+    private void abortQuietly(String key, String uploadId, Exception cause) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException abortEx) {
+            cause.addSuppressed(abortEx);
+        }
     }
 }
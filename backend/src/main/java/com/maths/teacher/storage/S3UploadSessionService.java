@@ -0,0 +1,249 @@
+package com.maths.teacher.storage;
+
+import com.maths.teacher.catalog.exception.ErrorMessages;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Lets the browser upload files straight to S3.
+ *
+ * {@link #start} reserves a key under a caller-chosen prefix and returns presigned URLs:
+ * one PUT for small files, or one URL per part of an S3 multipart upload for large ones.
+ * The key, upload ID, content type and size limit are recorded in upload_sessions, so only
+ * keys issued here can be completed and the client cannot change what was agreed.
+ *
+ * {@link #complete} finishes the multipart upload if needed and checks that the object
+ * exists with the expected size and type. It calls S3 and must run outside a transaction.
+ * The caller then records the object and calls {@link #consume} in one transaction, which
+ * makes every session single-use.
+ */
+@Service
+public class S3UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3UploadSessionService.class);
+
+    private static final String INSERT_SESSION_SQL = """
+            INSERT INTO upload_sessions (object_key, upload_id, content_type, max_size, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    private static final String FIND_SESSION_SQL = """
+            SELECT upload_id, content_type, max_size FROM upload_sessions
+            WHERE object_key = ? AND expires_at > NOW()
+            """;
+    private static final String DELETE_SESSION_SQL = "DELETE FROM upload_sessions WHERE object_key = ?";
+    private static final String PURGE_SQL = "DELETE FROM upload_sessions WHERE expires_at < NOW()";
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final S3Properties properties;
+    private final JdbcTemplate jdbcTemplate;
+
+    public S3UploadSessionService(
+            S3Client s3Client,
+            S3Presigner s3Presigner,
+            S3Properties properties,
+            JdbcTemplate jdbcTemplate
+    ) {
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public UploadSession start(String keyPrefix, String extension, String contentType, long size, long maxSize) {
+        if (properties.getBucket() == null || properties.getBucket().isBlank()) {
+            throw new IllegalStateException(ErrorMessages.S3_BUCKET_REQUIRED);
+        }
+        if (size <= 0 || size > maxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "File size must be between 1 byte and " + maxSize + " bytes");
+        }
+
+        String key = keyPrefix + UUID.randomUUID() + "." + extension;
+        var expiry = Duration.ofMinutes(properties.getPresignExpiryMinutes());
+        long partSize = (long) Math.max(5, properties.getUploadPartSizeMb()) * 1024 * 1024;
+
+        if (size <= partSize) {
+            var putRequest = PutObjectRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .contentType(contentType)
+                    .contentLength(size)
+                    .build();
+            var presigned = s3Presigner.presignPutObject(builder -> builder
+                    .signatureDuration(expiry)
+                    .putObjectRequest(putRequest));
+            recordSession(key, null, contentType, maxSize);
+            return new UploadSession(key, null, size, List.of(new PartUrl(1, presigned.url().toString())),
+                    (int) expiry.getSeconds());
+        }
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(properties.getBucket())
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        var parts = new ArrayList<PartUrl>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            var partRequest = UploadPartRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .build();
+            var presigned = s3Presigner.presignUploadPart(builder -> builder
+                    .signatureDuration(expiry)
+                    .uploadPartRequest(partRequest));
+            parts.add(new PartUrl(partNumber, presigned.url().toString()));
+        }
+        recordSession(key, uploadId, contentType, maxSize);
+        return new UploadSession(key, uploadId, partSize, parts, (int) expiry.getSeconds());
+    }
+
+    /**
+     * Completes an upload started with {@link #start} and returns its storage URL. Only keys
+     * with a live session under {@code expectedPrefix} are accepted; the upload ID, type and
+     * size limit come from the session, not the client. An object that does not match is
+     * deleted along with its session. The session is left in place for {@link #consume}.
+     */
+    public String complete(String key, List<UploadedPart> parts, String expectedPrefix) {
+        Session session = requireSession(key, expectedPrefix);
+
+        if (session.uploadId() != null) {
+            if (parts == null || parts.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uploaded parts are required");
+            }
+            if (parts.stream().anyMatch(part -> part.eTag() == null || part.eTag().isBlank())) {
+                // Usually a bucket CORS rule that does not expose ETag to the browser.
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every uploaded part needs its ETag");
+            }
+            var completedParts = parts.stream()
+                    .sorted(Comparator.comparingInt(UploadedPart::partNumber))
+                    .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                    .toList();
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .uploadId(session.uploadId())
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+        }
+
+        try {
+            var head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(properties.getBucket())
+                    .key(key)
+                    .build());
+            if (head.contentLength() > session.maxSize() || !session.contentType().equals(head.contentType())) {
+                // The key was issued by start and never recorded, so nothing else refers to it.
+                jdbcTemplate.update(DELETE_SESSION_SQL, key);
+                deleteQuietly(key);
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uploaded file does not match the upload session");
+            }
+        } catch (NoSuchKeyException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uploaded file not found", ex);
+        }
+        return "s3://" + properties.getBucket() + "/" + key;
+    }
+
+    /**
+     * Ends the session of a completed upload. Call it in the transaction that records the
+     * object: a second request completing the same key then fails here instead of recording
+     * the object twice.
+     */
+    public void consume(String key) {
+        if (jdbcTemplate.update(DELETE_SESSION_SQL, key) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "This upload was already completed");
+        }
+    }
+
+    /**
+     * Abandons a multipart upload so S3 discards the parts already sent.
+     */
+    public void abort(String key, String expectedPrefix) {
+        Session session = requireSession(key, expectedPrefix);
+        if (session.uploadId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only multipart uploads can be aborted");
+        }
+        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(properties.getBucket())
+                .key(key)
+                .uploadId(session.uploadId())
+                .build());
+        jdbcTemplate.update(DELETE_SESSION_SQL, key);
+    }
+
+    /**
+     * Drops sessions that were never completed. Their objects, if any, are left to the
+     * storage garbage collector.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.s3.upload-session-purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update(PURGE_SQL);
+        if (purged > 0) {
+            logger.info("Purged {} expired upload sessions", purged);
+        }
+    }
+
+    private void recordSession(String key, String uploadId, String contentType, long maxSize) {
+        var expiresAt = Instant.now().plus(Duration.ofHours(Math.max(1, properties.getUploadSessionHours())));
+        jdbcTemplate.update(INSERT_SESSION_SQL, key, uploadId, contentType, maxSize, Timestamp.from(expiresAt));
+    }
+
+    private Session requireSession(String key, String expectedPrefix) {
+        Session session = key == null || !key.startsWith(expectedPrefix)
+                ? null
+                : jdbcTemplate.query(FIND_SESSION_SQL,
+                        rs -> rs.next() ? new Session(rs.getString(1), rs.getString(2), rs.getLong(3)) : null,
+                        key);
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No open upload session for this key");
+        }
+        return session;
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            s3Client.deleteObject(builder -> builder.bucket(properties.getBucket()).key(key));
+        } catch (RuntimeException ignored) {
+            // Left for the storage cleanup; the upload is rejected either way.
+        }
+    }
+
+    /**
+     * Presigned upload instructions. {@code uploadId} is null for a single PUT; otherwise
+     * the file is split into {@code partSize} chunks sent to the part URLs in order.
+     */
+    public record UploadSession(String key, String uploadId, long partSize, List<PartUrl> parts, int expiresInSeconds) {}
+
+    public record PartUrl(int partNumber, String url) {}
+
+    public record UploadedPart(int partNumber, String eTag) {}
+
+    private record Session(String uploadId, String contentType, long maxSize) {}
+}
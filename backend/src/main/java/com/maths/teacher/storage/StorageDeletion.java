@@ -0,0 +1,57 @@
+package com.maths.teacher.storage;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A storage object waiting to be deleted by {@link StorageDeletionWorker}.
+ */
+@Entity
+@Table(
+        name = "storage_deletions",
+        indexes = @Index(name = "idx_storage_deletions_next_attempt", columnList = "next_attempt_at")
+)
+public class StorageDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "storage_url", nullable = false, length = 1024)
+    private String storageUrl;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    protected StorageDeletion() {
+        // for JPA
+    }
+
+    public StorageDeletion(String storageUrl) {
+        this.storageUrl = storageUrl;
+        this.createdAt = Instant.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public Long getId() { return id; }
+    public String getStorageUrl() { return storageUrl; }
+    public int getAttempts() { return attempts; }
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public String getLastError() { return lastError; }
+    public Instant getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,29 @@
+package com.maths.teacher.storage;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Schedules storage objects for deletion.
+ *
+ * The row is written in the caller's transaction, so the object is only deleted if the
+ * database change that stopped referencing it commits. The S3 call itself happens later
+ * in {@link StorageDeletionWorker}, outside any request transaction.
+ */
+@Service
+public class StorageDeletionQueue {
+
+    private final StorageDeletionRepository storageDeletionRepository;
+
+    public StorageDeletionQueue(StorageDeletionRepository storageDeletionRepository) {
+        this.storageDeletionRepository = storageDeletionRepository;
+    }
+
+    @Transactional
+    public void enqueue(String storageUrl) {
+        if (storageUrl == null || storageUrl.isBlank()) {
+            return;
+        }
+        storageDeletionRepository.save(new StorageDeletion(storageUrl));
+    }
+}
@@ -0,0 +1,41 @@
+package com.maths.teacher.storage;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface StorageDeletionRepository extends JpaRepository<StorageDeletion, Long> {
+
+    /**
+     * Claims up to {@code limit} due rows by pushing their next attempt out by the lease.
+     * SKIP LOCKED lets several instances drain the table without blocking each other, and
+     * a worker that dies mid-batch simply lets the lease run out.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE storage_deletions
+               SET attempts = attempts + 1,
+                   next_attempt_at = NOW() + make_interval(secs => :leaseSeconds)
+             WHERE id IN (SELECT id FROM storage_deletions
+                           WHERE next_attempt_at <= NOW()
+                           ORDER BY id
+                           LIMIT :limit
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<StorageDeletion> claimDue(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE storage_deletions
+               SET next_attempt_at = NOW() + make_interval(secs => :delaySeconds),
+                   last_error = :error
+             WHERE id IN (:ids)
+            """, nativeQuery = true)
+    int reschedule(@Param("ids") Collection<Long> ids, @Param("delaySeconds") long delaySeconds, @Param("error") String error);
+}
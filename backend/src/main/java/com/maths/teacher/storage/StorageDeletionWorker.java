@@ -0,0 +1,170 @@
+package com.maths.teacher.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+
+/**
+ * Drains the storage_deletions outbox with batched S3 DeleteObjects calls.
+ *
+ * Rows are claimed with a lease, deleted from S3 in chunks of up to 1000 keys per bucket,
+ * then removed from the table. Keys S3 reports as failed are retried with exponential
+ * backoff. Storage URLs that cannot be parsed are logged and dropped.
+ */
+@Component
+public class StorageDeletionWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageDeletionWorker.class);
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private final StorageDeletionRepository storageDeletionRepository;
+    private final S3Client s3Client;
+    private final S3Properties s3Properties;
+    private final StorageDeletionProperties properties;
+    private final Counter deleted;
+    private final Counter failed;
+    private final Counter dropped;
+    private final Timer batchTimer;
+
+    public StorageDeletionWorker(
+            StorageDeletionRepository storageDeletionRepository,
+            S3Client s3Client,
+            S3Properties s3Properties,
+            StorageDeletionProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.storageDeletionRepository = storageDeletionRepository;
+        this.s3Client = s3Client;
+        this.s3Properties = s3Properties;
+        this.properties = properties;
+        this.deleted = meterRegistry.counter("storage.deletions", "result", "deleted");
+        this.failed = meterRegistry.counter("storage.deletions", "result", "failed");
+        this.dropped = meterRegistry.counter("storage.deletions", "result", "dropped");
+        this.batchTimer = meterRegistry.timer("storage.deletions.batch");
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.storage.deletion.initial-delay-ms:30000}",
+            fixedDelayString = "${app.storage.deletion.poll-interval-ms:10000}"
+    )
+    public void drain() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<StorageDeletion> claimed;
+        do {
+            claimed = storageDeletionRepository.claimDue(batchSize, properties.getLeaseSeconds());
+            if (!claimed.isEmpty()) {
+                List<StorageDeletion> batch = claimed;
+                batchTimer.record(() -> process(batch));
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    private void process(List<StorageDeletion> claimed) {
+        // bucket -> key -> outbox row IDs (the same object may have been queued twice)
+        Map<String, Map<String, List<Long>>> byBucket = new HashMap<>();
+        Map<Long, Integer> attemptsById = new HashMap<>();
+        List<Long> done = new ArrayList<>();
+
+        for (StorageDeletion deletion : claimed) {
+            attemptsById.put(deletion.getId(), deletion.getAttempts());
+            try {
+                var location = S3LocationResolver.resolve(deletion.getStorageUrl(), s3Properties);
+                byBucket.computeIfAbsent(location.bucket(), bucket -> new LinkedHashMap<>())
+                        .computeIfAbsent(location.key(), key -> new ArrayList<>())
+                        .add(deletion.getId());
+            } catch (RuntimeException ex) {
+                logger.error("Dropping storage deletion {} with unusable URL {}: {}",
+                        deletion.getId(), deletion.getStorageUrl(), ex.getMessage());
+                dropped.increment();
+                done.add(deletion.getId());
+            }
+        }
+
+        Map<Long, String> errors = new HashMap<>();
+        byBucket.forEach((bucket, keys) -> {
+            var keyList = new ArrayList<>(keys.keySet());
+            for (int from = 0; from < keyList.size(); from += MAX_KEYS_PER_REQUEST) {
+                var chunk = keyList.subList(from, Math.min(from + MAX_KEYS_PER_REQUEST, keyList.size()));
+                deleteChunk(bucket, chunk, keys, done, errors);
+            }
+        });
+
+        if (!done.isEmpty()) {
+            storageDeletionRepository.deleteAllByIdInBatch(done);
+        }
+        rescheduleFailures(errors, attemptsById);
+    }
+
+    private void deleteChunk(
+            String bucket,
+            List<String> chunk,
+            Map<String, List<Long>> idsByKey,
+            List<Long> done,
+            Map<Long, String> errors
+    ) {
+        try {
+            var response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucket)
+                    .delete(Delete.builder()
+                            .quiet(true)
+                            .objects(chunk.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                            .build())
+                    .build());
+
+            Map<String, String> failedKeys = new HashMap<>();
+            response.errors().forEach(error -> failedKeys.put(error.key(), error.code() + ": " + error.message()));
+            for (String key : chunk) {
+                String error = failedKeys.get(key);
+                if (error == null) {
+                    done.addAll(idsByKey.get(key));
+                    deleted.increment();
+                } else {
+                    idsByKey.get(key).forEach(id -> errors.put(id, error));
+                    failed.increment();
+                }
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("DeleteObjects failed for {} keys in bucket {}: {}", chunk.size(), bucket, ex.getMessage());
+            for (String key : chunk) {
+                idsByKey.get(key).forEach(id -> errors.put(id, ex.getMessage()));
+            }
+            failed.increment(chunk.size());
+        }
+    }
+
+    private void rescheduleFailures(Map<Long, String> errors, Map<Long, Integer> attemptsById) {
+        // One UPDATE per distinct (delay, error) pair; failures in a batch usually share both.
+        Map<Long, Map<String, List<Long>>> grouped = new HashMap<>();
+        errors.forEach((id, error) -> grouped
+                .computeIfAbsent(backoffSeconds(attemptsById.get(id)), delay -> new HashMap<>())
+                .computeIfAbsent(truncate(error), e -> new ArrayList<>())
+                .add(id));
+        grouped.forEach((delay, byError) -> byError.forEach((error, ids) ->
+                storageDeletionRepository.reschedule(ids, delay, error)));
+    }
+
+    private long backoffSeconds(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(properties.getInitialBackoffSeconds() << exponent, properties.getMaxBackoffSeconds());
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return "unknown error";
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
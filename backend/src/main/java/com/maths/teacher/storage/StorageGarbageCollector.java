@@ -0,0 +1,226 @@
+package com.maths.teacher.storage;
+
+import com.maths.teacher.catalog.exception.ErrorMessages;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Finds S3 objects that no database row references and queues them for deletion.
+ *
+ * For each configured prefix the bucket listing is walked page by page (S3 returns keys in
+ * UTF-8 byte order). Each page is merged against the referenced keys between its first and
+ * last key, read in the same order with {@code COLLATE "C"}, so memory is bounded by one
+ * page. Every page is its own short query and enqueue; no transaction stays open while S3
+ * is listed. Objects younger than the grace period are skipped so uploads whose row has not
+ * been written yet are left alone. Orphans go through the deletion outbox, so the actual
+ * delete is batched and retried.
+ */
+@Service
+public class StorageGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageGarbageCollector.class);
+    private static final long ADVISORY_LOCK_ID = 0x5354474743L; // "STGGC"
+
+    // Every key the database still points at, including ones already queued for deletion
+    // and ones handed out to uploads that may still be completed. storage_key() decodes URLs
+    // like S3LocationResolver and ignores the bucket: over-matching only means an object is
+    // kept, never that a referenced one is deleted.
+    private static final String REFERENCED_KEYS_SQL = """
+            SELECT key FROM (
+                SELECT storage_key(file_url) AS key FROM video_pdfs
+                UNION
+                SELECT storage_key(thumbnail_url) FROM courses WHERE thumbnail_url <> ''
+                UNION
+                SELECT storage_key(storage_url) FROM storage_deletions
+                UNION
+                SELECT object_key FROM upload_sessions
+            ) refs
+            WHERE key COLLATE "C" >= ? AND key COLLATE "C" <= ?
+            ORDER BY key COLLATE "C"
+            """;
+
+    private final S3Client s3Client;
+    private final S3Properties s3Properties;
+    private final StorageGcProperties properties;
+    private final StorageDeletionRepository storageDeletionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter orphansFound;
+
+    public StorageGarbageCollector(
+            S3Client s3Client,
+            S3Properties s3Properties,
+            StorageGcProperties properties,
+            StorageDeletionRepository storageDeletionRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.s3Client = s3Client;
+        this.s3Properties = s3Properties;
+        this.properties = properties;
+        this.storageDeletionRepository = storageDeletionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.orphansFound = meterRegistry.counter("storage.gc.orphans");
+    }
+
+    @Scheduled(cron = "${app.storage.gc.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            var report = run(properties.isDryRun());
+            logger.info("Storage GC finished: {}", report);
+        } catch (ResponseStatusException ex) {
+            logger.info("Storage GC skipped: {}", ex.getReason());
+        }
+    }
+
+    /**
+     * Runs one reconciliation pass. In dry-run mode nothing is queued; the report lists
+     * what would have been deleted.
+     */
+    public GcReport run(boolean dryRun) {
+        String bucket = s3Properties.getBucket();
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalStateException(ErrorMessages.S3_BUCKET_REQUIRED);
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofHours(properties.getGraceHours()));
+
+        // The lock is held on one pooled connection for the run; the pages use others.
+        return jdbcTemplate.execute((ConnectionCallback<GcReport>) connection -> {
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                lock.setLong(1, ADVISORY_LOCK_ID);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Storage cleanup is already running");
+                    }
+                }
+            }
+            try {
+                var report = new ReportBuilder(dryRun, properties.getReportSampleSize());
+                for (String prefix : properties.getPrefixes()) {
+                    for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(prefix))) {
+                        if (page.hasContents() && !page.contents().isEmpty()) {
+                            scanPage(bucket, page.contents(), cutoff, report);
+                        }
+                    }
+                }
+                return report.build();
+            } finally {
+                try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, ADVISORY_LOCK_ID);
+                    unlock.execute();
+                }
+            }
+        });
+    }
+
+    private void scanPage(String bucket, List<S3Object> objects, Instant cutoff, ReportBuilder report) {
+        List<String> referenced = jdbcTemplate.queryForList(REFERENCED_KEYS_SQL, String.class,
+                objects.get(0).key(), objects.get(objects.size() - 1).key());
+        Iterator<String> refs = referenced.iterator();
+        String ref = refs.hasNext() ? refs.next() : null;
+
+        var pending = new ArrayList<StorageDeletion>();
+        for (S3Object object : objects) {
+            report.scanned++;
+            while (ref != null && compareUtf8(ref, object.key()) < 0) {
+                ref = refs.hasNext() ? refs.next() : null;
+            }
+            if (ref != null && ref.equals(object.key())) {
+                continue;
+            }
+            if (object.lastModified().isAfter(cutoff)) {
+                report.recentSkipped++;
+                continue;
+            }
+
+            report.orphan(object);
+            orphansFound.increment();
+            if (!report.dryRun) {
+                pending.add(new StorageDeletion("s3://" + bucket + "/" + object.key()));
+            }
+        }
+        if (!pending.isEmpty()) {
+            storageDeletionRepository.saveAll(pending);
+        }
+    }
+
+    /**
+     * Orders strings by code point, which matches both S3's UTF-8 byte order and
+     * PostgreSQL's "C" collation. String.compareTo differs for supplementary characters.
+     */
+    static int compareUtf8(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static final class ReportBuilder {
+
+        private final boolean dryRun;
+        private final int sampleSize;
+        private final Instant startedAt = Instant.now();
+        private final List<String> sample = new ArrayList<>();
+        private long scanned;
+        private long recentSkipped;
+        private long orphans;
+        private long orphanBytes;
+
+        private ReportBuilder(boolean dryRun, int sampleSize) {
+            this.dryRun = dryRun;
+            this.sampleSize = sampleSize;
+        }
+
+        private void orphan(S3Object object) {
+            orphans++;
+            orphanBytes += object.size() != null ? object.size() : 0;
+            if (sample.size() < sampleSize) {
+                sample.add(object.key());
+            }
+        }
+
+        private GcReport build() {
+            return new GcReport(dryRun, scanned, recentSkipped, orphans, orphanBytes,
+                    List.copyOf(sample), startedAt, Instant.now());
+        }
+    }
+
+    public record GcReport(
+            boolean dryRun,
+            long scannedObjects,
+            long recentObjectsSkipped,
+            long orphanObjects,
+            long orphanBytes,
+            List<String> orphanSample,
+            Instant startedAt,
+            Instant finishedAt
+    ) {}
+}
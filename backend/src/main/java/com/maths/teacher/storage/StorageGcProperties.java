@@ -0,0 +1,54 @@
+package com.maths.teacher.storage;
+
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.storage.gc")
+public class StorageGcProperties {
+
+    private boolean enabled = true;
+    private boolean dryRun = true;
+    private long graceHours = 24;
+    private List<String> prefixes = List.of("videos/", "courses/");
+    private int reportSampleSize = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public long getGraceHours() {
+        return graceHours;
+    }
+
+    public void setGraceHours(long graceHours) {
+        this.graceHours = graceHours;
+    }
+
+    public List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    public void setPrefixes(List<String> prefixes) {
+        this.prefixes = prefixes;
+    }
+
+    public int getReportSampleSize() {
+        return reportSampleSize;
+    }
+
+    public void setReportSampleSize(int reportSampleSize) {
+        this.reportSampleSize = reportSampleSize;
+    }
+}
@@ -0,0 +1,20 @@
+-- Mobile numbers are stored in E.164 (+91XXXXXXXXXX) so login and the uq_users_mobile
+-- constraint see one form per number. Rewrites older 10-digit / 91-prefixed rows unless
+-- the canonical form is already taken by another account; registration checks every
+-- stored form, so those leftovers still block a duplicate signup.
+DO $$
+BEGIN
+    IF to_regclass('users') IS NULL THEN
+        RETURN; -- empty database; docker/init creates the table in canonical form
+    END IF;
+
+    UPDATE users u
+    SET mobile_number = '+91' || right(regexp_replace(u.mobile_number, '[^0-9]', '', 'g'), 10)
+    WHERE regexp_replace(u.mobile_number, '[^0-9]', '', 'g') ~ '^(91)?[0-9]{10}$'
+      AND u.mobile_number <> '+91' || right(regexp_replace(u.mobile_number, '[^0-9]', '', 'g'), 10)
+      AND NOT EXISTS (
+          SELECT 1 FROM users other
+          WHERE other.mobile_number = '+91' || right(regexp_replace(u.mobile_number, '[^0-9]', '', 'g'), 10)
+      );
+END
+$$;
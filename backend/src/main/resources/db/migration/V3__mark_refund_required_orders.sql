@@ -0,0 +1,16 @@
+-- Payments for a course the user already owned used to leave their order PAID with no
+-- purchase, which the payment reconciler then selected on every run. Such orders are now
+-- REFUND_REQUIRED (see PaymentFulfillmentService); this settles the ones recorded before.
+DO $$
+BEGIN
+    IF to_regclass('payment_orders') IS NULL THEN
+        RETURN; -- empty database; docker/init creates the tables
+    END IF;
+
+    UPDATE payment_orders o
+    SET status = 'REFUND_REQUIRED'
+    WHERE o.status = 'PAID'
+      AND NOT EXISTS (SELECT 1 FROM purchases p WHERE p.razorpay_order_id = o.razorpay_order_id)
+      AND EXISTS (SELECT 1 FROM purchases p WHERE p.user_id = o.user_id AND p.course_id = o.course_id);
+END
+$$;
@@ -0,0 +1,46 @@
+-- Storage deletion outbox, upload sessions and storage_key(), as in sections 7 and 12 of
+-- docker/init/000_consolidated.sql, for databases created before they were added there.
+DO $$
+BEGIN
+    IF to_regclass('users') IS NULL THEN
+        RETURN; -- empty database; docker/init creates the schema
+    END IF;
+
+    CREATE TABLE IF NOT EXISTS storage_deletions (
+        id              BIGSERIAL PRIMARY KEY,
+        storage_url     VARCHAR(1024) NOT NULL,
+        attempts        INTEGER       NOT NULL DEFAULT 0,
+        next_attempt_at TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+        last_error      VARCHAR(1000),
+        created_at      TIMESTAMPTZ   NOT NULL DEFAULT NOW()
+    );
+    CREATE INDEX IF NOT EXISTS idx_storage_deletions_next_attempt ON storage_deletions(next_attempt_at);
+
+    CREATE TABLE IF NOT EXISTS upload_sessions (
+        object_key   VARCHAR(1024) PRIMARY KEY,
+        upload_id    VARCHAR(1024),
+        content_type VARCHAR(100)  NOT NULL,
+        max_size     BIGINT        NOT NULL,
+        expires_at   TIMESTAMPTZ   NOT NULL,
+        created_at   TIMESTAMPTZ   NOT NULL DEFAULT NOW()
+    );
+    CREATE INDEX IF NOT EXISTS idx_upload_sessions_expires_at ON upload_sessions(expires_at);
+
+    CREATE OR REPLACE FUNCTION storage_key(url TEXT)
+    RETURNS TEXT
+    LANGUAGE sql STABLE PARALLEL SAFE
+    AS $fn$
+        SELECT CASE
+            WHEN url LIKE 's3://%' THEN regexp_replace(url, '^s3://[^/]*/', '')
+            WHEN url LIKE 'https://%' THEN (
+                SELECT convert_from(coalesce(string_agg(
+                           CASE WHEN m[1] IS NOT NULL THEN decode(m[1], 'hex') ELSE convert_to(m[2], 'UTF8') END,
+                           ''::bytea ORDER BY n), ''::bytea), 'UTF8')
+                FROM regexp_matches(regexp_replace(url, '^https://[^/]*/?|[?#].*$', '', 'g'),
+                                    '%([0-9A-Fa-f]{2})|([^%]+|%)', 'g') WITH ORDINALITY AS parts(m, n)
+            )
+            ELSE url
+        END
+    $fn$;
+END
+$$;
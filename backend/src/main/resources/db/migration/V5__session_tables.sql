@@ -0,0 +1,42 @@
+-- Refresh tokens, access-token revocation and OTP attempt counting, as in sections 6 and 8
+-- of docker/init/000_consolidated.sql, for databases created before they were added there.
+DO $$
+BEGIN
+    IF to_regclass('users') IS NULL THEN
+        RETURN; -- empty database; docker/init creates the schema
+    END IF;
+
+    ALTER TABLE password_reset_otps ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+    CREATE INDEX IF NOT EXISTS idx_prt_expires_at ON password_reset_otps(expires_at);
+
+    CREATE TABLE IF NOT EXISTS refresh_tokens (
+        id          BIGSERIAL PRIMARY KEY,
+        user_id     BIGINT      NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+        family_id   UUID        NOT NULL,
+        token_hash  VARCHAR(64) NOT NULL,
+        created_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+        expires_at  TIMESTAMPTZ NOT NULL,
+        revoked_at  TIMESTAMPTZ,
+        CONSTRAINT uq_refresh_tokens_hash UNIQUE (token_hash)
+    );
+    CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON refresh_tokens(user_id);
+    CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens(family_id);
+    CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
+
+    CREATE TABLE IF NOT EXISTS revoked_tokens (
+        jti         VARCHAR(64) PRIMARY KEY,
+        user_id     BIGINT      NOT NULL,
+        expires_at  TIMESTAMPTZ NOT NULL,
+        revoked_at  TIMESTAMPTZ NOT NULL DEFAULT NOW()
+    );
+    CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
+    CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
+
+    CREATE TABLE IF NOT EXISTS user_token_revocations (
+        user_id         BIGINT      PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+        revoked_before  TIMESTAMPTZ NOT NULL,
+        updated_at      TIMESTAMPTZ NOT NULL DEFAULT NOW()
+    );
+    CREATE INDEX IF NOT EXISTS idx_user_token_revocations_updated_at ON user_token_revocations(updated_at);
+END
+$$;
@@ -0,0 +1,23 @@
+-- Trigram search over users, as in section 9 of docker/init/000_consolidated.sql, for
+-- databases created before it was added there. The GIN index is built under a write lock
+-- on users; on a large table, create it CONCURRENTLY by hand first and this is a no-op.
+DO $$
+BEGIN
+    IF to_regclass('users') IS NULL THEN
+        RETURN; -- empty database; docker/init creates the schema
+    END IF;
+
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+    CREATE OR REPLACE FUNCTION user_search_text(first_name TEXT, last_name TEXT, email TEXT, mobile_number TEXT)
+    RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+    AS $fn$
+        SELECT lower(coalesce(first_name, '') || ' ' || coalesce(last_name, '') || ' '
+                     || coalesce(email, '') || ' ' || coalesce(mobile_number, ''))
+    $fn$;
+
+    CREATE INDEX IF NOT EXISTS idx_users_search_trgm
+        ON users USING GIN (user_search_text(first_name, last_name, email, mobile_number) gin_trgm_ops);
+END
+$$;
@@ -0,0 +1,41 @@
+-- Webhook inbox, idempotency keys and payment order indexes, as in sections 4, 10 and 11
+-- of docker/init/000_consolidated.sql, for databases created before they were added there.
+DO $$
+BEGIN
+    IF to_regclass('users') IS NULL THEN
+        RETURN; -- empty database; docker/init creates the schema
+    END IF;
+
+    CREATE INDEX IF NOT EXISTS idx_payment_orders_pending
+        ON payment_orders(user_id, course_id, created_at DESC) WHERE status = 'CREATED';
+    CREATE INDEX IF NOT EXISTS idx_payment_orders_created_at ON payment_orders(created_at, id);
+
+    CREATE TABLE IF NOT EXISTS payment_webhook_events (
+        id              BIGSERIAL PRIMARY KEY,
+        event_id        VARCHAR(100)  NOT NULL,
+        event_type      VARCHAR(100)  NOT NULL,
+        payload         TEXT          NOT NULL,
+        status          VARCHAR(20)   NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'PROCESSED', 'IGNORED', 'FAILED')),
+        attempts        INTEGER       NOT NULL DEFAULT 0,
+        next_attempt_at TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+        last_error      VARCHAR(1000),
+        received_at     TIMESTAMPTZ   NOT NULL DEFAULT NOW(),
+        processed_at    TIMESTAMPTZ,
+        CONSTRAINT uq_payment_webhook_events_event_id UNIQUE (event_id)
+    );
+    CREATE INDEX IF NOT EXISTS idx_payment_webhook_events_due
+        ON payment_webhook_events(next_attempt_at) WHERE status = 'PENDING';
+    CREATE INDEX IF NOT EXISTS idx_payment_webhook_events_received_at ON payment_webhook_events(received_at);
+
+    CREATE TABLE IF NOT EXISTS idempotency_keys (
+        key_hash     VARCHAR(64)  PRIMARY KEY,
+        fingerprint  VARCHAR(64)  NOT NULL,
+        status_code  INTEGER      NOT NULL,
+        content_type VARCHAR(255),
+        body         BYTEA        NOT NULL,
+        expires_at   TIMESTAMPTZ  NOT NULL,
+        created_at   TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+    );
+    CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
+END
+$$;
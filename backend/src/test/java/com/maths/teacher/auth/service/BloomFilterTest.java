@@ -0,0 +1,49 @@
+package com.maths.teacher.auth.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void neverForgetsAnInsertedValue() {
+        var filter = new BloomFilter(10_000, 0.01);
+        var inserted = new ArrayList<String>();
+        for (int i = 0; i < 10_000; i++) {
+            String value = i % 2 == 0 ? UUID.randomUUID().toString() : "token-" + i;
+            filter.put(value);
+            inserted.add(value);
+        }
+
+        assertThat(inserted).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        var filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        var filter = new BloomFilter(0, 0);
+
+        assertThat(filter.mightContain(UUID.randomUUID().toString())).isFalse();
+        assertThat(filter.mightContain("not-a-uuid")).isFalse();
+    }
+}
@@ -0,0 +1,96 @@
+package com.maths.teacher.auth.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+import com.maths.teacher.auth.domain.PasswordResetOtp;
+import com.maths.teacher.auth.repository.PasswordResetOtpRepository;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@Tag("integration")
+@ActiveProfiles("bench")
+@SpringBootTest
+class PasswordResetServiceIntegrationTest {
+
+    private static final String MARKER = "password-reset-it@example.com";
+    private static final String MOBILE = "+919876500010";
+    private static final String OTP = "123456";
+
+    @Autowired
+    private PasswordResetService passwordResetService;
+    @Autowired
+    private PasswordResetOtpRepository otpRepository;
+    @Autowired
+    private OtpHasher otpHasher;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
+    private PasswordHashingService passwordHashingService;
+
+    private long userId;
+    private long otpId;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        userId = jdbcTemplate.queryForObject("""
+                INSERT INTO users (first_name, last_name, email, mobile_number, password_hash)
+                VALUES ('Reset', 'Test', ?, ?, 'old-hash') RETURNING id
+                """, Long.class, MARKER, MOBILE);
+        otpId = otpRepository.save(new PasswordResetOtp(userId, MOBILE, otpHasher.hash(MOBILE, OTP),
+                Instant.now().plusSeconds(600))).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM password_reset_otps WHERE mobile_number = ?", MOBILE);
+        jdbcTemplate.update("DELETE FROM users WHERE email = ?", MARKER);
+    }
+
+    @Test
+    void busyHashingLeavesOtpUsable() {
+        when(passwordHashingService.encode(any())).thenThrow(new HashingBusyException(2));
+
+        assertThatThrownBy(() -> passwordResetService.resetPassword(MOBILE, OTP, "new-password"))
+                .isInstanceOf(HashingBusyException.class);
+
+        assertThat(otp()).containsEntry("used", false).containsEntry("attempts", 0);
+        assertThat(passwordHash()).isEqualTo("old-hash");
+
+        doReturn("new-hash").when(passwordHashingService).encode(any());
+        passwordResetService.resetPassword(MOBILE, OTP, "new-password");
+
+        assertThat(otp()).containsEntry("used", true);
+        assertThat(passwordHash()).isEqualTo("new-hash");
+    }
+
+    @Test
+    void wrongOtpKeepsTheSpentAttempt() {
+        assertThatThrownBy(() -> passwordResetService.resetPassword(MOBILE, "000000", "new-password"))
+                .isInstanceOf(OtpRejectedException.class)
+                .hasMessageContaining("Invalid OTP");
+
+        assertThat(otp()).containsEntry("used", false).containsEntry("attempts", 1);
+    }
+
+    private Map<String, Object> otp() {
+        return jdbcTemplate.queryForMap("SELECT used, attempts FROM password_reset_otps WHERE id = ?", otpId);
+    }
+
+    private String passwordHash() {
+        return jdbcTemplate.queryForObject("SELECT password_hash FROM users WHERE id = ?", String.class, userId);
+    }
+}
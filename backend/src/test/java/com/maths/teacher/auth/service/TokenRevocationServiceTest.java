@@ -0,0 +1,33 @@
+package com.maths.teacher.auth.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.maths.teacher.auth.config.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class TokenRevocationServiceTest {
+
+    private final TokenRevocationService service = new TokenRevocationService(
+            mock(JdbcTemplate.class), new JwtProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void revokeAllForUserKeepsTokensIssuedAfterIt() {
+        Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        service.revokeAllForUser(7L);
+        // iat has second precision: a sign-in right after the revocation carries this second.
+        Instant signedInAfter = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        assertThat(service.isRevoked(principal(7L, before.minusSeconds(1)))).isTrue();
+        assertThat(service.isRevoked(principal(7L, signedInAfter))).isFalse();
+        assertThat(service.isRevoked(principal(8L, before.minusSeconds(1)))).isFalse();
+    }
+
+    private static JwtPrincipal principal(Long userId, Instant issuedAt) {
+        return new JwtPrincipal(userId, "STUDENT", null, issuedAt, issuedAt.plusSeconds(900));
+    }
+}
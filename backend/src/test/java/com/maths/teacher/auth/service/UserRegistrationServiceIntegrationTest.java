@@ -0,0 +1,79 @@
+package com.maths.teacher.auth.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.maths.teacher.auth.domain.User;
+import com.maths.teacher.catalog.exception.ErrorMessages;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+@Tag("integration")
+@ActiveProfiles("bench")
+@SpringBootTest
+class UserRegistrationServiceIntegrationTest {
+
+    private static final String MARKER = "registration-it";
+
+    @Autowired
+    private UserRegistrationService userRegistrationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE ?", MARKER + "%");
+    }
+
+    @Test
+    void migrationsRanOnExistingDatabase() {
+        Integer applied = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM flyway_schema_history WHERE version = '2' AND success", Integer.class);
+        assertThat(applied).isEqualTo(1);
+    }
+
+    @Test
+    void storesCanonicalMobileAndReturnsId() {
+        User user = userRegistrationService.register(" Asha ", "Rao", MARKER + "-new@Example.com",
+                "98765 00001", "password123");
+
+        assertThat(user.getId()).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT mobile_number FROM users WHERE id = ?", String.class, user.getId()))
+                .isEqualTo("+919876500001");
+        assertThat(user.getEmail()).isEqualTo(MARKER + "-new@example.com");
+        assertThat(user.getFirstName()).isEqualTo("Asha");
+    }
+
+    @Test
+    void rejectsMobileHeldInLegacyForm() {
+        jdbcTemplate.update("""
+                INSERT INTO users (first_name, last_name, email, mobile_number, password_hash)
+                VALUES ('Old', 'Account', ?, '9876500002', 'x')
+                """, MARKER + "-legacy@example.com");
+
+        assertThatThrownBy(() -> userRegistrationService.register("New", "Account", MARKER + "-other@example.com",
+                "+91 98765 00002", "password123"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getReason()).isEqualTo(ErrorMessages.MOBILE_ALREADY_REGISTERED));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE email LIKE ?", Integer.class, MARKER + "%"))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void rejectsDuplicateEmail() {
+        userRegistrationService.register("A", "B", MARKER + "-dup@example.com", "9876500003", "password123");
+
+        assertThatThrownBy(() -> userRegistrationService.register("C", "D", MARKER + "-DUP@example.com",
+                "9876500004", "password123"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getReason()).isEqualTo(ErrorMessages.EMAIL_ALREADY_REGISTERED));
+    }
+}
@@ -0,0 +1,54 @@
+package com.maths.teacher.auth.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LoginIdentifiersTest {
+
+    @Test
+    void normalizesIndianMobilesToE164() {
+        assertThat(LoginIdentifiers.toE164("9876543210")).isEqualTo("+919876543210");
+        assertThat(LoginIdentifiers.toE164(" 98765 43210 ")).isEqualTo("+919876543210");
+        assertThat(LoginIdentifiers.toE164("919876543210")).isEqualTo("+919876543210");
+        assertThat(LoginIdentifiers.toE164("+91-98765-43210")).isEqualTo("+919876543210");
+        assertThat(LoginIdentifiers.toE164("09876543210")).isEqualTo("+919876543210");
+        assertThat(LoginIdentifiers.toE164("+14155550123")).isEqualTo("+14155550123");
+        assertThat(LoginIdentifiers.toE164(null)).isEmpty();
+        assertThat(LoginIdentifiers.toE164("abc")).isEqualTo("abc");
+    }
+
+    @Test
+    void mobileVariantsCoverLegacyForms() {
+        assertThat(LoginIdentifiers.mobileVariants("98765 43210"))
+                .containsExactly("+919876543210", "9876543210", "919876543210", "98765 43210");
+        assertThat(LoginIdentifiers.mobileVariants("+919876543210"))
+                .containsExactly("+919876543210", "9876543210", "919876543210");
+        assertThat(LoginIdentifiers.mobileVariants("+14155550123")).containsExactly("+14155550123");
+    }
+
+    @Test
+    void normalizesEmails() {
+        assertThat(LoginIdentifiers.normalizeEmail("  Student@Example.COM ")).isEqualTo("student@example.com");
+        assertThat(LoginIdentifiers.normalizeEmail(null)).isEmpty();
+        assertThat(LoginIdentifiers.isEmail("a@b.c")).isTrue();
+        assertThat(LoginIdentifiers.isEmail("9876543210")).isFalse();
+        assertThat(LoginIdentifiers.isEmail(null)).isFalse();
+    }
+
+    @Test
+    void validatesEmailsLikeSignup() {
+        assertThat(LoginIdentifiers.isValidEmail("student@example.com")).isTrue();
+        assertThat(LoginIdentifiers.isValidEmail("first.last+tag@sub.example.co.in")).isTrue();
+        assertThat(LoginIdentifiers.isValidEmail("a@localhost")).isTrue();
+        assertThat(LoginIdentifiers.isValidEmail("@example.com")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail("student@")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail("two words@example.com")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail("a@b@example.com")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail("dot.@example.com")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail("a@-example.com")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail("a@example..com")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail("x".repeat(65) + "@example.com")).isFalse();
+        assertThat(LoginIdentifiers.isValidEmail(null)).isFalse();
+    }
+}
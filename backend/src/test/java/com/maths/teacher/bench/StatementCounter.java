@@ -0,0 +1,67 @@
+package com.maths.teacher.bench;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Counts every SQL statement the application prepares, whether it comes from Hibernate or
+ * JdbcTemplate. Import it into a benchmark and read {@link #count()} around the measured
+ * calls. The count is global, so background jobs must be kept quiet (the bench profile does).
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementCounter {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+    private final AtomicLong statements = new AtomicLong();
+
+    public long count() {
+        return statements.get();
+    }
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSource(StatementCounter counter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? counter.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    private DataSource wrap(DataSource target) {
+        return proxy(DataSource.class, target, (method, result) ->
+                result instanceof Connection connection && method.getName().equals("getConnection")
+                        ? proxy(Connection.class, connection, (connectionMethod, statement) -> {
+                            if (STATEMENT_METHODS.contains(connectionMethod.getName())) {
+                                statements.incrementAndGet();
+                            }
+                            return statement;
+                        })
+                        : result);
+    }
+
+    private interface AfterCall {
+        Object apply(Method method, Object result);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return afterCall.apply(method, method.invoke(target, args));
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+}
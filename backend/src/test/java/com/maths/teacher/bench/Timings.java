@@ -0,0 +1,37 @@
+package com.maths.teacher.bench;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples from one benchmark scenario, reported in milliseconds.
+ */
+public final class Timings {
+
+    private final long[] nanos;
+    private int size;
+
+    public Timings(int capacity) {
+        this.nanos = new long[capacity];
+    }
+
+    public void record(long elapsedNanos) {
+        nanos[size++] = elapsedNanos;
+    }
+
+    public double percentileMillis(double percentile) {
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    public double meanMillis() {
+        return Arrays.stream(nanos, 0, size).average().orElse(0) / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms (n=%d)",
+                meanMillis(), percentileMillis(50), percentileMillis(95), percentileMillis(99), size);
+    }
+}
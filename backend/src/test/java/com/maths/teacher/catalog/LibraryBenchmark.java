@@ -0,0 +1,210 @@
+package com.maths.teacher.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maths.teacher.auth.service.JwtService;
+import com.maths.teacher.bench.StatementCounter;
+import com.maths.teacher.bench.Timings;
+import com.maths.teacher.catalog.service.CourseContentCache;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares loading a student's library the old way (GET /api/user/courses, then
+ * GET /api/courses/{id}/videos for each course, one after another) with the single
+ * GET /api/user/library call, for a user who owns {@value #COURSES} courses.
+ *
+ * Reports HTTP round trips, SQL statements and latency per library load, with the
+ * per-course content cache cold (just invalidated) and warm.
+ */
+@Tag("benchmark")
+@ActiveProfiles("bench")
+@Import(StatementCounter.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LibraryBenchmark {
+
+    private static final int COURSES = 12;
+    private static final int VIDEOS_PER_COURSE = 8;
+    private static final int PDFS_PER_VIDEO = 2;
+    private static final int WARMUP = 100;
+    private static final int ITERATIONS = 300;
+    private static final String MARKER = "library-benchmark";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private CourseContentCache courseContentCache;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<Long> courseIds = new ArrayList<>();
+    private long userId;
+    private String token;
+
+    @BeforeAll
+    void seed() {
+        cleanUp();
+        userId = jdbcTemplate.queryForObject("""
+                INSERT INTO users (first_name, last_name, email, mobile_number, password_hash)
+                VALUES ('Bench', 'Student', ?, '+910000000004', 'x') RETURNING id
+                """, Long.class, MARKER + "@example.com");
+        for (int c = 0; c < COURSES; c++) {
+            long courseId = jdbcTemplate.queryForObject("""
+                    INSERT INTO courses (title, description, price_paise, thumbnail_url)
+                    VALUES (?, 'Benchmark course', 49900, 'courses/bench/thumbnail.jpg') RETURNING id
+                    """, Long.class, MARKER + " " + c);
+            courseIds.add(courseId);
+            for (int v = 0; v < VIDEOS_PER_COURSE; v++) {
+                long videoId = jdbcTemplate.queryForObject("""
+                        INSERT INTO videos (video_id, title, course_id, thumbnail_url, duration, display_order)
+                        VALUES (?, ?, ?, 'https://img.youtube.com/vi/x/0.jpg', '12:34', ?) RETURNING id
+                        """, Long.class, "yt" + c + "_" + v, "Lesson " + v, courseId, v);
+                for (int p = 0; p < PDFS_PER_VIDEO; p++) {
+                    jdbcTemplate.update("""
+                            INSERT INTO video_pdfs (video_id_fk, title, pdf_type, file_url, display_order)
+                            VALUES (?, ?, ?, ?, ?)
+                            """, videoId, "Notes " + p, p == 0 ? "notes" : "solutions",
+                            "videos/" + videoId + "/pdfs/" + p + ".pdf", p);
+                }
+            }
+            String orderId = MARKER + "-order-" + courseId;
+            jdbcTemplate.update("""
+                    INSERT INTO payment_orders (razorpay_order_id, user_id, course_id, amount_paise, status)
+                    VALUES (?, ?, ?, 49900, 'PAID')
+                    """, orderId, userId, courseId);
+            jdbcTemplate.update("""
+                    INSERT INTO purchases (user_id, course_id, razorpay_order_id, razorpay_payment_id, amount_paise)
+                    VALUES (?, ?, ?, ?, 49900)
+                    """, userId, courseId, orderId, MARKER + "-pay-" + courseId);
+        }
+        token = jwtService.createToken(userId, MARKER + "@example.com", "USER");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM purchases WHERE razorpay_order_id LIKE ?", MARKER + "-%");
+        jdbcTemplate.update("DELETE FROM payment_orders WHERE razorpay_order_id LIKE ?", MARKER + "-%");
+        jdbcTemplate.update("DELETE FROM courses WHERE title LIKE ?", MARKER + " %");
+        jdbcTemplate.update("DELETE FROM users WHERE email = ?", MARKER + "@example.com");
+    }
+
+    @Test
+    void libraryLoad() throws Exception {
+        // Both paths must return the same content before their cost is compared.
+        assertThat(perCourseVideos(loadPerCourse())).isEqualTo(perCourseVideos(loadLibrary()));
+
+        Result perCourseCold = measure("per-course, cold cache", true, this::loadPerCourse);
+        Result libraryCold = measure("library, cold cache", true, this::loadLibrary);
+        Result perCourseWarm = measure("per-course, warm cache", false, this::loadPerCourse);
+        Result libraryWarm = measure("library, warm cache", false, this::loadLibrary);
+
+        System.out.printf("%nLibrary load for %d courses x %d videos x %d PDFs%n",
+                COURSES, VIDEOS_PER_COURSE, PDFS_PER_VIDEO);
+        for (Result result : List.of(perCourseCold, libraryCold, perCourseWarm, libraryWarm)) {
+            System.out.println(result);
+        }
+
+        assertThat(libraryCold.requests()).isEqualTo(1);
+        assertThat(perCourseCold.requests()).isEqualTo(COURSES + 1);
+        assertThat(libraryCold.statements()).isLessThan(perCourseCold.statements());
+    }
+
+    private Result measure(String name, boolean cold, Load load) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            if (cold) {
+                invalidateContent();
+            }
+            load.run();
+        }
+        Timings timings = new Timings(ITERATIONS);
+        long statements = 0;
+        int requests = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (cold) {
+                invalidateContent();
+            }
+            long statementsBefore = statementCounter.count();
+            long start = System.nanoTime();
+            List<JsonNode> responses = load.run();
+            timings.record(System.nanoTime() - start);
+            statements += statementCounter.count() - statementsBefore;
+            requests = responses.size();
+        }
+        return new Result(name, requests, (double) statements / ITERATIONS, timings);
+    }
+
+    private void invalidateContent() {
+        courseIds.forEach(courseContentCache::invalidate);
+    }
+
+    /** The pre-library client: the course list, then each course's videos in turn. */
+    private List<JsonNode> loadPerCourse() throws Exception {
+        List<JsonNode> responses = new ArrayList<>();
+        JsonNode courses = get("/api/user/courses");
+        responses.add(courses);
+        for (JsonNode course : courses.get("purchasedCourses")) {
+            responses.add(get("/api/courses/" + course.get("id").asLong() + "/videos"));
+        }
+        return responses;
+    }
+
+    private List<JsonNode> loadLibrary() throws Exception {
+        return List.of(get("/api/user/library"));
+    }
+
+    private JsonNode get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).as(path).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    /** Video lists in course order, from either response shape. */
+    private static List<JsonNode> perCourseVideos(List<JsonNode> responses) {
+        if (responses.size() == 1) {
+            List<JsonNode> videos = new ArrayList<>();
+            responses.get(0).get("courses").forEach(course -> videos.add(course.get("videos")));
+            return videos;
+        }
+        return responses.subList(1, responses.size());
+    }
+
+    private interface Load {
+        List<JsonNode> run() throws Exception;
+    }
+
+    private record Result(String name, int requests, double statements, Timings timings) {
+        @Override
+        public String toString() {
+            return String.format("%-24s %3d requests %5.1f statements  %s", name, requests, statements, timings);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.maths.teacher.catalog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.maths.teacher.catalog.web.dto.UserSearchPageResponse;
+import com.maths.teacher.catalog.web.dto.UserSearchResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@Tag("integration")
+@ActiveProfiles("bench")
+@SpringBootTest
+class AdminUserServiceIntegrationTest {
+
+    private static final String MARKER = "user-search-it";
+
+    @Autowired
+    private AdminUserService adminUserService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        for (int i = 0; i < 30; i++) {
+            insert("Zephyrine", "Quillfeather", i);
+        }
+        // One letter off: only a typo (word similarity) match for "quillfeather"
+        insert("Zephyrine", "Quilfeather", 30);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE ?", MARKER + "%");
+    }
+
+    @Test
+    void pagesSubstringHitsBeforeTypoHits() {
+        List<UserSearchResponse> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserSearchPageResponse page = adminUserService.searchUsers("quillfeather", cursor, 7);
+            assertThat(page.getUsers()).hasSizeLessThanOrEqualTo(7);
+            all.addAll(page.getUsers());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(all).hasSize(31);
+        assertThat(all).extracting(UserSearchResponse::getId).doesNotHaveDuplicates();
+        assertThat(all.subList(0, 30)).allMatch(user -> user.getLastName().equals("Quillfeather"));
+        assertThat(all.get(30).getLastName()).isEqualTo("Quilfeather");
+        assertThat(adminUserService.searchUsers("quillfeather", null, 7).isTruncated()).isFalse();
+    }
+
+    @Test
+    void cutOffSearchReturnsOnePageWithoutCursor() {
+        // More typo-only matches than the typo tier keeps.
+        for (int i = 31; i < 160; i++) {
+            insert("Zephyrine", "Quilfeather", i);
+        }
+
+        UserSearchPageResponse page = adminUserService.searchUsers("quillfeather", null, 7);
+
+        assertThat(page.getUsers()).hasSize(7);
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    private void insert(String firstName, String lastName, int i) {
+        jdbcTemplate.update("""
+                INSERT INTO users (first_name, last_name, email, mobile_number, password_hash)
+                VALUES (?, ?, ?, ?, 'x')
+                """, firstName, lastName, MARKER + i + "@example.com", "+91555000" + String.format("%04d", i));
+    }
+}
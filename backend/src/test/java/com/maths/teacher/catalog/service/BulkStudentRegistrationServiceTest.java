@@ -0,0 +1,41 @@
+package com.maths.teacher.catalog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BulkStudentRegistrationServiceTest {
+
+    @Test
+    void parsesPlainRows() {
+        assertThat(BulkStudentRegistrationService.parseCsv("firstName,lastName\nAsha,Rao\nRavi,Kumar"))
+                .containsExactly(
+                        List.of("firstName", "lastName"),
+                        List.of("Asha", "Rao"),
+                        List.of("Ravi", "Kumar"));
+    }
+
+    @Test
+    void handlesQuotedCommasLineBreaksAndQuotes() {
+        String csv = "name,note\r\n\"Rao, Asha\",\"line one\nline two\"\r\n\"say \"\"hi\"\"\",\n";
+
+        assertThat(BulkStudentRegistrationService.parseCsv(csv)).containsExactly(
+                List.of("name", "note"),
+                List.of("Rao, Asha", "line one\nline two"),
+                List.of("say \"hi\"", ""));
+    }
+
+    @Test
+    void skipsBlankLinesAndByteOrderMark() {
+        assertThat(BulkStudentRegistrationService.parseCsv("﻿a,b\n\n\r\n1,2\n\n"))
+                .containsExactly(List.of("a", "b"), List.of("1", "2"));
+        assertThat(BulkStudentRegistrationService.parseCsv("")).isEmpty();
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertThat(BulkStudentRegistrationService.parseCsv(",x,\n"))
+                .containsExactly(List.of("", "x", ""));
+    }
+}
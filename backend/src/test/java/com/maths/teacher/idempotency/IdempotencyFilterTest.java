@@ -0,0 +1,78 @@
+package com.maths.teacher.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class IdempotencyFilterTest {
+
+    private final List<String> bodiesSeen = new ArrayList<>();
+    private final FilterChain controller = (request, response) -> {
+        bodiesSeen.add(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"orderId\":" + bodiesSeen.size() + "}");
+    };
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new IdempotencyProperties();
+        var meterRegistry = new SimpleMeterRegistry();
+        filter = new IdempotencyFilter(new IdempotencyStore(properties, mock(JdbcTemplate.class), meterRegistry),
+                properties, new ObjectMapper(), meterRegistry);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("42", null, List.of()));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rejectsKeyReusedForBodyOfSameLength() throws Exception {
+        var first = send("application/json", "{\"courseId\": 1}");
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(bodiesSeen).containsExactly("{\"courseId\": 1}");
+
+        var replay = send("application/json", "{\"courseId\": 1}");
+        assertThat(replay.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replay.getContentAsString()).isEqualTo(first.getContentAsString());
+
+        var reused = send("application/json", "{\"courseId\": 2}");
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(bodiesSeen).hasSize(1);
+    }
+
+    @Test
+    void leavesMultipartBodiesUnread() throws Exception {
+        var response = send("multipart/form-data; boundary=x", "--x--");
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(bodiesSeen).containsExactly("--x--");
+    }
+
+    private MockHttpServletResponse send(String contentType, String body) throws Exception {
+        var request = new MockHttpServletRequest("POST", "/api/payment/create-order");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "checkout-1");
+        request.setContentType(contentType);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, controller);
+        return response;
+    }
+}
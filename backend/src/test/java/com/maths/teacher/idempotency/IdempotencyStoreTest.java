@@ -0,0 +1,65 @@
+package com.maths.teacher.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.maths.teacher.idempotency.IdempotencyStore.Outcome;
+import com.maths.teacher.idempotency.IdempotencyStore.StoredResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+class IdempotencyStoreTest {
+
+    private static final StoredResponse OK = new StoredResponse(200, "application/json",
+            "{\"ok\":true}".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void evictedEntryAnswersClaimsUntilItsSpillIsWritten() throws Exception {
+        var properties = new IdempotencyProperties();
+        properties.setMaxEntries(1);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        // Nothing is in the database until the spill below commits.
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<ResultSetExtractor<Object>>any(), anyString())).thenReturn(null);
+        var spillStarted = new CountDownLatch(1);
+        var releaseSpill = new CountDownLatch(1);
+        when(jdbcTemplate.update(startsWith("INSERT"), any(Object[].class))).thenAnswer(invocation -> {
+            spillStarted.countDown();
+            releaseSpill.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        var store = new IdempotencyStore(properties, jdbcTemplate, new SimpleMeterRegistry());
+
+        assertThat(store.claim("a", "fp-a").outcome()).isEqualTo(Outcome.EXECUTE);
+        store.complete("a", OK);
+        assertThat(store.claim("b", "fp-b").outcome()).isEqualTo(Outcome.EXECUTE);
+        // Completing b pushes a out of memory; its spill blocks until released.
+        var completing = CompletableFuture.runAsync(() -> store.complete("b", OK));
+        assertThat(spillStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        var duringSpill = store.claim("a", "fp-a");
+        assertThat(duringSpill.outcome()).isEqualTo(Outcome.REPLAY);
+        assertThat(duringSpill.response()).isSameAs(OK);
+        assertThat(store.claim("a", "other").outcome()).isEqualTo(Outcome.MISMATCH);
+
+        releaseSpill.countDown();
+        completing.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void hashesBytesLikeTheirUtf8String() {
+        assertThat(IdempotencyStore.hash("{\"courseId\": 1}".getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo(IdempotencyStore.hash("{\"courseId\": 1}"))
+                .hasSize(64);
+    }
+}
@@ -0,0 +1,60 @@
+package com.maths.teacher.payment.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.maths.teacher.payment.service.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        var breaker = new CircuitBreaker(3, 60_000);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.retryAfterSeconds()).isBetween(59L, 60L);
+    }
+
+    @Test
+    void allowsOneTrialCallAfterOpenPeriod() throws InterruptedException {
+        var breaker = new CircuitBreaker(1, 50);
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        Thread.sleep(60);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void trialResultClosesOrReopens() throws InterruptedException {
+        var breaker = new CircuitBreaker(5, 50);
+        for (int i = 0; i < 5; i++) {
+            breaker.onFailure();
+        }
+        Thread.sleep(60);
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        // A single failure in HALF_OPEN reopens, whatever the threshold.
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+
+        Thread.sleep(60);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.retryAfterSeconds()).isZero();
+    }
+}
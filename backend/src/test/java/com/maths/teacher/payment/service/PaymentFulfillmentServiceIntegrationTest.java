@@ -0,0 +1,83 @@
+package com.maths.teacher.payment.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.maths.teacher.payment.service.PaymentFulfillmentService.Outcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@Tag("integration")
+@ActiveProfiles("bench")
+@SpringBootTest
+class PaymentFulfillmentServiceIntegrationTest {
+
+    private static final String MARKER = "fulfilment-it";
+
+    @Autowired
+    private PaymentFulfillmentService fulfillmentService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+    private long courseId;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        userId = jdbcTemplate.queryForObject("""
+                INSERT INTO users (first_name, last_name, email, mobile_number, password_hash)
+                VALUES ('Fulfil', 'Test', ?, '+919876500020', 'x') RETURNING id
+                """, Long.class, MARKER + "@example.com");
+        courseId = jdbcTemplate.queryForObject(
+                "INSERT INTO courses (title, description, price_paise) VALUES (?, 'x', 49900) RETURNING id",
+                Long.class, MARKER);
+        order("order_" + MARKER + "_1");
+        order("order_" + MARKER + "_2");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM purchases WHERE razorpay_order_id LIKE ?", "order_" + MARKER + "%");
+        jdbcTemplate.update("DELETE FROM payment_orders WHERE razorpay_order_id LIKE ?", "order_" + MARKER + "%");
+        jdbcTemplate.update("DELETE FROM courses WHERE title = ?", MARKER);
+        jdbcTemplate.update("DELETE FROM users WHERE email = ?", MARKER + "@example.com");
+    }
+
+    @Test
+    void secondOrderForOwnedCourseIsMarkedRefundRequired() {
+        String first = "order_" + MARKER + "_1";
+        String second = "order_" + MARKER + "_2";
+
+        assertThat(fulfillmentService.recordCaptured(first, "pay_1", 49900, "INR")).isEqualTo(Outcome.FULFILLED);
+        assertThat(status(first)).isEqualTo("PAID");
+        assertThat(fulfillmentService.recordVerified(userId, first, "pay_1")).isEqualTo(Outcome.ALREADY_FULFILLED);
+
+        assertThat(fulfillmentService.recordCaptured(second, "pay_2", 49900, "INR"))
+                .isEqualTo(Outcome.COURSE_ALREADY_OWNED);
+        assertThat(status(second)).isEqualTo("REFUND_REQUIRED");
+        // A redelivered webhook or the client's verify call finds the same state.
+        assertThat(fulfillmentService.recordVerified(userId, second, "pay_2")).isEqualTo(Outcome.COURSE_ALREADY_OWNED);
+        assertThat(status(second)).isEqualTo("REFUND_REQUIRED");
+        assertThat(status(first)).isEqualTo("PAID");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM purchases WHERE user_id = ?", Integer.class, userId))
+                .isEqualTo(1);
+    }
+
+    private void order(String razorpayOrderId) {
+        jdbcTemplate.update("""
+                INSERT INTO payment_orders (razorpay_order_id, user_id, course_id, amount_paise, currency)
+                VALUES (?, ?, ?, 49900, 'INR')
+                """, razorpayOrderId, userId, courseId);
+    }
+
+    private String status(String razorpayOrderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM payment_orders WHERE razorpay_order_id = ?",
+                String.class, razorpayOrderId);
+    }
+}
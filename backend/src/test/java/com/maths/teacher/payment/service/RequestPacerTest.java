@@ -0,0 +1,56 @@
+package com.maths.teacher.payment.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RequestPacerTest {
+
+    @Test
+    void firstCallDoesNotWait() throws InterruptedException {
+        var pacer = new RequestPacer(1);
+
+        long start = System.nanoTime();
+        pacer.acquire();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(50);
+    }
+
+    @Test
+    void spacesCallsFromAllThreads() throws Exception {
+        var pacer = new RequestPacer(20);
+        List<Long> grantedAt = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                calls.add(pool.submit(() -> {
+                    pacer.acquire();
+                    grantedAt.add(System.nanoTime() - start);
+                    return null;
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 12 calls at 20/s: the last one is released no earlier than 11 intervals in.
+        List<Long> sorted = grantedAt.stream().sorted().toList();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(sorted.get(11))).isGreaterThanOrEqualTo(540);
+        for (int i = 1; i < sorted.size(); i++) {
+            assertThat(TimeUnit.NANOSECONDS.toMillis(sorted.get(i) - sorted.get(0)))
+                    .isGreaterThanOrEqualTo(i * 50L - 10);
+        }
+    }
+}
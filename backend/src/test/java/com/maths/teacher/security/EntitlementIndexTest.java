@@ -0,0 +1,132 @@
+package com.maths.teacher.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.maths.teacher.payment.repository.PurchaseRepository;
+import com.maths.teacher.security.EntitlementIndex.CourseSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class EntitlementIndexTest {
+
+    @Test
+    void courseSetHoldsIdsAcrossWords() {
+        CourseSet set = CourseSet.of(List.of(1L, 63L, 64L, 1000L));
+
+        assertThat(set.contains(1)).isTrue();
+        assertThat(set.contains(63)).isTrue();
+        assertThat(set.contains(64)).isTrue();
+        assertThat(set.contains(1000)).isTrue();
+        assertThat(set.contains(0)).isFalse();
+        assertThat(set.contains(65)).isFalse();
+        assertThat(set.contains(5000)).isFalse();
+        assertThat(set.contains(-1)).isFalse();
+        assertThat(set.courseIds().boxed().toList()).containsExactly(1L, 63L, 64L, 1000L);
+    }
+
+    @Test
+    void courseSetIsImmutable() {
+        CourseSet original = CourseSet.of(List.of(3L));
+
+        CourseSet added = original.with(200);
+        CourseSet removed = added.without(3);
+
+        assertThat(original.courseIds().boxed().toList()).containsExactly(3L);
+        assertThat(added.courseIds().boxed().toList()).containsExactly(3L, 200L);
+        assertThat(removed.courseIds().boxed().toList()).containsExactly(200L);
+        assertThat(original.with(3)).isSameAs(original);
+        assertThat(original.without(4)).isSameAs(original);
+    }
+
+    @Test
+    void fingerprintIgnoresTrailingEmptyWords() {
+        CourseSet grown = CourseSet.of(List.of(5L, 500L)).without(500);
+
+        assertThat(grown.fingerprint()).isEqualTo(CourseSet.of(List.of(5L)).fingerprint());
+        assertThat(grown.fingerprint()).isNotEqualTo(CourseSet.of(List.of(6L)).fingerprint());
+        assertThat(CourseSet.of(List.of(9L)).without(9).isEmpty()).isTrue();
+    }
+
+    @Test
+    void loadsOnceAndAppliesGrantsAndRevokes() {
+        var purchases = mock(PurchaseRepository.class);
+        when(purchases.findCourseIdsByUserId(7L)).thenReturn(List.of(1L, 2L));
+        var index = new EntitlementIndex(purchases, new EntitlementProperties());
+
+        assertThat(index.isEntitled(7L, 2L)).isTrue();
+        index.grant(7L, 3L);
+        index.revoke(7L, 1L);
+
+        assertThat(index.coursesOf(7L).courseIds().boxed().toList()).containsExactly(2L, 3L);
+        assertThat(index.isEntitled(7L, null)).isFalse();
+        assertThat(index.isEntitled(null, 2L)).isFalse();
+        verify(purchases, times(1)).findCourseIdsByUserId(7L);
+    }
+
+    @Test
+    void loadOverlappingAGrantIsNotKept() {
+        var purchases = mock(PurchaseRepository.class);
+        var index = new EntitlementIndex(purchases, new EntitlementProperties());
+        when(purchases.findCourseIdsByUserId(7L))
+                .thenAnswer(invocation -> {
+                    // The purchase commits after the query read the table.
+                    index.grant(7L, 3L);
+                    return List.of(1L);
+                })
+                .thenReturn(List.of(1L, 3L));
+
+        assertThat(index.isEntitled(7L, 3L)).isFalse();
+        assertThat(index.isEntitled(7L, 3L)).isTrue();
+        assertThat(index.isEntitled(7L, 1L)).isTrue();
+        verify(purchases, times(2)).findCourseIdsByUserId(7L);
+    }
+
+    @Test
+    void dropsLeastRecentlySeenUsersBeyondTheBound() {
+        var purchases = mock(PurchaseRepository.class);
+        when(purchases.findCourseIdsByUserId(anyLong())).thenReturn(List.of(1L));
+        var properties = new EntitlementProperties();
+        properties.setMaxUsers(10);
+        var index = new EntitlementIndex(purchases, properties);
+
+        for (long userId = 1; userId <= 10; userId++) {
+            index.coursesOf(userId);
+        }
+        index.coursesOf(1L);
+        // The 11th user goes over the bound: users 2 and 3, seen least recently, are dropped.
+        index.coursesOf(11L);
+
+        for (long userId : new long[] {1, 4, 10, 11}) {
+            index.coursesOf(userId);
+            verify(purchases, times(1)).findCourseIdsByUserId(userId);
+        }
+        index.coursesOf(2L);
+        verify(purchases, times(2)).findCourseIdsByUserId(2L);
+    }
+
+    @Test
+    void grantInsideTransactionWaitsForCommit() {
+        var purchases = mock(PurchaseRepository.class);
+        when(purchases.findCourseIdsByUserId(7L)).thenReturn(List.of());
+        var index = new EntitlementIndex(purchases, new EntitlementProperties());
+        index.coursesOf(7L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.grant(7L, 4L);
+            assertThat(index.isEntitled(7L, 4L)).isFalse();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.isEntitled(7L, 4L)).isTrue();
+    }
+}
@@ -0,0 +1,28 @@
+package com.maths.teacher.storage;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+class S3PresignedUrlServiceTest {
+
+    @Test
+    void rejectsExpiryNotAboveMinimumRemaining() {
+        assertThatThrownBy(() -> create(5, 5))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("presign-expiry-minutes");
+        assertThatThrownBy(() -> create(3, 5)).isInstanceOf(IllegalStateException.class);
+        assertThatCode(() -> create(10, 5)).doesNotThrowAnyException();
+    }
+
+    private static S3PresignedUrlService create(int expiryMinutes, int minRemainingMinutes) {
+        var properties = new S3Properties();
+        properties.setPresignExpiryMinutes(expiryMinutes);
+        properties.setPresignMinRemainingMinutes(minRemainingMinutes);
+        return new S3PresignedUrlService(mock(S3Presigner.class), properties, new SimpleMeterRegistry());
+    }
+}
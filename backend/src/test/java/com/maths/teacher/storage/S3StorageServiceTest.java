@@ -0,0 +1,245 @@
+package com.maths.teacher.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * The test JVM runs with a heap smaller than the uploaded file (see build.gradle), so
+ * buffering the whole file would fail with OutOfMemoryError.
+ */
+class S3StorageServiceTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void streamsLargeFileAsFixedSizeParts() {
+        long size = 200 * MB + 12_345;
+        var s3Client = new RecordingS3Client();
+        var service = new S3StorageService(s3Client, properties(8));
+        var file = new SyntheticPdf(size);
+
+        long heapBefore = usedHeap();
+        String url = service.uploadPdf(42L, file);
+
+        assertThat(url).startsWith("s3://test-bucket/videos/42/pdfs/").endsWith(".pdf");
+        assertThat(s3Client.putObjects).isZero();
+        assertThat(s3Client.completed).isTrue();
+        assertThat(s3Client.partNumbers).containsExactlyElementsOf(rangeClosed(26));
+        assertThat(s3Client.partSizes.subList(0, 25)).allMatch(partSize -> partSize == 8 * MB);
+        assertThat(s3Client.partSizes.get(25)).isEqualTo(size - 25 * 8 * MB);
+        assertThat(s3Client.bytesReceived).isEqualTo(size);
+        assertThat(s3Client.checksum.getValue()).isEqualTo(file.checksum());
+        // One part buffer plus the stub's read buffer; nowhere near the file size.
+        assertThat(s3Client.peakHeap - heapBefore).isLessThan(48 * MB);
+    }
+
+    @Test
+    void sendsSmallFileAsSinglePut() {
+        var s3Client = new RecordingS3Client();
+        var service = new S3StorageService(s3Client, properties(8));
+        var file = new SyntheticPdf(3 * MB);
+
+        service.uploadPdf(7L, file);
+
+        assertThat(s3Client.putObjects).isEqualTo(1);
+        assertThat(s3Client.partNumbers).isEmpty();
+        assertThat(s3Client.bytesReceived).isEqualTo(3 * MB);
+        assertThat(s3Client.checksum.getValue()).isEqualTo(file.checksum());
+    }
+
+    @Test
+    void partSizeHasS3Minimum() {
+        var s3Client = new RecordingS3Client();
+        var service = new S3StorageService(s3Client, properties(1));
+
+        service.uploadPdf(7L, new SyntheticPdf(12 * MB));
+
+        assertThat(s3Client.partSizes).containsExactly(5 * MB, 5 * MB, 2 * MB);
+    }
+
+    private static S3Properties properties(int partSizeMb) {
+        var properties = new S3Properties();
+        properties.setBucket("test-bucket");
+        properties.setUploadPartSizeMb(partSizeMb);
+        return properties;
+    }
+
+    private static List<Integer> rangeClosed(int count) {
+        var numbers = new ArrayList<Integer>();
+        for (int i = 1; i <= count; i++) {
+            numbers.add(i);
+        }
+        return numbers;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /** Consumes request bodies as S3 would, keeping only counts and a checksum. */
+    private static final class RecordingS3Client implements S3Client {
+
+        final List<Integer> partNumbers = new ArrayList<>();
+        final List<Long> partSizes = new ArrayList<>();
+        final CRC32 checksum = new CRC32();
+        int putObjects;
+        long bytesReceived;
+        boolean completed;
+        long peakHeap;
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            putObjects++;
+            consume(body);
+            return PutObjectResponse.builder().eTag("etag").build();
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            return CreateMultipartUploadResponse.builder().uploadId("upload-1").build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            partNumbers.add(request.partNumber());
+            partSizes.add(consume(body));
+            peakHeap = Math.max(peakHeap, usedHeap());
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            assertThat(request.multipartUpload().parts()).hasSize(partNumbers.size());
+            completed = true;
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        private long consume(RequestBody body) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    checksum.update(buffer, 0, read);
+                    total += read;
+                }
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            bytesReceived += total;
+            return total;
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /** Generates its content on the fly; getBytes is off limits. */
+    private static final class SyntheticPdf implements MultipartFile {
+
+        private final long size;
+
+        SyntheticPdf(long size) {
+            this.size = size;
+        }
+
+        long checksum() {
+            var crc = new CRC32();
+            try (InputStream in = getInputStream()) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    crc.update(buffer, 0, read);
+                }
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return crc.getValue();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private long position;
+
+                @Override
+                public int read() {
+                    return position < size ? (int) (position++ * 31 % 251) : -1;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    if (position >= size) {
+                        return -1;
+                    }
+                    int count = (int) Math.min(length, size - position);
+                    for (int i = 0; i < count; i++) {
+                        buffer[offset + i] = (byte) (position++ * 31 % 251);
+                    }
+                    return count;
+                }
+            };
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new UnsupportedOperationException("upload must stream, not buffer");
+        }
+
+        @Override
+        public String getName() {
+            return "pdf";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "synthetic.pdf";
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/pdf";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
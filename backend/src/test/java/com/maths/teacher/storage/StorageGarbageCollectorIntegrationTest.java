@@ -0,0 +1,209 @@
+package com.maths.teacher.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Runs the collector against PostgreSQL and an in-memory S3 stand-in that pages its
+ * listing the way S3 does (UTF-8 byte order, at most 1000 keys per page).
+ */
+@Tag("integration")
+@ActiveProfiles("bench")
+@SpringBootTest
+class StorageGarbageCollectorIntegrationTest {
+
+    private static final String BUCKET = "bench-bucket";
+    private static final String PREFIX = "gc-it/";
+    private static final String MARKER = "gc-integration";
+    private static final int OBJECTS = 2_500;
+    private static final long STGGC_LOCK_ID = 0x5354474743L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StorageDeletionRepository storageDeletionRepository;
+
+    private final InMemoryS3 s3 = new InMemoryS3();
+    private StorageGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        var s3Properties = new S3Properties();
+        s3Properties.setBucket(BUCKET);
+        var gcProperties = new StorageGcProperties();
+        gcProperties.setPrefixes(List.of(PREFIX));
+        gcProperties.setGraceHours(24);
+        collector = new StorageGarbageCollector(s3, s3Properties, gcProperties, storageDeletionRepository,
+                jdbcTemplate, new SimpleMeterRegistry());
+        s3.activity = () -> jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM pg_stat_activity
+                WHERE datname = current_database() AND state LIKE 'idle in transaction%'
+                """, Integer.class);
+
+        Instant old = Instant.now().minus(Duration.ofDays(3));
+        long courseId = jdbcTemplate.queryForObject("""
+                INSERT INTO courses (title, description, price_paise, thumbnail_url)
+                VALUES (?, 'GC test course', 0, ?) RETURNING id
+                """, Long.class, MARKER,
+                "https://" + BUCKET + ".s3.ap-south-1.amazonaws.com/" + PREFIX + "thumbs/my%20thumb%20%F0%9F%98%80.jpg");
+        long videoId = jdbcTemplate.queryForObject("""
+                INSERT INTO videos (video_id, title, course_id, thumbnail_url, duration, display_order)
+                VALUES ('gcvideo', 'GC lesson', ?, '', '1:00', 0) RETURNING id
+                """, Long.class, courseId);
+
+        for (int i = 0; i < OBJECTS; i++) {
+            String key = PREFIX + String.format("obj-%05d.pdf", i);
+            s3.put(key, old);
+            if (i % 10 == 0) {
+                jdbcTemplate.update("""
+                        INSERT INTO video_pdfs (video_id_fk, title, pdf_type, file_url, display_order)
+                        VALUES (?, 'Notes', 'notes', ?, ?)
+                        """, videoId, "s3://" + BUCKET + "/" + key, i);
+            }
+        }
+        s3.put(PREFIX + "thumbs/my thumb 😀.jpg", old);
+        s3.put(PREFIX + "uploads/in-flight.pdf", old);
+        jdbcTemplate.update("""
+                INSERT INTO upload_sessions (object_key, upload_id, content_type, max_size, expires_at)
+                VALUES (?, 'upload-1', 'application/pdf', 1024, NOW() + INTERVAL '1 hour')
+                """, PREFIX + "uploads/in-flight.pdf");
+        s3.put(PREFIX + "queued.pdf", old);
+        jdbcTemplate.update("INSERT INTO storage_deletions (storage_url) VALUES (?)",
+                "s3://" + BUCKET + "/" + PREFIX + "queued.pdf");
+        s3.put(PREFIX + "recent.pdf", Instant.now());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM storage_deletions WHERE storage_url LIKE ?", "%/" + PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM upload_sessions WHERE object_key LIKE ?", PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM courses WHERE title = ?", MARKER);
+    }
+
+    @Test
+    void queuesOnlyUnreferencedObjectsPageByPage() {
+        int orphans = OBJECTS - OBJECTS / 10;
+
+        var dryRun = collector.run(true);
+        assertThat(dryRun.scannedObjects()).isEqualTo(OBJECTS + 4);
+        assertThat(dryRun.recentObjectsSkipped()).isEqualTo(1);
+        assertThat(dryRun.orphanObjects()).isEqualTo(orphans);
+        assertThat(queued()).containsExactly("s3://" + BUCKET + "/" + PREFIX + "queued.pdf");
+        assertThat(s3.pages).isEqualTo(3);
+
+        var report = collector.run(false);
+        assertThat(report.orphanObjects()).isEqualTo(orphans);
+        List<String> queued = queued();
+        assertThat(queued).hasSize(orphans + 1)
+                .doesNotContain("s3://" + BUCKET + "/" + PREFIX + "obj-00010.pdf")
+                .contains("s3://" + BUCKET + "/" + PREFIX + "obj-00011.pdf")
+                .noneMatch(url -> url.contains("thumb") || url.contains("in-flight") || url.contains("recent"));
+
+        // Everything left is referenced or queued already.
+        assertThat(collector.run(false).orphanObjects()).isZero();
+        // No transaction was left open while S3 was being listed.
+        assertThat(s3.maxIdleInTransaction).isZero();
+    }
+
+    @Test
+    void rejectsConcurrentRun() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (var lock = connection.prepareStatement("SELECT pg_advisory_lock(?)")) {
+                lock.setLong(1, STGGC_LOCK_ID);
+                lock.execute();
+            }
+            try {
+                assertThatThrownBy(() -> collector.run(true))
+                        .isInstanceOf(ResponseStatusException.class)
+                        .hasMessageContaining("already running");
+            } finally {
+                try (var unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, STGGC_LOCK_ID);
+                    unlock.execute();
+                }
+            }
+            return null;
+        });
+    }
+
+    private List<String> queued() {
+        return jdbcTemplate.queryForList("SELECT storage_url FROM storage_deletions WHERE storage_url LIKE ?",
+                String.class, "%/" + PREFIX + "%");
+    }
+
+    private interface Probe {
+        int idleInTransaction();
+    }
+
+    /** Lists like S3: prefix filter, UTF-8 byte order, continuation tokens, 1000-key pages. */
+    private static final class InMemoryS3 implements S3Client {
+
+        private final TreeMap<String, Instant> objects = new TreeMap<>(StorageGarbageCollector::compareUtf8);
+        Probe activity;
+        int pages;
+        int maxIdleInTransaction;
+
+        void put(String key, Instant lastModified) {
+            objects.put(key, lastModified);
+        }
+
+        @Override
+        public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+            pages++;
+            maxIdleInTransaction = Math.max(maxIdleInTransaction, activity.idleInTransaction());
+            int maxKeys = request.maxKeys() == null ? 1000 : Math.min(request.maxKeys(), 1000);
+            var tail = request.continuationToken() == null
+                    ? objects.tailMap(request.prefix(), true)
+                    : objects.tailMap(request.continuationToken(), false);
+            var contents = new ArrayList<S3Object>();
+            boolean truncated = false;
+            for (var entry : tail.entrySet()) {
+                if (!entry.getKey().startsWith(request.prefix())) {
+                    break;
+                }
+                if (contents.size() == maxKeys) {
+                    truncated = true;
+                    break;
+                }
+                contents.add(S3Object.builder().key(entry.getKey()).lastModified(entry.getValue()).size(1024L).build());
+            }
+            return ListObjectsV2Response.builder()
+                    .contents(contents)
+                    .isTruncated(truncated)
+                    .nextContinuationToken(truncated ? contents.get(contents.size() - 1).key() : null)
+                    .keyCount(contents.size())
+                    .build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
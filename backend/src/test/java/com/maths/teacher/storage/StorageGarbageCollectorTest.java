@@ -0,0 +1,42 @@
+package com.maths.teacher.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StorageGarbageCollectorTest {
+
+    @Test
+    void ordersKeysLikeS3Listing() {
+        // S3 lists keys in UTF-8 byte order, which differs from String.compareTo once
+        // supplementary characters (surrogate pairs) meet BMP characters above U+D800.
+        List<String> keys = Arrays.asList(
+                "courses/1/a.jpg",
+                "courses/1/ﬁle.jpg",
+                "courses/1/😀.jpg",
+                "courses/10/a.jpg",
+                "courses/1/B.jpg",
+                "courses/1/",
+                "videos/2/pdfs/x.pdf");
+
+        List<String> byUtf8Bytes = keys.stream()
+                .sorted((a, b) -> Arrays.compareUnsigned(
+                        a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8)))
+                .toList();
+        List<String> byCompareUtf8 = keys.stream().sorted(StorageGarbageCollector::compareUtf8).toList();
+
+        assertThat(byCompareUtf8).isEqualTo(byUtf8Bytes);
+        assertThat(byCompareUtf8.indexOf("courses/1/ﬁle.jpg"))
+                .isLessThan(byCompareUtf8.indexOf("courses/1/😀.jpg"));
+    }
+
+    @Test
+    void prefixSortsFirst() {
+        assertThat(StorageGarbageCollector.compareUtf8("courses/1", "courses/1/a")).isNegative();
+        assertThat(StorageGarbageCollector.compareUtf8("courses/1/a", "courses/1")).isPositive();
+        assertThat(StorageGarbageCollector.compareUtf8("same", "same")).isZero();
+    }
+}
@@ -0,0 +1,111 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Razorpay Orders API, for load tests and reconciliation runs only.
+ * Needs nothing but a JDK:
+ *
+ *   java scripts/RazorpayStub.java [port] [latencyMs] [jitterMs] [failureRate] [paidRate]
+ *
+ * Every request waits latencyMs plus up to jitterMs; a failureRate share (0.0-1.0) gets
+ * HTTP 502. Start the backend with RAZORPAY_API_BASE_URL=http://localhost:<port>.
+ *
+ *   POST /v1/orders                returns a new order in state "created"
+ *   GET  /v1/orders/{id}/payments  a paidRate share (default 0.5) of the orders created by
+ *                                  this stub show one captured payment for the full amount;
+ *                                  the rest, and orders it does not know, show none
+ *
+ * To exercise the reconciler: create orders through checkout, age them with
+ *   UPDATE payment_orders SET created_at = NOW() - INTERVAL '2 days' WHERE status = 'CREATED';
+ * then POST /api/admin/payments/reconcile?dryRun=false as an admin.
+ */
+public class RazorpayStub {
+
+    private static final Pattern AMOUNT = Pattern.compile("\"amount\"\\s*:\\s*(\\d+)");
+    private static final Pattern CURRENCY = Pattern.compile("\"currency\"\\s*:\\s*\"([A-Z]+)\"");
+    private static final Pattern RECEIPT = Pattern.compile("\"receipt\"\\s*:\\s*\"([^\"]*)\"");
+
+    private static final Pattern PAYMENTS_PATH = Pattern.compile("^/v1/orders/([^/]+)/payments$");
+
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final Map<String, String> paymentsByOrder = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        long jitterMs = args.length > 2 ? Long.parseLong(args[2]) : 300;
+        double failureRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+        double paidRate = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/orders", exchange -> {
+            try (exchange) {
+                sleep(latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0));
+                Matcher payments = PAYMENTS_PATH.matcher(exchange.getRequestURI().getPath());
+                if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                    respond(exchange, 502, "{\"error\":{\"code\":\"SERVER_ERROR\",\"description\":\"stub failure\"}}");
+                } else if ("GET".equals(exchange.getRequestMethod()) && payments.matches()) {
+                    String items = paymentsByOrder.getOrDefault(payments.group(1), "");
+                    respond(exchange, 200, "{\"entity\":\"collection\",\"count\":%d,\"items\":[%s]}"
+                            .formatted(items.isEmpty() ? 0 : 1, items));
+                } else if ("POST".equals(exchange.getRequestMethod()) && "/v1/orders".equals(exchange.getRequestURI().getPath())) {
+                    String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                    long seq = sequence.incrementAndGet();
+                    String orderId = "order_stub%d%d".formatted(System.currentTimeMillis() % 100000, seq);
+                    String amount = find(AMOUNT, body, "0");
+                    String currency = find(CURRENCY, body, "INR");
+                    if (ThreadLocalRandom.current().nextDouble() < paidRate) {
+                        paymentsByOrder.put(orderId, """
+                                {"id":"pay_stub%d","entity":"payment","amount":%s,"currency":"%s",\
+                                "status":"captured","order_id":"%s","method":"upi","captured":true}"""
+                                .formatted(seq, amount, currency, orderId));
+                    }
+                    respond(exchange, 200, """
+                            {"id":"%s","entity":"order","amount":%s,"amount_paid":0,"amount_due":%s,\
+                            "currency":"%s","receipt":"%s","status":"created","attempts":0,"created_at":%d}"""
+                            .formatted(orderId, amount, amount, currency, find(RECEIPT, body, ""),
+                                    System.currentTimeMillis() / 1000));
+                } else {
+                    respond(exchange, 404, "{\"error\":{\"code\":\"BAD_REQUEST_ERROR\"}}");
+                }
+            }
+        });
+        server.start();
+        System.out.printf("Razorpay stub on :%d (latency %d+%d ms, failure rate %.2f, paid rate %.2f)%n",
+                port, latencyMs, jitterMs, failureRate, paidRate);
+    }
+
+    private static String find(Pattern pattern, String body, String fallback) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.find() ? matcher.group(1) : fallback;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+#!/usr/bin/env bash
+# Load-test checkout (POST /api/payment/create-order) against a slow local Razorpay stub,
+# while probing GET /api/courses to show whether catalog reads stall during the burst.
+#
+# 1. Start the stub (or let this script do it with -S):
+#      java scripts/RazorpayStub.java 9090 600 400 0.0
+# 2. Start the backend pointed at it, e.g.
+#      RAZORPAY_API_BASE_URL=http://localhost:9090 ./gradlew bootRun --args='--spring.profiles.active=dev'
+# 3. Run: scripts/load-test-create-order.sh -T <token file> -C <course id> [-n 500] [-c 100]
+#
+# Unpaid orders are reused per student and course, so a single token reaches Razorpay once;
+# pass a file of tokens for different students to put every request on the provider.
+#
+# Options:
+#   -T  file with one student access token per line, used round robin
+#   -t  a single student access token (or $TOKEN); repeats are served as reused orders
+#   -C  course ID to order (default 1)
+#   -n  create-order requests (default 500)
+#   -c  parallel requests (default 100)
+#   -u  backend base URL (default http://localhost:8080)
+#   -S  also start the stub here: -S "<port> <latencyMs> <jitterMs> <failureRate>"
+#
+# Prerequisites: bash, curl 7.66+ (for --parallel), java (for -S). Never point this at production.
+
+set -euo pipefail
+
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+TOKEN="${TOKEN:-}"
+TOKEN_FILE=""
+COURSE_ID=1
+COUNT=500
+CONCURRENCY=100
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+STUB_ARGS=""
+
+while getopts "t:T:C:n:c:u:S:h" opt; do
+  case "$opt" in
+    t) TOKEN="$OPTARG" ;;
+    T) TOKEN_FILE="$OPTARG" ;;
+    C) COURSE_ID="$OPTARG" ;;
+    n) COUNT="$OPTARG" ;;
+    c) CONCURRENCY="$OPTARG" ;;
+    u) BASE_URL="$OPTARG" ;;
+    S) STUB_ARGS="$OPTARG" ;;
+    *) sed -n '2,25p' "$0"; exit 1 ;;
+  esac
+done
+
+if [ -z "$TOKEN" ] && [ -z "$TOKEN_FILE" ]; then
+  echo "Error: pass student access tokens with -T <file>, -t <token> or TOKEN=."
+  exit 1
+fi
+
+WORK_DIR="$(mktemp -d)"
+if [ -n "$TOKEN_FILE" ]; then
+  grep -v '^[[:space:]]*$' "$TOKEN_FILE" > "$WORK_DIR/tokens"
+else
+  echo "$TOKEN" > "$WORK_DIR/tokens"
+fi
+PIDS=()
+cleanup() {
+  for pid in "${PIDS[@]}"; do kill "$pid" 2>/dev/null || true; done
+  rm -rf "$WORK_DIR"
+}
+trap cleanup EXIT
+
+if [ -n "$STUB_ARGS" ]; then
+  # shellcheck disable=SC2086
+  java "$SCRIPT_DIR/RazorpayStub.java" $STUB_ARGS &
+  PIDS+=($!)
+  sleep 3
+fi
+
+# Catalog probe: one GET /api/courses every 100 ms until the burst is over.
+(
+  while [ ! -f "$WORK_DIR/done" ]; do
+    curl -s -o /dev/null -w '%{http_code} %{time_total}\n' "$BASE_URL/api/courses" >> "$WORK_DIR/probe" || true
+    sleep 0.1
+  done
+) &
+PIDS+=($!)
+
+# One curl process runs the whole burst from a config file with one block per request, taking
+# tokens round robin. A process per request would compete for CPU with the backend under test
+# and inflate the latencies being measured.
+awk -v count="$COUNT" -v url="$BASE_URL/api/payment/create-order" -v course="$COURSE_ID" '
+  { tokens[n++] = $0 }
+  END {
+    for (i = 0; i < count; i++) {
+      if (i > 0) print "next"
+      printf "url = \"%s\"\n", url
+      printf "header = \"Authorization: Bearer %s\"\n", tokens[i % n]
+      print "header = \"Content-Type: application/json\""
+      printf "data = \"{\\\"courseId\\\": %s}\"\n", course
+      print "output = \"/dev/null\""
+      print "write-out = \"%{http_code} %{time_total}\\n\""
+    }
+  }' "$WORK_DIR/tokens" > "$WORK_DIR/requests"
+
+echo "Sending $COUNT create-order requests to $BASE_URL with concurrency $CONCURRENCY..."
+start=$(date +%s.%N)
+curl --silent --no-progress-meter --parallel --parallel-immediate --parallel-max "$CONCURRENCY" -K "$WORK_DIR/requests" \
+  > "$WORK_DIR/orders" || true
+end=$(date +%s.%N)
+touch "$WORK_DIR/done"
+sleep 0.3
+
+summary() {
+  local label="$1" file="$2"
+  local total
+  cut -d' ' -f2 "$file" | sort -n > "$file.sorted"
+  total=$(wc -l < "$file.sorted")
+  pct() { sed -n "$(( ($1 * total + 99) / 100 ))p" "$file.sorted"; }
+  echo "$label: $total requests"
+  cut -d' ' -f1 "$file" | sort | uniq -c | sed 's/^/    /'
+  echo "    latency (s): p50=$(pct 50) p95=$(pct 95) p99=$(pct 99) max=$(tail -1 "$file.sorted")"
+}
+
+echo
+echo "Burst took $(awk -v s="$start" -v e="$end" 'BEGIN { printf "%.2f", e - s }')s"
+summary "create-order" "$WORK_DIR/orders"
+summary "GET /api/courses during burst" "$WORK_DIR/probe"
+echo
+echo "Compare hikaricp_connections_pending and payment_provider_calls in /actuator/metrics."
@@ -0,0 +1,117 @@
+#!/usr/bin/env bash
+# Replay signed Razorpay webhook events against a local backend to load-test ingestion.
+# Events are generated and signed up front, then sent concurrently with curl; the summary
+# shows HTTP status counts and request latency percentiles.
+#
+# Usage: scripts/replay-razorpay-webhooks.sh [-n count] [-c concurrency] [-d duplicate_pct]
+#                                            [-e event_type] [-o orders_file] [-u url] [-s secret]
+#
+#   -n  events to send (default 1000)
+#   -c  parallel requests (default 50)
+#   -d  percentage of deliveries that repeat an earlier event ID, like Razorpay retries (default 10)
+#   -e  event type (default payment.authorized, which is stored and then ignored, so the run
+#       has no side effects; use payment.captured with -o to exercise purchase creation)
+#   -o  file with one "razorpay_order_id amount_paise" per line, e.g. from
+#       psql -Atc "SELECT razorpay_order_id || ' ' || amount_paise FROM payment_orders WHERE status = 'CREATED'"
+#   -u  webhook URL (default http://localhost:8080/api/payment/webhook)
+#   -s  webhook secret (default $RAZORPAY_WEBHOOK_SECRET or the dev profile's local_webhook_secret)
+#
+# Prerequisites: bash, curl, openssl. Never point this at production.
+
+set -euo pipefail
+
+COUNT=1000
+CONCURRENCY=50
+DUPLICATE_PCT=10
+EVENT_TYPE="payment.authorized"
+ORDERS_FILE=""
+URL="${WEBHOOK_URL:-http://localhost:8080/api/payment/webhook}"
+SECRET="${RAZORPAY_WEBHOOK_SECRET:-local_webhook_secret}"
+
+while getopts "n:c:d:e:o:u:s:h" opt; do
+  case "$opt" in
+    n) COUNT="$OPTARG" ;;
+    c) CONCURRENCY="$OPTARG" ;;
+    d) DUPLICATE_PCT="$OPTARG" ;;
+    e) EVENT_TYPE="$OPTARG" ;;
+    o) ORDERS_FILE="$OPTARG" ;;
+    u) URL="$OPTARG" ;;
+    s) SECRET="$OPTARG" ;;
+    *) sed -n '2,20p' "$0"; exit 1 ;;
+  esac
+done
+
+for tool in curl openssl; do
+  if ! command -v "$tool" &>/dev/null; then
+    echo "Error: $tool is required."
+    exit 1
+  fi
+done
+
+ORDERS=()
+if [ -n "$ORDERS_FILE" ]; then
+  mapfile -t ORDERS < <(grep -v '^[[:space:]]*$' "$ORDERS_FILE")
+  if [ "${#ORDERS[@]}" -eq 0 ]; then
+    echo "Error: $ORDERS_FILE contains no orders."
+    exit 1
+  fi
+fi
+
+WORK_DIR="$(mktemp -d)"
+trap 'rm -rf "$WORK_DIR"' EXIT
+RUN_ID="$(date +%s)$$"
+
+echo "Generating $COUNT signed $EVENT_TYPE deliveries (${DUPLICATE_PCT}% duplicates)..."
+: > "$WORK_DIR/deliveries"
+for ((i = 1; i <= COUNT; i++)); do
+  if [ "$i" -gt 1 ] && [ $((RANDOM % 100)) -lt "$DUPLICATE_PCT" ]; then
+    # Redeliver an earlier event byte for byte, as Razorpay does on retry.
+    previous=$((RANDOM % (i - 1) + 1))
+    cp "$WORK_DIR/$previous.json" "$WORK_DIR/$i.json"
+    cp "$WORK_DIR/$previous.meta" "$WORK_DIR/$i.meta"
+  else
+    if [ "${#ORDERS[@]}" -gt 0 ]; then
+      read -r order_id amount <<< "${ORDERS[$(( (i - 1) % ${#ORDERS[@]} ))]}"
+    else
+      order_id="order_replay_${RUN_ID}_$i"
+      amount=100
+    fi
+    printf '{"entity":"event","account_id":"acc_replay","event":"%s","contains":["payment"],"payload":{"payment":{"entity":{"id":"pay_replay_%s_%d","entity":"payment","amount":%d,"currency":"INR","status":"captured","order_id":"%s","method":"upi"}}},"created_at":%d}' \
+      "$EVENT_TYPE" "$RUN_ID" "$i" "$amount" "$order_id" "$(date +%s)" > "$WORK_DIR/$i.json"
+    signature="$(openssl dgst -sha256 -hmac "$SECRET" < "$WORK_DIR/$i.json" | sed 's/^.* //')"
+    echo "evt_replay_${RUN_ID}_$i $signature" > "$WORK_DIR/$i.meta"
+  fi
+  echo "$i" >> "$WORK_DIR/deliveries"
+done
+
+send() {
+  local i="$1"
+  local event_id signature
+  read -r event_id signature < "$WORK_DIR/$i.meta"
+  curl -s -o /dev/null -w '%{http_code} %{time_total}\n' \
+    -X POST "$URL" \
+    -H 'Content-Type: application/json' \
+    -H "X-Razorpay-Event-Id: $event_id" \
+    -H "X-Razorpay-Signature: $signature" \
+    --data-binary "@$WORK_DIR/$i.json" || true
+}
+export -f send
+export WORK_DIR URL
+
+echo "Sending to $URL with concurrency $CONCURRENCY..."
+start=$(date +%s.%N)
+xargs -P "$CONCURRENCY" -I{} bash -c 'send {}' < "$WORK_DIR/deliveries" > "$WORK_DIR/results"
+end=$(date +%s.%N)
+
+echo
+echo "Status codes:"
+cut -d' ' -f1 "$WORK_DIR/results" | sort | uniq -c
+cut -d' ' -f2 "$WORK_DIR/results" | sort -n > "$WORK_DIR/latencies"
+total=$(wc -l < "$WORK_DIR/latencies")
+pct() { sed -n "$(( ($1 * total + 99) / 100 ))p" "$WORK_DIR/latencies"; }
+echo
+echo "Requests: $total in $(awk -v s="$start" -v e="$end" 'BEGIN { printf "%.2f", e - s }')s"
+echo "Latency (s): p50=$(pct 50) p95=$(pct 95) p99=$(pct 99) max=$(tail -1 "$WORK_DIR/latencies")"
+echo
+echo "Check processing with:"
+echo "  SELECT status, count(*) FROM payment_webhook_events GROUP BY status;"
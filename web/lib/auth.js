@@ -2,7 +2,8 @@
 // Authentication Library - Handles JWT token management and API integration
 // ============================================================================
 
-// In-memory session cache
+// In-memory session cache. The refresh token is not cached: every tab shares the one in
+// localStorage, and it changes whenever any tab refreshes.
 let sessionCache = {
     token: null,
     userId: null,
@@ -40,14 +41,33 @@ function clearToken() {
     localStorage.removeItem('token');
 }
 
+function getRefreshToken() {
+    return localStorage.getItem('refreshToken');
+}
+
+// Another tab logged in, refreshed or logged out: drop what it changed from the cache so
+// the next read goes to localStorage.
+if (typeof window !== 'undefined') {
+    window.addEventListener('storage', (event) => {
+        if (event.key === null) {
+            Object.keys(sessionCache).forEach((key) => { sessionCache[key] = null; });
+        } else if (event.key in sessionCache) {
+            sessionCache[event.key] = null;
+        }
+    });
+}
+
 // ============================================================================
 // Session Management Functions
 // ============================================================================
 
 function saveSession(authResponse) {
-    const { token, userId, email, firstName, role } = authResponse;
+    const { token, refreshToken, userId, email, firstName, role } = authResponse;
 
     setToken(token);
+    if (refreshToken) {
+        localStorage.setItem('refreshToken', refreshToken);
+    }
     sessionCache.userId = userId;
     sessionCache.email = email;
     sessionCache.firstName = firstName;
@@ -69,6 +89,7 @@ function clearSession() {
     };
 
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('userId');
     localStorage.removeItem('email');
     localStorage.removeItem('firstName');
@@ -88,14 +109,132 @@ function getUserRole() {
     return sessionCache.role || localStorage.getItem('role');
 }
 
+// ============================================================================
+// Token Refresh
+// ============================================================================
+
+// Access tokens are short-lived. A 401 triggers one refresh; concurrent requests
+// share the same refresh call because each refresh token can only be used once.
+// Tabs share the refresh token through localStorage, so refreshes are also serialized
+// across tabs with a Web Lock, and a tab that waited checks whether another tab has
+// already replaced the rejected access token before spending the refresh token itself.
+let refreshInFlight = null;
+const REFRESH_LOCK = 'auth-refresh';
+
+function apiUrl(path) {
+    const base = (typeof API_BASE !== 'undefined') ? API_BASE : '';
+    return path.startsWith('http') ? path : base + path;
+}
+
+/**
+ * Returns a fresh access token, or null if the session cannot be refreshed.
+ * rejectedToken is the access token the server just refused, if any.
+ */
+function refreshAccessToken(rejectedToken) {
+    if (!refreshInFlight) {
+        refreshInFlight = withRefreshLock(() => {
+            const current = localStorage.getItem('token');
+            if (rejectedToken !== undefined && current && current !== rejectedToken) {
+                sessionCache.token = current;
+                return current;
+            }
+            return requestRefresh();
+        })
+            .catch(() => null)
+            .finally(() => {
+                refreshInFlight = null;
+            });
+    }
+    return refreshInFlight;
+}
+
+function withRefreshLock(task) {
+    if (typeof navigator !== 'undefined' && navigator.locks) {
+        return navigator.locks.request(REFRESH_LOCK, task);
+    }
+    return Promise.resolve().then(task);
+}
+
+function requestRefresh() {
+    const refreshToken = getRefreshToken();
+    if (!refreshToken) {
+        return null;
+    }
+    return fetch(apiUrl('/api/auth/refresh'), {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken })
+    }).then(async (response) => {
+        if (!response.ok) {
+            return null;
+        }
+        const session = await response.json();
+        saveSession(session);
+        return session.token;
+    });
+}
+
+/**
+ * fetch() with the current access token. On 401 the token is refreshed once and the
+ * request repeated; the caller sees the second response.
+ */
+async function authorizedFetch(url, options = {}) {
+    const withToken = (token) => {
+        const headers = { ...(options.headers || {}) };
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+        return { ...options, headers };
+    };
+
+    const token = getToken();
+    const response = await fetch(url, withToken(token));
+    if (response.status !== 401 || url.includes('/api/auth/')) {
+        return response;
+    }
+    const refreshed = await refreshAccessToken(token || null);
+    return refreshed ? fetch(url, withToken(refreshed)) : response;
+}
+
+/**
+ * Revokes the session on the server (best effort) and clears it locally.
+ */
+function logoutSession() {
+    const token = getToken();
+    const refreshToken = getRefreshToken();
+    if (token || refreshToken) {
+        const headers = { 'Content-Type': 'application/json' };
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+        fetch(apiUrl('/api/auth/logout'), {
+            method: 'POST',
+            headers,
+            body: JSON.stringify({ refreshToken }),
+            keepalive: true
+        }).catch(() => {});
+    }
+    clearSession();
+}
+
+/**
+ * Key for the Idempotency-Key header. Create one per user action and send it on every
+ * retry of that action, so the server runs it once and replays the first response.
+ */
+function newIdempotencyKey() {
+    if (window.crypto && typeof window.crypto.randomUUID === 'function') {
+        return window.crypto.randomUUID();
+    }
+    // randomUUID needs a secure context; plain-HTTP pages fall back to this.
+    return Date.now().toString(36) + '-' + Math.random().toString(36).slice(2) + Math.random().toString(36).slice(2);
+}
+
 // ============================================================================
 // API Helper with Auto-Authorization and Timeout Protection
 // ============================================================================
 
 async function apiFetch(path, options = {}) {
-    const token = getToken();
-    const base = (typeof API_BASE !== 'undefined') ? API_BASE : '';
-    const url = path.startsWith('http') ? path : base + path;
+    const url = apiUrl(path);
     const timeout = options.timeout || 15000; // Default 15 second timeout
 
     const headers = {
@@ -103,10 +242,6 @@ async function apiFetch(path, options = {}) {
         ...options.headers
     };
 
-    if (token) {
-        headers['Authorization'] = `Bearer ${token}`;
-    }
-
     const config = {
         ...options,
         headers
@@ -118,7 +253,7 @@ async function apiFetch(path, options = {}) {
         const timeoutId = setTimeout(() => controller.abort(), timeout);
         config.signal = controller.signal;
 
-        const response = await fetch(url, config);
+        const response = await authorizedFetch(url, config);
         clearTimeout(timeoutId);
 
         // Handle 401 Unauthorized - redirect to login (but not for auth endpoints)
@@ -192,6 +327,11 @@ if (typeof module !== 'undefined' && module.exports) {
         getToken,
         setToken,
         clearToken,
+        getRefreshToken,
+        refreshAccessToken,
+        authorizedFetch,
+        logoutSession,
+        newIdempotencyKey,
         saveSession,
         clearSession,
         getUserInfo,
@@ -89,7 +89,7 @@ function redirectByRole(role) {
 // ============================================================================
 
 function logout() {
-    clearSession();
+    logoutSession();
     window.location.href = '/web/auth/login.html';
 }
 